@@ -1,7 +1,6 @@
 package com.example.meteoandroidmvp;
 
 import android.Manifest;
-import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.location.Location;
 import android.os.Bundle;
@@ -17,18 +16,23 @@ import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 import androidx.fragment.app.Fragment;
 
+import com.example.meteoandroidmvp.api.ApiClient;
+import com.example.meteoandroidmvp.api.FavoritesRefresher;
 import com.example.meteoandroidmvp.fragments.FavoritesFragment;
 import com.example.meteoandroidmvp.fragments.WeatherFragment;
 import com.example.meteoandroidmvp.model.FavoriteCity;
+import com.example.meteoandroidmvp.model.FavoritesIndex;
+import com.example.meteoandroidmvp.model.WeatherResponse;
+import com.example.meteoandroidmvp.repository.CityGazetteer;
+import com.example.meteoandroidmvp.repository.FavoritesRepository;
+import com.example.meteoandroidmvp.repository.WeatherHistoryStore;
 import com.example.meteoandroidmvp.utils.Constants;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
-import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -47,14 +51,11 @@ public class MainActivity extends AppCompatActivity
     // Barre de navigation en bas de l'écran
     private BottomNavigationView bottomNavigationView;
     
-    // Liste des villes favorites de l'utilisateur
-    private List<FavoriteCity> favoriteCities = new ArrayList<>();
+    // Villes favorites de l'utilisateur, indexées par nom
+    private FavoritesIndex favoriteCities = new FavoritesIndex();
     
-    // Nom du fichier de préférences pour stocker les données
-    private static final String PREFERENCES_NAME = "MeteoPrefs";
-    
-    // Clé pour accéder aux favoris dans les préférences
-    private static final String FAVORITES_KEY = "favorites";
+    // Stockage des favoris (base SQLite, accès en arrière-plan)
+    private final FavoritesRepository favoritesRepository = FavoritesRepository.getInstance();
     
     // Instances des fragments principaux
     private WeatherFragment weatherFragment;
@@ -80,7 +81,7 @@ public class MainActivity extends AppCompatActivity
         // Initialisation du service de localisation Google Play
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
         
-        // Récupération des villes favorites depuis le stockage local
+        // Récupération des villes favorites depuis le stockage local (en arrière-plan)
         loadFavorites();
         
         // Création des instances de fragments
@@ -187,6 +188,7 @@ public class MainActivity extends AppCompatActivity
         // Déterminer quel fragment charger selon l'item cliqué
         if (item.getItemId() == R.id.navigation_favorites) {
             fragment = favoritesFragment;
+            refreshFavorites();
         } else if (item.getItemId() == R.id.navigation_weather) {
             fragment = weatherFragment;
         }
@@ -204,30 +206,44 @@ public class MainActivity extends AppCompatActivity
      */
     @Override
     public void onAddToFavorites(FavoriteCity favoriteCity) {
-        // Vérifier si la ville est déjà dans les favoris
-        boolean alreadyExists = false;
-        for (FavoriteCity city : favoriteCities) {
-            if (city.getCityName().equals(favoriteCity.getCityName())) {
-                // Si oui, mettre à jour ses informations
-                city.setLastUpdate(favoriteCity.getLastUpdate());
-                city.setLatitude(favoriteCity.getLatitude());
-                city.setLongitude(favoriteCity.getLongitude());
-                city.setFromLocation(favoriteCity.isFromLocation());
-                alreadyExists = true;
-                Toast.makeText(this, "Favori mis à jour", Toast.LENGTH_SHORT).show();
-                break;
+        // Position GPS sans identifiant : celui de la ville la plus proche du répertoire,
+        // pour rafraîchir ce favori par lot et ne pas doubler un favori de la même ville.
+        // Sans ville connue à moins de 15 km, ou sans identifiant connu pour elle, le favori
+        // garde 0 : il est rafraîchi par ses coordonnées, et le premier rafraîchissement
+        // lui donne l'identifiant renvoyé par l'API (voir refreshFavorites)
+        if (favoriteCity.getCityId() == 0 && favoriteCity.isFromLocation()) {
+            CityGazetteer.City near = CityGazetteer.getInstance()
+                    .nearest(favoriteCity.getLatitude(), favoriteCity.getLongitude());
+            if (near != null && near.getId() > 0) {
+                favoriteCity.setCityId(near.getId());
             }
         }
         
-        // Si la ville n'est pas dans les favoris, l'ajouter
-        if (!alreadyExists) {
-            favoriteCities.add(favoriteCity);
+        // Vérifier si la ville est déjà dans les favoris (même nom, ou même identifiant)
+        FavoriteCity city = favoriteCities.get(favoriteCity.getCityName());
+        if (city == null) {
+            city = favoriteCities.findByCityId(favoriteCity.getCityId());
+        }
+        if (city != null) {
+            // Si oui, remplacer le favori par une copie à jour (la liste affichée n'est pas modifiée)
+            FavoriteCity updated = new FavoriteCity(city);
+            if (updated.getCityId() == 0) {
+                updated.setCityId(favoriteCity.getCityId());
+            }
+            updated.setLastUpdate(favoriteCity.getLastUpdate());
+            updated.setLatitude(favoriteCity.getLatitude());
+            updated.setLongitude(favoriteCity.getLongitude());
+            updated.setFromLocation(favoriteCity.isFromLocation());
+            favoriteCities.put(updated);
+            favoritesRepository.upsert(updated);
+            Toast.makeText(this, "Favori mis à jour", Toast.LENGTH_SHORT).show();
+        } else {
+            // Sinon, l'ajouter
+            favoriteCities.put(favoriteCity);
+            favoritesRepository.upsert(favoriteCity);
             Toast.makeText(this, "Ajouté aux favoris", Toast.LENGTH_SHORT).show();
         }
         
-        // Sauvegarder les changements
-        saveFavorites();
-        
         // Si le fragment des favoris est visible, lui demander de se mettre à jour
         if (favoritesFragment != null && favoritesFragment.isVisible()) {
             favoritesFragment.updateFavoritesList();
@@ -240,21 +256,17 @@ public class MainActivity extends AppCompatActivity
      */
     @Override
     public boolean isCityFavorite(String cityName) {
-        for (FavoriteCity city : favoriteCities) {
-            if (city.getCityName().equals(cityName)) {
-                return true;
-            }
-        }
-        return false;
+        return favoriteCities.contains(cityName);
     }
     
     /**
      * Renvoie la liste des villes favorites
      * Utilisée par le fragment des favoris pour afficher la liste
+     * (copie figée : les ajouts et suppressions suivants ne la modifient pas)
      */
     @Override
     public List<FavoriteCity> getFavoriteCities() {
-        return favoriteCities;
+        return favoriteCities.snapshot();
     }
     
     /**
@@ -290,45 +302,77 @@ public class MainActivity extends AppCompatActivity
      */
     @Override
     public void onFavoriteCityDeleted(FavoriteCity favoriteCity) {
-        // Supprimer la ville de la liste
-        favoriteCities.removeIf(city -> city.getCityName().equals(favoriteCity.getCityName()));
-        
-        // Sauvegarder les changements
-        saveFavorites();
+        // Supprimer la ville de la liste et de la base
+        favoriteCities.remove(favoriteCity.getCityName());
+        favoritesRepository.delete(favoriteCity);
         
         Toast.makeText(this, "Supprimé des favoris", Toast.LENGTH_SHORT).show();
     }
     
-    //
-    // Méthodes de gestion du stockage des favoris
-    //
-    
     /**
-     * Sauvegarde la liste des favoris dans les SharedPreferences
-     * en utilisant Gson pour convertir la liste en JSON
+     * Met à jour la date de dernière météo de tous les favoris
+     * Les villes sont regroupées par lots de 20 pour limiter le nombre de requêtes
      */
-    private void saveFavorites() {
-        SharedPreferences sharedPreferences = getSharedPreferences(PREFERENCES_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = sharedPreferences.edit();
-        
-        Gson gson = new Gson();
-        String json = gson.toJson(favoriteCities);
+    private void refreshFavorites() {
+        if (favoriteCities.isEmpty()) {
+            return;
+        }
         
-        editor.putString(FAVORITES_KEY, json);
-        editor.apply();
+        // Favoris modifiés, enregistrés ensemble à la fin du rafraîchissement
+        List<FavoriteCity> refreshed = new ArrayList<>();
+        new FavoritesRefresher(ApiClient.getWeatherService()).refresh(favoriteCities.snapshot(), new FavoritesRefresher.RefreshCallback() {
+            @Override
+            public void onCityRefreshed(FavoriteCity favoriteCity, WeatherResponse weatherResponse) {
+                WeatherHistoryStore.getInstance().record(weatherResponse);
+                // Favori supprimé ou remplacé pendant le rafraîchissement : rien à mettre à jour
+                if (favoriteCities.get(favoriteCity.getCityName()) != favoriteCity) {
+                    return;
+                }
+                // Copie à jour à la place de l'original : la liste affichée reste figée
+                FavoriteCity updated = new FavoriteCity(favoriteCity);
+                updated.setLastUpdate(new Date(weatherResponse.getDateTime() * 1000));
+                // Mémoriser l'identifiant pour que le prochain rafraîchissement passe par un lot
+                if (updated.getCityId() == 0) {
+                    updated.setCityId(weatherResponse.getCityId());
+                }
+                favoriteCities.put(updated);
+                refreshed.add(updated);
+            }
+            
+            @Override
+            public void onRefreshComplete(int refreshedCount, int failedCount) {
+                if (refreshedCount > 0) {
+                    favoritesRepository.upsertAll(refreshed);
+                    if (favoritesFragment != null && favoritesFragment.isVisible()) {
+                        favoritesFragment.updateFavoritesList();
+                    }
+                }
+            }
+        });
     }
     
+    //
+    // Méthodes de gestion du stockage des favoris
+    //
+    
     /**
-     * Charge la liste des favoris depuis les SharedPreferences
+     * Charge la liste des favoris depuis la base, sans bloquer le thread principal
+     * Les favoris ajoutés avant la fin du chargement sont conservés
      */
     private void loadFavorites() {
-        SharedPreferences sharedPreferences = getSharedPreferences(PREFERENCES_NAME, MODE_PRIVATE);
-        String json = sharedPreferences.getString(FAVORITES_KEY, null);
-        
-        if (json != null) {
-            Gson gson = new Gson();
-            Type type = new TypeToken<List<FavoriteCity>>() {}.getType();
-            favoriteCities = gson.fromJson(json, type);
-        }
+        favoritesRepository.loadAll(loaded -> {
+            FavoritesIndex index = new FavoritesIndex();
+            for (FavoriteCity city : loaded) {
+                index.putIfAbsent(city);
+            }
+            for (FavoriteCity city : favoriteCities.snapshot()) {
+                index.putIfAbsent(city);
+            }
+            favoriteCities = index;
+            
+            if (favoritesFragment != null && favoritesFragment.isVisible()) {
+                favoritesFragment.updateFavoritesList();
+            }
+        });
     }
 }
\ No newline at end of file
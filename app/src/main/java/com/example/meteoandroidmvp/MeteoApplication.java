@@ -0,0 +1,46 @@
+package com.example.meteoandroidmvp;
+
+import android.app.Application;
+
+import com.example.meteoandroidmvp.api.ApiClient;
+import com.example.meteoandroidmvp.repository.CityGazetteer;
+import com.example.meteoandroidmvp.repository.FavoritesRepository;
+import com.example.meteoandroidmvp.repository.WeatherHistoryStore;
+import com.example.meteoandroidmvp.utils.WeatherSnapshotStore;
+import com.example.meteoandroidmvp.workers.FavoritesPrefetchWorker;
+
+/**
+ * Point d'entrée du processus, exécuté avant toute activité ou récepteur
+ * Lance la relecture du dernier écran météo, initialise le cache HTTP puis prépare
+ * la pile réseau (client OkHttp, Retrofit, service météo et connexion TLS) sur un
+ * thread d'arrière-plan, pour que le premier écran n'en paie pas le coût.
+ */
+public class MeteoApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Dernier écran météo relu pendant la création de l'activité
+        WeatherSnapshotStore.getInstance().init(this);
+
+        // Base des favoris (import de l'ancien format en arrière-plan si nécessaire)
+        FavoritesRepository.getInstance().init(this);
+
+        // Historique des observations, alimenté à chaque météo reçue
+        WeatherHistoryStore.getInstance().init(this);
+
+        // Répertoire des villes de l'autocomplétion, chargé à la première saisie
+        CityGazetteer.getInstance().init(this);
+
+        // Cache HTTP configuré avant que quiconque ne construise le client
+        ApiClient.init(this);
+
+        Thread warmUp = new Thread(ApiClient::warmUp, "network-warm-up");
+        warmUp.setPriority(Thread.NORM_PRIORITY - 1);
+        warmUp.start();
+
+        // Préparation périodique des favoris, pour les ouvrir sans attendre le réseau
+        FavoritesPrefetchWorker.schedule(this);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.meteoandroidmvp.adapter;
+
+import android.content.Context;
+import android.widget.ArrayAdapter;
+import android.widget.Filter;
+
+import androidx.annotation.NonNull;
+
+import com.example.meteoandroidmvp.repository.CityGazetteer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adaptateur des suggestions de villes du champ de recherche
+ * Les suggestions viennent du répertoire hors ligne : aucune requête réseau pendant la saisie.
+ * Le filtrage s'exécute sur le thread du filtre.
+ */
+public class CitySuggestionAdapter extends ArrayAdapter<CityGazetteer.City> {
+
+    private final Filter filter = new Filter() {
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            List<CityGazetteer.City> suggestions = constraint != null
+                    ? CityGazetteer.getInstance().suggest(constraint.toString(), CityGazetteer.MAX_SUGGESTIONS)
+                    : new ArrayList<>();
+            FilterResults results = new FilterResults();
+            results.values = suggestions;
+            results.count = suggestions.size();
+            return results;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            setSuggestions(results.values != null
+                    ? (List<CityGazetteer.City>) results.values
+                    : new ArrayList<>());
+        }
+
+        @Override
+        public CharSequence convertResultToString(Object resultValue) {
+            return ((CityGazetteer.City) resultValue).getDisplayName();
+        }
+    };
+
+    /**
+     * Constructeur
+     *
+     * @param context Contexte de l'application
+     */
+    public CitySuggestionAdapter(Context context) {
+        super(context, android.R.layout.simple_dropdown_item_1line, new ArrayList<>());
+        // Le répertoire se charge pendant que l'écran s'affiche, pas à la première lettre
+        CityGazetteer.getInstance().preload();
+    }
+
+    /**
+     * Remplace les villes proposées (suggestions de saisie ou corrections d'une faute de frappe)
+     *
+     * @param cities Villes à proposer
+     */
+    public void setSuggestions(List<CityGazetteer.City> cities) {
+        setNotifyOnChange(false);
+        clear();
+        addAll(cities);
+        if (cities.isEmpty()) {
+            notifyDataSetInvalidated();
+        } else {
+            notifyDataSetChanged();
+        }
+    }
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return filter;
+    }
+}
@@ -32,6 +32,9 @@ public class FavoritesAdapter extends RecyclerView.Adapter<FavoritesAdapter.Favo
         this.listener = listener;
     }
 
+    /**
+     * @param favoriteCities Liste figée des favoris (jamais modifiée une fois transmise)
+     */
     public void setFavoriteCities(List<FavoriteCity> favoriteCities) {
         this.favoriteCities = favoriteCities;
         notifyDataSetChanged();
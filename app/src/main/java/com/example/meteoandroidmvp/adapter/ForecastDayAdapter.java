@@ -12,9 +12,11 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.meteoandroidmvp.R;
 import com.example.meteoandroidmvp.model.ForecastDay;
+import com.example.meteoandroidmvp.model.WeatherResponse;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Adaptateur pour afficher les jours de prévisions
@@ -62,8 +64,9 @@ public class ForecastDayAdapter extends RecyclerView.Adapter<ForecastDayAdapter.
         // Récupérer le jour de prévisions à cette position
         ForecastDay forecastDay = forecastDays.get(position);
         
-        // Définir le titre du jour
+        // Définir le titre et le résumé du jour
         holder.tvDayTitle.setText(forecastDay.getDayTitle());
+        holder.tvDaySummary.setText(summary(forecastDay));
         
         // Configurer le RecyclerView horizontal pour les prévisions horaires
         holder.recyclerDayForecast.setLayoutManager(
@@ -71,10 +74,29 @@ public class ForecastDayAdapter extends RecyclerView.Adapter<ForecastDayAdapter.
         
         // Créer et configurer l'adaptateur pour les prévisions horaires
         ForecastHourAdapter hourAdapter = new ForecastHourAdapter();
+        hourAdapter.setTimezoneOffset(forecastDay.getTimezoneOffset());
         hourAdapter.setForecastItems(forecastDay.getHourlyForecasts());
         holder.recyclerDayForecast.setAdapter(hourAdapter);
     }
     
+    /**
+     * Résumé du jour, ex: "12°C / 19°C · pluie légère · 40 % de pluie"
+     * Le risque de pluie n'est indiqué qu'à partir de 10 %
+     */
+    private static String summary(ForecastDay forecastDay) {
+        StringBuilder summary = new StringBuilder(String.format(Locale.FRANCE, "%.0f°C / %.0f°C",
+                forecastDay.getMinTemperature(), forecastDay.getMaxTemperature()));
+        WeatherResponse.Weather condition = forecastDay.getDominantCondition();
+        if (condition != null && condition.getDescription() != null) {
+            summary.append(" · ").append(condition.getDescription());
+        }
+        int precipitation = Math.round(forecastDay.getPrecipitationProbability() * 100);
+        if (precipitation >= 10) {
+            summary.append(" · ").append(precipitation).append(" % de pluie");
+        }
+        return summary.toString();
+    }
+    
     @Override
     public int getItemCount() {
         return forecastDays != null ? forecastDays.size() : 0;
@@ -87,12 +109,16 @@ public class ForecastDayAdapter extends RecyclerView.Adapter<ForecastDayAdapter.
         // Titre du jour
         final TextView tvDayTitle;
         
+        // Résumé du jour
+        final TextView tvDaySummary;
+        
         // RecyclerView horizontal pour les prévisions horaires
         final RecyclerView recyclerDayForecast;
         
         DayViewHolder(@NonNull View itemView) {
             super(itemView);
             tvDayTitle = itemView.findViewById(R.id.tv_day_title);
+            tvDaySummary = itemView.findViewById(R.id.tv_day_summary);
             recyclerDayForecast = itemView.findViewById(R.id.recycler_day_forecast);
         }
     }
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.SimpleTimeZone;
 
 /**
  * Adaptateur pour afficher les prévisions horaires pour un jour donné
@@ -39,6 +40,15 @@ public class ForecastHourAdapter extends RecyclerView.Adapter<ForecastHourAdapte
         this.forecastItems = new ArrayList<>();
     }
     
+    /**
+     * Affiche les heures dans le fuseau de la ville plutôt que dans celui de l'appareil
+     * 
+     * @param timezoneOffset Décalage de l'heure locale de la ville par rapport à UTC, en secondes
+     */
+    public void setTimezoneOffset(int timezoneOffset) {
+        hourFormat.setTimeZone(new SimpleTimeZone(timezoneOffset * 1000, "UTC"));
+    }
+    
     /**
      * Définit la liste des prévisions horaires et notifie l'adaptateur
      * 
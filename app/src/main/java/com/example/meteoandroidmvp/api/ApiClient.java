@@ -1,11 +1,12 @@
 package com.example.meteoandroidmvp.api;
 
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 
-import okhttp3.Cache;
-import okhttp3.CacheControl;
-import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -18,17 +19,50 @@ import retrofit2.converter.gson.GsonConverterFactory;
  * pour les appels réseau vers l'API OpenWeatherMap
  */
 public class ApiClient {
+    private static final String TAG = "ApiClient";
+    
     // URL de base de l'API OpenWeatherMap
     private static final String BASE_URL = "https://api.openweathermap.org/data/2.5/";
     
+    // URL de base effectivement utilisée (remplacée par un serveur local dans les tests)
+    private static String baseUrl = BASE_URL;
+    
+    // Origine du serveur, contactée à l'avance pour ouvrir la connexion TLS
+    private static final String WARM_UP_URL = "https://api.openweathermap.org/";
+    
     // Instance Retrofit singleton
     private static Retrofit retrofit = null;
     
+    // Proxy du service météo, créé une seule fois (la création d'un proxy Retrofit est coûteuse)
+    private static WeatherService weatherService = null;
+    
     // Configuration des paramètres réseau
-    private static final long CACHE_SIZE = 10 * 1024 * 1024; // 10 MB
-    private static final int CONNECT_TIMEOUT = 30; // Secondes
-    private static final int READ_TIMEOUT = 30;    // Secondes
-    private static final int WRITE_TIMEOUT = 30;   // Secondes
+    // (courts : les relances et les requêtes couvertes prennent le relais d'un serveur lent)
+    private static final int CONNECT_TIMEOUT = 10; // Secondes
+    private static final int READ_TIMEOUT = 15;    // Secondes
+    private static final int WRITE_TIMEOUT = 15;   // Secondes
+    private static final int CALL_TIMEOUT = 45;    // Secondes, relances et couverture comprises
+    
+    // Journalisation complète des requêtes/réponses, désactivée par défaut
+    // (elle met en mémoire et écrit chaque corps de prévisions dans les logs)
+    private static boolean bodyLoggingEnabled = false;
+
+    /**
+     * Initialise le socle HTTP partagé (cache disque dans le répertoire de cache de l'application)
+     * et recharge l'état conservé entre deux lancements (quota d'appels, villes déjà géocodées)
+     * Doit être appelée avant le premier appel réseau pour que les réponses soient mises en cache
+     * 
+     * @param context Contexte Android (le contexte applicatif est conservé)
+     */
+    public static synchronized void init(Context context) {
+        QuotaScheduler.getInstance().init(context);
+        GeocodingCache.getInstance().init(context);
+        if (!HttpRuntime.isInitialized()) {
+            HttpRuntime.init(context);
+            // Un client éventuellement créé avant l'initialisation n'a pas de cache : le reconstruire
+            resetClient();
+        }
+    }
 
     /**
      * Retourne une instance singleton de Retrofit configurée 
@@ -36,30 +70,65 @@ public class ApiClient {
      * 
      * @return Instance Retrofit prête à l'emploi
      */
-    public static Retrofit getClient() {
+    public static synchronized Retrofit getClient() {
         if (retrofit == null) {
-            // Créer un intercepteur pour logger les requêtes (utile pour le débogage)
-            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-            loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+            // Politique de cache : fraîcheur par point d'accès, stale-while-revalidate et mode hors ligne
+            StaleWhileRevalidateInterceptor cacheInterceptor = new StaleWhileRevalidateInterceptor(HttpRuntime.isInitialized());
+            HedgingInterceptor hedgingInterceptor = new HedgingInterceptor();
             
-            // Construire le client OkHttp avec options avancées :
+            // Construire le client OkHttp à partir du socle partagé (pool, dispatcher, cache, métriques)
+            // avec options avancées :
             // - Timeouts pour éviter les blocages trop longs
-            // - Logging pour le débogage
+            // - Coordonnées ramenées au centre d'une cellule (positions proches = même cache)
+            // - Métriques applicatives par point d'accès
+            // - Politique de cache des réponses OpenWeatherMap
+            // - Disjoncteur (repli immédiat sur le cache quand le service est malade)
+            // - Requêtes couvertes et relances avec délai aléatoire
+            // - Respect du quota d'appels de la clé API (chaque appel réseau réel consomme un jeton)
             // - Réessayer en cas d'échec de connexion
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .addInterceptor(loggingInterceptor)
+            OkHttpClient.Builder builder = HttpRuntime.newClientBuilder()
+                    .addInterceptor(GeoQuantizingInterceptor.getInstance())
+                    .addInterceptor(new NetworkMetricsInterceptor())
+                    .addInterceptor(cacheInterceptor)
+                    .addInterceptor(new CircuitBreakerInterceptor())
+                    .addInterceptor(hedgingInterceptor)
+                    .addInterceptor(new RetryInterceptor())
+                    .addNetworkInterceptor(QuotaScheduler.getInstance())
+                    .addNetworkInterceptor(new CacheControlInterceptor())
                     .connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
                     .readTimeout(READ_TIMEOUT, TimeUnit.SECONDS)
                     .writeTimeout(WRITE_TIMEOUT, TimeUnit.SECONDS)
+                    .callTimeout(CALL_TIMEOUT, TimeUnit.SECONDS)
+                    .retryOnConnectionFailure(true);
+            if (bodyLoggingEnabled) {
+                // Logger les requêtes complètes, uniquement pour une session de débogage
+                HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
+                loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+                builder.addInterceptor(loggingInterceptor);
+            }
+            OkHttpClient client = builder.build();
+            cacheInterceptor.setCallFactory(client);
+
+            // Client « branche » des requêtes couvertes : mêmes ressources et relances,
+            // sans repasser par le disjoncteur ni par la couverture elle-même
+            OkHttpClient branchClient = HttpRuntime.newClientBuilder()
+                    .addInterceptor(new RetryInterceptor())
+                    .addNetworkInterceptor(QuotaScheduler.getInstance())
+                    .addNetworkInterceptor(new CacheControlInterceptor())
+                    .connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
+                    .readTimeout(READ_TIMEOUT, TimeUnit.SECONDS)
+                    .writeTimeout(WRITE_TIMEOUT, TimeUnit.SECONDS)
+                    .callTimeout(CALL_TIMEOUT, TimeUnit.SECONDS)
                     .retryOnConnectionFailure(true)
                     .build();
+            hedgingInterceptor.setBranchFactory(branchClient);
 
             // Construire l'instance Retrofit avec :
             // - URL de base de l'API
             // - Convertisseur Gson pour JSON → objets Java
             // - Client HTTP personnalisé
             retrofit = new Retrofit.Builder()
-                    .baseUrl(BASE_URL)
+                    .baseUrl(baseUrl)
                     .addConverterFactory(GsonConverterFactory.create())
                     .client(client)
                     .build();
@@ -67,11 +136,74 @@ public class ApiClient {
         return retrofit;
     }
     
+    /**
+     * Retourne le service météo partagé, créé à la première demande
+     * 
+     * @return Service API météo prêt à l'emploi
+     */
+    public static synchronized WeatherService getWeatherService() {
+        if (weatherService == null) {
+            weatherService = getClient().create(WeatherService.class);
+        }
+        return weatherService;
+    }
+    
+    /**
+     * Prépare la pile réseau avant le premier appel
+     * Construit le client et le proxy du service, puis ouvre une connexion vers le serveur
+     * (résolution DNS, connexion TCP et négociation TLS) qui reste dans le pool partagé.
+     * Bloquante : à appeler depuis un thread d'arrière-plan.
+     */
+    public static void warmUp() {
+        long start = SystemClock.elapsedRealtime();
+        getWeatherService();
+        long serviceReady = SystemClock.elapsedRealtime();
+        
+        // Requête HEAD sans intercepteurs : seule la connexion nous intéresse, pas la réponse
+        OkHttpClient client = HttpRuntime.newClientBuilder()
+                .cache(null)
+                .connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
+                .readTimeout(READ_TIMEOUT, TimeUnit.SECONDS)
+                .build();
+        Request request = new Request.Builder().url(WARM_UP_URL).head().build();
+        try (Response ignored = client.newCall(request).execute()) {
+            Log.d(TAG, "Pile réseau prête : service en " + (serviceReady - start)
+                    + " ms, connexion en " + (SystemClock.elapsedRealtime() - serviceReady) + " ms");
+        } catch (IOException e) {
+            // Sans réseau, la connexion sera ouverte au premier appel
+            Log.d(TAG, "Préconnexion impossible : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Redirige les appels vers un autre serveur, par exemple un serveur local de test
+     * 
+     * @param url URL de base (terminée par « / »), ou null pour revenir à OpenWeatherMap
+     */
+    public static synchronized void setBaseUrl(String url) {
+        baseUrl = url != null ? url : BASE_URL;
+        resetClient();
+    }
+    
+    /**
+     * Active ou désactive la journalisation complète des requêtes et réponses
+     * À n'utiliser que pour une session de débogage
+     * 
+     * @param enabled true pour logger les corps des requêtes et réponses
+     */
+    public static synchronized void setBodyLoggingEnabled(boolean enabled) {
+        if (bodyLoggingEnabled != enabled) {
+            bodyLoggingEnabled = enabled;
+            resetClient();
+        }
+    }
+    
     /**
      * Réinitialise le client Retrofit
      * Utile en cas de changement de configuration ou d'erreur persistante
      */
-    public static void resetClient() {
+    public static synchronized void resetClient() {
         retrofit = null;
+        weatherService = null;
     }
 } 
\ No newline at end of file
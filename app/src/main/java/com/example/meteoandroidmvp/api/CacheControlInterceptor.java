@@ -0,0 +1,30 @@
+package com.example.meteoandroidmvp.api;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Intercepteur réseau qui réécrit les en-têtes de cache des réponses OpenWeatherMap
+ * L'API renvoie des en-têtes peu exploitables, on impose donc une durée de fraîcheur
+ * adaptée à chaque point d'accès pour que le cache disque d'OkHttp puisse les stocker
+ */
+public class CacheControlInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+
+        OwmEndpoint endpoint = OwmEndpoint.fromUrl(chain.request().url());
+        if (!endpoint.isCacheable() || !response.isSuccessful()) {
+            // Les erreurs (404 ville inconnue, 401 clé invalide...) ne sont jamais mises en cache
+            return response;
+        }
+
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .header("Cache-Control", "public, max-age=" + endpoint.getMaxAgeSeconds())
+                .build();
+    }
+}
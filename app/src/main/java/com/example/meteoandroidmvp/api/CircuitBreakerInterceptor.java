@@ -0,0 +1,131 @@
+package com.example.meteoandroidmvp.api;
+
+import android.util.Log;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Disjoncteur des appels OpenWeatherMap
+ * Après plusieurs échecs consécutifs, le disjoncteur s'ouvre : les requêtes échouent
+ * immédiatement avec {@link CircuitOpenException} au lieu d'attendre un serveur malade.
+ * Placé derrière {@link StaleWhileRevalidateInterceptor}, cet échec déclenche le repli
+ * sur la dernière réponse en cache, servie sans délai.
+ * Une fois le délai de repos écoulé, une seule requête d'essai est autorisée :
+ * son succès referme le disjoncteur, son échec le rouvre.
+ */
+public class CircuitBreakerInterceptor implements Interceptor {
+
+    private static final String TAG = "CircuitBreaker";
+
+    // Nombre d'échecs consécutifs avant ouverture
+    private static final int FAILURE_THRESHOLD = 5;
+
+    // Durée pendant laquelle le disjoncteur reste ouvert
+    private static final long OPEN_DURATION_MILLIS = 30_000;
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openUntilMillis = 0;
+    private boolean probeInFlight = false;
+
+    /**
+     * Exception levée quand le disjoncteur est ouvert
+     */
+    public static class CircuitOpenException extends IOException {
+        public CircuitOpenException() {
+            super("Service météo momentanément indisponible");
+        }
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (request.cacheControl().onlyIfCached()) {
+            // Lecture du cache seule : aucun accès au serveur
+            return chain.proceed(request);
+        }
+
+        if (!allowRequest()) {
+            throw new CircuitOpenException();
+        }
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            if (chain.call().isCanceled() || e instanceof QuotaScheduler.QuotaExceededException) {
+                // Appel annulé ou retenu par le quota : le serveur n'est pas en cause
+                releaseProbe();
+            } else {
+                onFailure();
+            }
+            throw e;
+        }
+
+        if (RetryInterceptor.isRetryable(response.code())) {
+            onFailure();
+        } else {
+            onSuccess();
+        }
+        return response;
+    }
+
+    private synchronized boolean allowRequest() {
+        switch (state) {
+            case OPEN:
+                if (System.currentTimeMillis() < openUntilMillis) {
+                    return false;
+                }
+                // Délai de repos écoulé : laisser passer une requête d'essai
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            case HALF_OPEN:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            Log.i(TAG, "Service météo rétabli, disjoncteur refermé");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= FAILURE_THRESHOLD) {
+            if (state != State.OPEN) {
+                Log.w(TAG, "Disjoncteur ouvert après " + consecutiveFailures + " échecs consécutifs");
+            }
+            state = State.OPEN;
+            openUntilMillis = System.currentTimeMillis() + OPEN_DURATION_MILLIS;
+        }
+        probeInFlight = false;
+    }
+
+    private synchronized void releaseProbe() {
+        probeInFlight = false;
+    }
+
+    /**
+     * @return true si le disjoncteur est ouvert (service considéré comme indisponible)
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && System.currentTimeMillis() < openUntilMillis;
+    }
+}
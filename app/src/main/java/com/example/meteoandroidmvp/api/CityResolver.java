@@ -0,0 +1,168 @@
+package com.example.meteoandroidmvp.api;
+
+import com.example.meteoandroidmvp.model.GeoLocation;
+import com.example.meteoandroidmvp.repository.CityGazetteer;
+import com.example.meteoandroidmvp.utils.Constants;
+import com.example.meteoandroidmvp.utils.GeoQuantizer;
+
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Résout un nom de ville en coordonnées, une seule fois par nom
+ * (et, dans l'autre sens, une position en nom de ville, une seule fois par cellule)
+ * Consulte d'abord {@link GeocodingCache} et le répertoire hors ligne {@link CityGazetteer}
+ * (nom exact, ou ville la plus proche d'une position), puis le point d'accès de géocodage
+ * d'OpenWeatherMap. Un nom que le géocodage ne connaît pas
+ * est corrigé par le répertoire s'il ressemble à une ville connue, plutôt que d'être cherché
+ * tel quel (recherche qui finirait en 404).
+ * Deux résolutions simultanées du même nom ne font qu'un appel (météo et prévisions
+ * sont demandées ensemble).
+ */
+public class CityResolver {
+
+    // Seul le meilleur résultat du géocodage est utilisé
+    private static final int RESULT_LIMIT = 1;
+
+    private final WeatherService weatherService;
+
+    /**
+     * Callback du résultat de la résolution
+     */
+    public interface ResolveCallback {
+        /**
+         * @param location Position de la ville
+         */
+        void onResolved(GeoLocation location);
+
+        /**
+         * Ville inconnue ou géocodage impossible : l'appelant se rabat sur la recherche par nom
+         */
+        void onUnresolved();
+    }
+
+    /**
+     * @param weatherService Service API météo
+     */
+    public CityResolver(WeatherService weatherService) {
+        this.weatherService = weatherService;
+    }
+
+    /**
+     * Résout un nom de ville
+     *
+     * @param cityName Nom saisi par l'utilisateur
+     * @param callback Callback qui recevra la position
+     * @return Désinscription (sans effet si le nom était déjà résolu)
+     */
+    public RequestCoalescer.Cancellable resolve(String cityName, ResolveCallback callback) {
+        GeoLocation cached = GeocodingCache.getInstance().get(cityName);
+        if (cached != null) {
+            callback.onResolved(cached);
+            return RequestCoalescer.DONE;
+        }
+
+        CityGazetteer.City known = CityGazetteer.getInstance().lookup(cityName);
+        if (known != null) {
+            GeoLocation location = known.toGeoLocation();
+            GeocodingCache.getInstance().put(cityName, location);
+            callback.onResolved(location);
+            return RequestCoalescer.DONE;
+        }
+
+        String key = RequestCoalescer.key("geo", cityName, "", "");
+        return RequestCoalescer.getInstance().enqueue(key, () -> weatherService.geocode(
+                cityName,
+                RESULT_LIMIT,
+                Constants.API_KEY
+        ), new Callback<List<GeoLocation>>() {
+            @Override
+            public void onResponse(Call<List<GeoLocation>> call, Response<List<GeoLocation>> response) {
+                List<GeoLocation> locations = response.body();
+                if (response.isSuccessful() && locations != null && !locations.isEmpty()) {
+                    GeoLocation location = locations.get(0);
+                    GeocodingCache.getInstance().put(cityName, location);
+                    callback.onResolved(location);
+                } else if (response.isSuccessful()) {
+                    resolveTypo(cityName, callback);
+                } else {
+                    callback.onUnresolved();
+                }
+            }
+
+            @Override
+            public void onFailure(Call<List<GeoLocation>> call, Throwable t) {
+                callback.onUnresolved();
+            }
+        });
+    }
+
+    /**
+     * Nom inconnu du géocodage : probable faute de frappe, corrigée si le répertoire
+     * connaît une ville assez proche (la correction n'est pas mémorisée sous le nom saisi)
+     */
+    private static void resolveTypo(String cityName, ResolveCallback callback) {
+        List<CityGazetteer.City> corrections = CityGazetteer.getInstance().corrections(cityName, 1);
+        if (corrections.isEmpty()) {
+            callback.onUnresolved();
+        } else {
+            CityGazetteer.getInstance().recordCorrection();
+            callback.onResolved(corrections.get(0).toGeoLocation());
+        }
+    }
+
+    /**
+     * Retrouve la ville la plus proche d'une position
+     *
+     * @param latitude Latitude en degrés décimaux
+     * @param longitude Longitude en degrés décimaux
+     * @param callback Callback qui recevra la ville (avec ses propres coordonnées)
+     * @return Désinscription (sans effet si la cellule était déjà résolue)
+     */
+    public RequestCoalescer.Cancellable resolveNear(double latitude, double longitude, ResolveCallback callback) {
+        GeoLocation cached = GeocodingCache.getInstance().getNear(latitude, longitude);
+        if (cached != null) {
+            callback.onResolved(cached);
+            return RequestCoalescer.DONE;
+        }
+
+        // Ville du répertoire hors ligne : mémorisée pour la cellule et pour son nom,
+        // une recherche de cette ville par nom retombera sur les mêmes coordonnées
+        CityGazetteer.City near = CityGazetteer.getInstance().nearest(latitude, longitude);
+        if (near != null) {
+            GeoLocation location = near.toGeoLocation();
+            GeocodingCache.getInstance().putNear(latitude, longitude, location);
+            GeocodingCache.getInstance().put(near.getDisplayName(), location);
+            callback.onResolved(location);
+            return RequestCoalescer.DONE;
+        }
+
+        String key = RequestCoalescer.key("geo-reverse", GeoQuantizer.cellKey(latitude, longitude), "", "");
+        return RequestCoalescer.getInstance().enqueue(key, () -> weatherService.reverseGeocode(
+                latitude,
+                longitude,
+                RESULT_LIMIT,
+                Constants.API_KEY
+        ), new Callback<List<GeoLocation>>() {
+            @Override
+            public void onResponse(Call<List<GeoLocation>> call, Response<List<GeoLocation>> response) {
+                List<GeoLocation> locations = response.body();
+                if (response.isSuccessful() && locations != null && !locations.isEmpty()) {
+                    GeoLocation location = locations.get(0);
+                    GeocodingCache.getInstance().putNear(latitude, longitude, location);
+                    callback.onResolved(location);
+                } else {
+                    callback.onUnresolved();
+                }
+            }
+
+            @Override
+            public void onFailure(Call<List<GeoLocation>> call, Throwable t) {
+                callback.onUnresolved();
+            }
+        });
+    }
+}
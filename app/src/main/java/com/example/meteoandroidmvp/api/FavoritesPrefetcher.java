@@ -0,0 +1,320 @@
+package com.example.meteoandroidmvp.api;
+
+import android.util.Log;
+
+import com.example.meteoandroidmvp.model.FavoriteCity;
+import com.example.meteoandroidmvp.model.ForecastResponse;
+import com.example.meteoandroidmvp.model.GeoLocation;
+import com.example.meteoandroidmvp.model.GroupWeatherResponse;
+import com.example.meteoandroidmvp.model.WeatherResponse;
+import com.example.meteoandroidmvp.repository.CityGazetteer;
+import com.example.meteoandroidmvp.repository.WeatherHistoryStore;
+import com.example.meteoandroidmvp.utils.Constants;
+import com.example.meteoandroidmvp.utils.GeoQuantizer;
+import com.example.meteoandroidmvp.utils.WeatherSnapshotStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import retrofit2.Response;
+
+/**
+ * Prépare en arrière-plan la météo actuelle et les prévisions de tous les favoris
+ * La météo actuelle des villes dont l'identifiant est connu est demandée par lots de 20
+ * (point d'accès "group"), les prévisions ville par ville. Les réponses sont rangées sous
+ * les clés qu'utilise le présentateur ({@link FreshDataStore}) et dans un instantané par
+ * favori ({@link WeatherSnapshotStore}) : ouvrir un favori l'affiche immédiatement.
+ * Les requêtes sont synchrones et passent par le client partagé (cache HTTP, quota) :
+ * à appeler depuis un thread d'arrière-plan. Une requête en échec ne pénalise que son
+ * favori ; quand le budget d'appels ({@link QuotaScheduler}) est bas ou épuisé, le
+ * préchargement s'arrête et les favoris restants attendent le prochain passage.
+ */
+public class FavoritesPrefetcher {
+
+    private static final String TAG = "FavoritesPrefetcher";
+
+    private final WeatherService weatherService;
+
+    /**
+     * Bilan d'un préchargement
+     */
+    public static class Result {
+        private int prefetched = 0;
+        private int failed = 0;
+        private int skipped = 0;
+
+        // Nombre de favoris dont la météo et les prévisions sont prêtes
+        public int getPrefetched() {
+            return prefetched;
+        }
+
+        // Nombre de favoris pour lesquels une requête a échoué
+        public int getFailed() {
+            return failed;
+        }
+
+        // Nombre de favoris laissés de côté pour ménager le budget d'appels
+        public int getSkipped() {
+            return skipped;
+        }
+    }
+
+    /**
+     * @param weatherService Service API météo
+     */
+    public FavoritesPrefetcher(WeatherService weatherService) {
+        this.weatherService = weatherService;
+    }
+
+    /**
+     * Précharge tous les favoris
+     *
+     * @param favorites Villes favorites
+     * @return Bilan (chaque favori compte comme préchargé, en échec ou laissé de côté)
+     */
+    public Result prefetch(List<FavoriteCity> favorites) {
+        Result result = new Result();
+        if (QuotaScheduler.getInstance().isBudgetLow()) {
+            // Le budget restant va en priorité à ce que l'utilisateur demande
+            result.skipped = favorites.size();
+            return result;
+        }
+        WeatherSnapshotStore snapshots = WeatherSnapshotStore.getInstance();
+
+        // Position de chaque favori (celle que le présentateur utilisera pour ses clés)
+        Map<FavoriteCity, GeoLocation> positions = new LinkedHashMap<>();
+        Set<String> snapshotKeys = new HashSet<>();
+        for (FavoriteCity favorite : favorites) {
+            snapshotKeys.add(snapshotKey(favorite));
+            GeoLocation position = position(favorite);
+            if (position != null) {
+                positions.put(favorite, position);
+            } else {
+                result.failed++;
+            }
+        }
+        snapshots.retainFavorites(snapshotKeys);
+
+        Map<FavoriteCity, WeatherResponse> weathers = new HashMap<>();
+        boolean stopped = !fetchWeathers(positions, weathers);
+
+        for (Map.Entry<FavoriteCity, GeoLocation> entry : positions.entrySet()) {
+            FavoriteCity favorite = entry.getKey();
+            WeatherResponse weather = weathers.get(favorite);
+            if (stopped) {
+                result.skipped++;
+                continue;
+            }
+            if (weather == null) {
+                result.failed++;
+                continue;
+            }
+            ForecastResponse forecast;
+            try {
+                forecast = fetchForecast(entry.getValue());
+            } catch (QuotaScheduler.QuotaExceededException e) {
+                Log.w(TAG, "Préchargement arrêté : " + e.getMessage());
+                stopped = true;
+                result.skipped++;
+                continue;
+            } catch (IOException e) {
+                Log.w(TAG, "Prévisions non préchargées pour " + favorite.getCityName(), e);
+                forecast = null;
+            }
+            if (forecast == null) {
+                result.failed++;
+                continue;
+            }
+            snapshots.saveFavorite(snapshotKey(favorite), weather, forecast);
+            result.prefetched++;
+        }
+        return result;
+    }
+
+    /**
+     * @return Clé de l'instantané du favori, d'après ce que l'écran météo reçoit quand on l'ouvre
+     */
+    static String snapshotKey(FavoriteCity favorite) {
+        return favorite.isFromLocation()
+                ? WeatherSnapshotStore.positionKey(favorite.getLatitude(), favorite.getLongitude())
+                : WeatherSnapshotStore.cityKey(favorite.getCityName());
+    }
+
+    /**
+     * Position du favori : la sienne s'il vient de la localisation, sinon celle du nom
+     * (cache de géocodage, répertoire hors ligne, puis géocodage)
+     */
+    private GeoLocation position(FavoriteCity favorite) {
+        if (favorite.isFromLocation()) {
+            return new GeoLocation(favorite.getCityName(), favorite.getCountry(),
+                    favorite.getLatitude(), favorite.getLongitude());
+        }
+        String name = favorite.getCityName();
+        GeoLocation location = GeocodingCache.getInstance().get(name);
+        if (location != null) {
+            return location;
+        }
+        CityGazetteer.City known = CityGazetteer.getInstance().lookup(name);
+        if (known != null) {
+            location = known.toGeoLocation();
+        } else {
+            try {
+                Response<List<GeoLocation>> response = weatherService.geocode(name, 1, Constants.API_KEY).execute();
+                List<GeoLocation> locations = response.body();
+                if (response.isSuccessful() && locations != null && !locations.isEmpty()) {
+                    location = locations.get(0);
+                }
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        if (location != null) {
+            GeocodingCache.getInstance().put(name, location);
+        }
+        return location;
+    }
+
+    /**
+     * Météo actuelle de chaque favori : encore fraîche en mémoire, par lots d'identifiants,
+     * ou par position pour les villes sans identifiant
+     * Un lot ou une ville en échec reste simplement absent du résultat.
+     *
+     * @param weathers Reçoit la météo de chaque favori obtenu
+     * @return false si le budget d'appels a interrompu les requêtes
+     */
+    private boolean fetchWeathers(Map<FavoriteCity, GeoLocation> positions, Map<FavoriteCity, WeatherResponse> weathers) {
+        Map<Long, List<FavoriteCity>> byId = new LinkedHashMap<>();
+        List<FavoriteCity> withoutId = new ArrayList<>();
+
+        for (Map.Entry<FavoriteCity, GeoLocation> entry : positions.entrySet()) {
+            FavoriteCity favorite = entry.getKey();
+            WeatherResponse fresh = FreshDataStore.getInstance().get(weatherKey(entry.getValue()), WeatherResponse.class);
+            if (fresh != null) {
+                weathers.put(favorite, fresh);
+            } else if (favorite.getCityId() > 0) {
+                List<FavoriteCity> sameCity = byId.get(favorite.getCityId());
+                if (sameCity == null) {
+                    sameCity = new ArrayList<>();
+                    byId.put(favorite.getCityId(), sameCity);
+                }
+                sameCity.add(favorite);
+            } else {
+                withoutId.add(favorite);
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(byId.keySet());
+        for (int start = 0; start < ids.size(); start += FavoritesRefresher.MAX_CITIES_PER_REQUEST) {
+            List<Long> chunk = ids.subList(start, Math.min(ids.size(), start + FavoritesRefresher.MAX_CITIES_PER_REQUEST));
+            StringBuilder cityIds = new StringBuilder();
+            for (Long id : chunk) {
+                if (cityIds.length() > 0) {
+                    cityIds.append(',');
+                }
+                cityIds.append(id);
+            }
+            Response<GroupWeatherResponse> response;
+            try {
+                checkBudget();
+                response = weatherService.getCurrentWeatherByIds(
+                        cityIds.toString(), Constants.API_KEY, Constants.UNITS, Constants.LANGUAGE).execute();
+            } catch (QuotaScheduler.QuotaExceededException e) {
+                Log.w(TAG, "Préchargement arrêté : " + e.getMessage());
+                return false;
+            } catch (IOException e) {
+                Log.w(TAG, "Lot de " + chunk.size() + " villes non préchargé", e);
+                continue;
+            }
+            GroupWeatherResponse body = response.body();
+            if (!response.isSuccessful() || body == null || body.getWeatherList() == null) {
+                // Lot refusé : ces villes seront demandées une par une
+                for (Long id : chunk) {
+                    withoutId.addAll(byId.get(id));
+                }
+                continue;
+            }
+            for (WeatherResponse weather : body.getWeatherList()) {
+                List<FavoriteCity> sameCity = byId.get(weather.getCityId());
+                if (sameCity != null) {
+                    for (FavoriteCity favorite : sameCity) {
+                        store(weatherKey(positions.get(favorite)), weather);
+                        weathers.put(favorite, weather);
+                    }
+                }
+            }
+        }
+
+        for (FavoriteCity favorite : withoutId) {
+            GeoLocation position = positions.get(favorite);
+            Response<WeatherResponse> response;
+            try {
+                checkBudget();
+                response = weatherService.getCurrentWeatherByLocation(
+                        position.getLatitude(), position.getLongitude(),
+                        Constants.API_KEY, Constants.UNITS, Constants.LANGUAGE).execute();
+            } catch (QuotaScheduler.QuotaExceededException e) {
+                Log.w(TAG, "Préchargement arrêté : " + e.getMessage());
+                return false;
+            } catch (IOException e) {
+                Log.w(TAG, "Météo non préchargée pour " + favorite.getCityName(), e);
+                continue;
+            }
+            if (response.isSuccessful() && response.body() != null) {
+                store(weatherKey(position), response.body());
+                weathers.put(favorite, response.body());
+            }
+        }
+        return true;
+    }
+
+    private ForecastResponse fetchForecast(GeoLocation position) throws IOException {
+        String key = forecastKey(position);
+        ForecastResponse fresh = FreshDataStore.getInstance().get(key, ForecastResponse.class);
+        if (fresh != null) {
+            return fresh;
+        }
+        checkBudget();
+        Response<ForecastResponse> response = weatherService.getForecastByLocation(
+                position.getLatitude(), position.getLongitude(),
+                Constants.API_KEY, Constants.UNITS, Constants.LANGUAGE).execute();
+        ForecastResponse forecast = response.body();
+        if (!response.isSuccessful() || forecast == null) {
+            return null;
+        }
+        FreshDataStore.getInstance().put(key, forecast, FreshnessPolicy.expiresAt(forecast, System.currentTimeMillis()));
+        return forecast;
+    }
+
+    /**
+     * Arrête le préchargement avant la requête suivante si le budget d'appels est bas
+     *
+     * @throws QuotaScheduler.QuotaExceededException si le budget est bas
+     */
+    private static void checkBudget() throws QuotaScheduler.QuotaExceededException {
+        if (QuotaScheduler.getInstance().isBudgetLow()) {
+            throw new QuotaScheduler.QuotaExceededException("Budget d'appels OpenWeatherMap bas");
+        }
+    }
+
+    private static void store(String key, WeatherResponse weather) {
+        FreshDataStore.getInstance().put(key, weather, FreshnessPolicy.expiresAt(weather, System.currentTimeMillis()));
+        WeatherHistoryStore.getInstance().record(weather);
+    }
+
+    // Mêmes clés que les requêtes par position du présentateur
+    private static String weatherKey(GeoLocation position) {
+        return RequestCoalescer.key("weather", GeoQuantizer.cellKey(position.getLatitude(), position.getLongitude()),
+                Constants.UNITS, Constants.LANGUAGE);
+    }
+
+    private static String forecastKey(GeoLocation position) {
+        return RequestCoalescer.key("forecast", GeoQuantizer.cellKey(position.getLatitude(), position.getLongitude()),
+                Constants.UNITS, Constants.LANGUAGE);
+    }
+}
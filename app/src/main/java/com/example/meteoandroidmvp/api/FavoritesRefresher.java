@@ -0,0 +1,293 @@
+package com.example.meteoandroidmvp.api;
+
+import com.example.meteoandroidmvp.model.FavoriteCity;
+import com.example.meteoandroidmvp.model.GeoLocation;
+import com.example.meteoandroidmvp.model.GroupWeatherResponse;
+import com.example.meteoandroidmvp.model.WeatherResponse;
+import com.example.meteoandroidmvp.utils.Constants;
+import com.example.meteoandroidmvp.utils.GeoQuantizer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Rafraîchit la météo actuelle d'une liste de villes favorites par lots
+ * Les villes dont l'identifiant OpenWeatherMap est connu sont regroupées par 20
+ * sur le point d'accès "group", les autres sont interrogées une par une.
+ * Le nombre de requêtes simultanées est borné pour ne pas saturer le réseau ni le quota.
+ */
+public class FavoritesRefresher {
+
+    // Nombre maximal d'identifiants acceptés par le point d'accès "group"
+    public static final int MAX_CITIES_PER_REQUEST = 20;
+
+    // Nombre de requêtes lancées en parallèle par défaut
+    private static final int DEFAULT_MAX_PARALLEL_REQUESTS = 2;
+
+    /**
+     * Interface pour suivre l'avancement du rafraîchissement
+     */
+    public interface RefreshCallback {
+        // Appelée pour chaque favori dont la météo a été récupérée
+        void onCityRefreshed(FavoriteCity favoriteCity, WeatherResponse weatherResponse);
+
+        // Appelée une seule fois, quand toutes les requêtes sont terminées
+        void onRefreshComplete(int refreshedCount, int failedCount);
+    }
+
+    private final WeatherService weatherService;
+    private final int maxParallelRequests;
+
+    public FavoritesRefresher(WeatherService weatherService) {
+        this(weatherService, DEFAULT_MAX_PARALLEL_REQUESTS);
+    }
+
+    /**
+     * @param weatherService Service API météo
+     * @param maxParallelRequests Nombre maximal de requêtes simultanées
+     */
+    public FavoritesRefresher(WeatherService weatherService, int maxParallelRequests) {
+        this.weatherService = weatherService;
+        this.maxParallelRequests = Math.max(1, maxParallelRequests);
+    }
+
+    /**
+     * Lance le rafraîchissement de tous les favoris
+     *
+     * @param favorites Villes favorites à rafraîchir
+     * @param callback Callback de suivi
+     */
+    public void refresh(List<FavoriteCity> favorites, RefreshCallback callback) {
+        new Batch(buildTasks(favorites), callback).start();
+    }
+
+    /**
+     * Découpe la liste des favoris en tâches : des lots de 20 identifiants,
+     * puis une requête individuelle pour chaque ville sans identifiant
+     */
+    private Deque<Task> buildTasks(List<FavoriteCity> favorites) {
+        Deque<Task> tasks = new ArrayDeque<>();
+        Map<Long, List<FavoriteCity>> byId = new LinkedHashMap<>();
+
+        for (FavoriteCity favorite : favorites) {
+            if (favorite.getCityId() > 0) {
+                // Plusieurs favoris peuvent partager le même identifiant (ex: ajout par nom puis par GPS)
+                List<FavoriteCity> sameCity = byId.get(favorite.getCityId());
+                if (sameCity == null) {
+                    sameCity = new ArrayList<>();
+                    byId.put(favorite.getCityId(), sameCity);
+                }
+                sameCity.add(favorite);
+            } else {
+                tasks.add(new SingleCityTask(favorite));
+            }
+        }
+
+        Map<Long, List<FavoriteCity>> chunk = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<FavoriteCity>> entry : byId.entrySet()) {
+            chunk.put(entry.getKey(), entry.getValue());
+            if (chunk.size() == MAX_CITIES_PER_REQUEST) {
+                tasks.addFirst(new GroupTask(chunk));
+                chunk = new LinkedHashMap<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            tasks.addFirst(new GroupTask(chunk));
+        }
+        return tasks;
+    }
+
+    /**
+     * Une requête du lot : signale sa fin au lot via Batch.onTaskDone
+     */
+    private interface Task {
+        void run(Batch batch);
+    }
+
+    /**
+     * Exécution d'un lot de tâches avec un nombre borné de requêtes simultanées
+     */
+    private class Batch {
+        private final Deque<Task> pending;
+        private final RefreshCallback callback;
+        private int running = 0;
+        private int refreshedCount = 0;
+        private int failedCount = 0;
+
+        Batch(Deque<Task> pending, RefreshCallback callback) {
+            this.pending = pending;
+            this.callback = callback;
+        }
+
+        void start() {
+            if (pending.isEmpty()) {
+                callback.onRefreshComplete(0, 0);
+                return;
+            }
+            launchNext();
+        }
+
+        private void launchNext() {
+            List<Task> toRun = new ArrayList<>();
+            synchronized (this) {
+                while (running < maxParallelRequests && !pending.isEmpty()) {
+                    toRun.add(pending.poll());
+                    running++;
+                }
+            }
+            for (Task task : toRun) {
+                task.run(this);
+            }
+        }
+
+        void onCityRefreshed(FavoriteCity favorite, WeatherResponse weather) {
+            synchronized (this) {
+                refreshedCount++;
+            }
+            callback.onCityRefreshed(favorite, weather);
+        }
+
+        void onTaskDone(int failed) {
+            boolean finished;
+            int refreshed;
+            int failedTotal;
+            synchronized (this) {
+                running--;
+                failedCount += failed;
+                finished = running == 0 && pending.isEmpty();
+                refreshed = refreshedCount;
+                failedTotal = failedCount;
+            }
+            if (finished) {
+                callback.onRefreshComplete(refreshed, failedTotal);
+            } else {
+                launchNext();
+            }
+        }
+    }
+
+    /**
+     * Rafraîchit jusqu'à 20 villes en une requête sur le point d'accès "group"
+     */
+    private class GroupTask implements Task {
+        private final Map<Long, List<FavoriteCity>> citiesById;
+
+        GroupTask(Map<Long, List<FavoriteCity>> citiesById) {
+            this.citiesById = citiesById;
+        }
+
+        @Override
+        public void run(Batch batch) {
+            StringBuilder ids = new StringBuilder();
+            for (Long id : citiesById.keySet()) {
+                if (ids.length() > 0) {
+                    ids.append(',');
+                }
+                ids.append(id);
+            }
+            String cityIds = ids.toString();
+            String key = RequestCoalescer.key("group", cityIds, Constants.UNITS, Constants.LANGUAGE);
+
+            RequestCoalescer.getInstance().enqueue(key, () -> weatherService.getCurrentWeatherByIds(
+                    cityIds,
+                    Constants.API_KEY,
+                    Constants.UNITS,
+                    Constants.LANGUAGE
+            ), new Callback<GroupWeatherResponse>() {
+                @Override
+                public void onResponse(Call<GroupWeatherResponse> call, Response<GroupWeatherResponse> response) {
+                    int failed = countFavorites();
+                    if (response.isSuccessful() && response.body() != null && response.body().getWeatherList() != null) {
+                        for (WeatherResponse weather : response.body().getWeatherList()) {
+                            List<FavoriteCity> favorites = citiesById.get(weather.getCityId());
+                            if (favorites == null) {
+                                continue;
+                            }
+                            for (FavoriteCity favorite : favorites) {
+                                batch.onCityRefreshed(favorite, weather);
+                                failed--;
+                            }
+                        }
+                    }
+                    batch.onTaskDone(failed);
+                }
+
+                @Override
+                public void onFailure(Call<GroupWeatherResponse> call, Throwable t) {
+                    batch.onTaskDone(countFavorites());
+                }
+            });
+        }
+
+        private int countFavorites() {
+            int count = 0;
+            for (List<FavoriteCity> favorites : citiesById.values()) {
+                count += favorites.size();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Rafraîchit une ville dont l'identifiant est inconnu, par coordonnées ou par nom
+     */
+    private class SingleCityTask implements Task {
+        private final FavoriteCity favorite;
+
+        SingleCityTask(FavoriteCity favorite) {
+            this.favorite = favorite;
+        }
+
+        @Override
+        public void run(Batch batch) {
+            Callback<WeatherResponse> callback = new Callback<WeatherResponse>() {
+                @Override
+                public void onResponse(Call<WeatherResponse> call, Response<WeatherResponse> response) {
+                    if (response.isSuccessful() && response.body() != null) {
+                        batch.onCityRefreshed(favorite, response.body());
+                        batch.onTaskDone(0);
+                    } else {
+                        batch.onTaskDone(1);
+                    }
+                }
+
+                @Override
+                public void onFailure(Call<WeatherResponse> call, Throwable t) {
+                    batch.onTaskDone(1);
+                }
+            };
+
+            // Position connue : celle du favori, ou celle déjà résolue pour son nom
+            GeoLocation resolved = favorite.isFromLocation() ? null : GeocodingCache.getInstance().get(favorite.getCityName());
+            if (favorite.isFromLocation() || resolved != null) {
+                double latitude = resolved != null ? resolved.getLatitude() : favorite.getLatitude();
+                double longitude = resolved != null ? resolved.getLongitude() : favorite.getLongitude();
+                String key = RequestCoalescer.key("weather", GeoQuantizer.cellKey(latitude, longitude), Constants.UNITS, Constants.LANGUAGE);
+                RequestCoalescer.getInstance().enqueue(key, () -> weatherService.getCurrentWeatherByLocation(
+                        latitude,
+                        longitude,
+                        Constants.API_KEY,
+                        Constants.UNITS,
+                        Constants.LANGUAGE
+                ), callback);
+            } else {
+                String city = favorite.getCityName();
+                String key = RequestCoalescer.key("weather", "q=" + city, Constants.UNITS, Constants.LANGUAGE);
+                RequestCoalescer.getInstance().enqueue(key, () -> weatherService.getCurrentWeatherByCity(
+                        city,
+                        Constants.API_KEY,
+                        Constants.UNITS,
+                        Constants.LANGUAGE
+                ), callback);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.meteoandroidmvp.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Données déjà décodées et encore fraîches, gardées en mémoire
+ * Chaque entrée expire à l'échéance calculée par {@link FreshnessPolicy} : avant,
+ * un retour sur l'écran (changement d'onglet, nouvelle recherche de la même ville)
+ * s'affiche sans aucun accès réseau, ni même au cache disque.
+ */
+public class FreshDataStore {
+
+    // Nombre maximal d'entrées (les moins récemment utilisées sont retirées)
+    private static final int MAX_ENTRIES = 64;
+
+    private static final FreshDataStore INSTANCE = new FreshDataStore();
+
+    // Entrées indexées par clé de requête, dans l'ordre d'utilisation
+    private final Map<String, FreshEntry> entries = new LinkedHashMap<String, FreshEntry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FreshEntry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private FreshDataStore() {
+    }
+
+    public static FreshDataStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param key Clé de la requête (voir {@link RequestCoalescer#key})
+     * @param type Type attendu
+     * @return Donnée encore fraîche, ou null
+     */
+    public <T> T get(String key, Class<T> type) {
+        FreshEntry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAtMillis <= System.currentTimeMillis()) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null || !type.isInstance(entry.value)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return type.cast(entry.value);
+    }
+
+    /**
+     * Mémorise une donnée jusqu'à son échéance
+     *
+     * @param key Clé de la requête
+     * @param value Donnée décodée
+     * @param expiresAtMillis Heure d'expiration, en millisecondes
+     */
+    public void put(String key, Object value, long expiresAtMillis) {
+        synchronized (entries) {
+            entries.put(key, new FreshEntry(value, expiresAtMillis));
+        }
+    }
+
+    /**
+     * Vide la mémoire (changement d'unités ou de langue, tests)
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return Nombre de lectures servies depuis la mémoire
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return Nombre de lectures qui ont dû passer par le réseau
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private static class FreshEntry {
+        final Object value;
+        final long expiresAtMillis;
+
+        FreshEntry(Object value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.meteoandroidmvp.api;
+
+import com.example.meteoandroidmvp.model.ForecastResponse;
+import com.example.meteoandroidmvp.model.WeatherResponse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durée de validité des données, calée sur le rythme de mise à jour d'OpenWeatherMap
+ * Plutôt qu'un délai fixe depuis la réception, chaque donnée reste valable jusqu'à la
+ * prochaine mise à jour possible côté serveur :
+ * - météo actuelle : observation (dt) + 10 minutes
+ * - prévisions : début du prochain créneau de 3 heures de la liste (list[].dt)
+ * - recommandations IA : prochaine limite de créneau de 3 heures
+ * Avant cette échéance, redemander la donnée au réseau ne peut rien apporter de nouveau.
+ */
+public final class FreshnessPolicy {
+
+    // Cadence des observations de la météo actuelle
+    private static final long CURRENT_WEATHER_CADENCE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    // Durée d'un créneau de prévision
+    private static final long FORECAST_SLOT_MILLIS = TimeUnit.HOURS.toMillis(3);
+
+    // Validité minimale : une observation en retard côté serveur n'entraîne pas de rafale de requêtes
+    private static final long MIN_CURRENT_WEATHER_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long MIN_FORECAST_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private FreshnessPolicy() {
+    }
+
+    /**
+     * @param weather Météo actuelle reçue
+     * @param nowMillis Heure courante
+     * @return Heure (ms) jusqu'à laquelle cette météo est la plus récente disponible
+     */
+    public static long expiresAt(WeatherResponse weather, long nowMillis) {
+        long nextObservation = TimeUnit.SECONDS.toMillis(weather.getDateTime()) + CURRENT_WEATHER_CADENCE_MILLIS;
+        return clamp(nextObservation, nowMillis + MIN_CURRENT_WEATHER_MILLIS, nowMillis + CURRENT_WEATHER_CADENCE_MILLIS);
+    }
+
+    /**
+     * @param forecast Prévisions reçues
+     * @param nowMillis Heure courante
+     * @return Heure (ms) du prochain créneau à venir, après lequel la liste est recalculée
+     */
+    public static long expiresAt(ForecastResponse forecast, long nowMillis) {
+        long nextSlot = Long.MAX_VALUE;
+        List<ForecastResponse.ForecastItem> items = forecast.getForecastItems();
+        if (items != null) {
+            for (ForecastResponse.ForecastItem item : items) {
+                long slotStart = TimeUnit.SECONDS.toMillis(item.getDateTime());
+                if (slotStart > nowMillis && slotStart < nextSlot) {
+                    nextSlot = slotStart;
+                }
+            }
+        }
+        return clamp(nextSlot, nowMillis + MIN_FORECAST_MILLIS, nowMillis + FORECAST_SLOT_MILLIS);
+    }
+
+    /**
+     * @param nowMillis Heure courante
+     * @return Prochaine limite de créneau de 3 heures (alignée sur minuit UTC)
+     */
+    public static long nextSlotBoundary(long nowMillis) {
+        return (nowMillis / FORECAST_SLOT_MILLIS + 1) * FORECAST_SLOT_MILLIS;
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.meteoandroidmvp.api;
+
+import com.example.meteoandroidmvp.utils.GeoQuantizer;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Intercepteur applicatif placé en tête de chaîne, devant les points d'accès par position
+ * Remplace les paramètres lat/lon bruts par le centre de leur cellule ({@link GeoQuantizer}) :
+ * la position de MainActivity, des favoris et des notifications donne la même URL dès qu'elles
+ * sont proches, et donc la même entrée de cache.
+ * Compte les recherches par position et celles servies par le cache.
+ */
+public class GeoQuantizingInterceptor implements Interceptor {
+
+    private static final GeoQuantizingInterceptor INSTANCE = new GeoQuantizingInterceptor();
+
+    // Recherches par position, et celles servies sans accès réseau
+    private final AtomicLong locationLookups = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    private GeoQuantizingInterceptor() {
+    }
+
+    public static GeoQuantizingInterceptor getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        HttpUrl url = request.url();
+        String lat = url.queryParameter("lat");
+        String lon = url.queryParameter("lon");
+        if (lat == null || lon == null) {
+            return chain.proceed(request);
+        }
+
+        double latitude;
+        double longitude;
+        try {
+            latitude = Double.parseDouble(lat);
+            longitude = Double.parseDouble(lon);
+        } catch (NumberFormatException e) {
+            return chain.proceed(request);
+        }
+
+        HttpUrl snapped = url.newBuilder()
+                .setQueryParameter("lat", GeoQuantizer.format(GeoQuantizer.snapLatitude(latitude)))
+                .setQueryParameter("lon", GeoQuantizer.format(GeoQuantizer.snapLongitude(latitude, longitude)))
+                .build();
+        Response response = chain.proceed(request.newBuilder().url(snapped).build());
+
+        locationLookups.incrementAndGet();
+        if (response.networkResponse() == null && response.cacheResponse() != null) {
+            cacheHits.incrementAndGet();
+        }
+        return response;
+    }
+
+    /**
+     * @return Nombre de recherches par position
+     */
+    public long getLocationLookupCount() {
+        return locationLookups.get();
+    }
+
+    /**
+     * @return Nombre de recherches par position servies par le cache
+     */
+    public long getCacheHitCount() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return Part des recherches par position servies par le cache, entre 0 et 1
+     */
+    public double getCacheHitRate() {
+        long lookups = locationLookups.get();
+        return lookups == 0 ? 0 : (double) cacheHits.get() / lookups;
+    }
+}
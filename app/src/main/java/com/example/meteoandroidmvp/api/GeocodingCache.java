@@ -0,0 +1,139 @@
+package com.example.meteoandroidmvp.api;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.meteoandroidmvp.model.GeoLocation;
+import com.example.meteoandroidmvp.utils.CityNames;
+import com.example.meteoandroidmvp.utils.GeoQuantizer;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache persistant nom de ville → coordonnées, nom officiel et pays
+ * (et cellule de position → ville la plus proche, pour le géocodage inverse)
+ * Un nom n'est géocodé qu'une fois : les recherches suivantes passent directement
+ * par les points d'accès par coordonnées, dont les réponses sont partagées en cache
+ * quel que soit le nom saisi ("Paris", "paris " ou "Paris,FR").
+ */
+public class GeocodingCache {
+
+    // Fichier de sauvegarde : une entrée par nom normalisé
+    private static final String PREFS_NAME = "GeocodingCache";
+
+    // Séparateur des champs d'une entrée (le nom, en dernier, peut contenir n'importe quoi)
+    private static final String SEPARATOR = ";";
+
+    private static final GeocodingCache INSTANCE = new GeocodingCache();
+
+    // Entrées en mémoire, indexées par nom normalisé
+    private final Map<String, GeoLocation> locations = new ConcurrentHashMap<>();
+
+    private SharedPreferences preferences = null;
+
+    private GeocodingCache() {
+    }
+
+    public static GeocodingCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Charge les entrées sauvegardées
+     *
+     * @param context Contexte Android
+     */
+    public synchronized void init(Context context) {
+        if (preferences != null) {
+            return;
+        }
+        preferences = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        for (Map.Entry<String, ?> entry : preferences.getAll().entrySet()) {
+            if (entry.getValue() instanceof String) {
+                GeoLocation location = decode((String) entry.getValue());
+                if (location != null) {
+                    locations.putIfAbsent(entry.getKey(), location);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param cityName Nom de ville tel que saisi
+     * @return Position déjà résolue pour ce nom, ou null
+     */
+    public GeoLocation get(String cityName) {
+        return locations.get(CityNames.normalize(cityName));
+    }
+
+    /**
+     * Mémorise la position d'un nom de ville
+     *
+     * @param cityName Nom de ville tel que saisi
+     * @param location Position renvoyée par le géocodage
+     */
+    public void put(String cityName, GeoLocation location) {
+        store(CityNames.normalize(cityName), location);
+    }
+
+    private void store(String key, GeoLocation location) {
+        locations.put(key, location);
+        SharedPreferences prefs;
+        synchronized (this) {
+            prefs = preferences;
+        }
+        if (prefs != null) {
+            prefs.edit().putString(key, encode(location)).apply();
+        }
+    }
+
+    /**
+     * @param latitude Latitude en degrés décimaux
+     * @param longitude Longitude en degrés décimaux
+     * @return Ville déjà trouvée pour la cellule de cette position, ou null
+     */
+    public GeoLocation getNear(double latitude, double longitude) {
+        return locations.get(cellKey(latitude, longitude));
+    }
+
+    /**
+     * Mémorise la ville trouvée pour la cellule d'une position (géocodage inverse)
+     */
+    public void putNear(double latitude, double longitude, GeoLocation location) {
+        store(cellKey(latitude, longitude), location);
+    }
+
+    /**
+     * @return Nombre de noms et de positions résolus
+     */
+    public int size() {
+        return locations.size();
+    }
+
+    // Les clés de position commencent par « @ », qu'aucun nom normalisé ne peut produire seul
+    private static String cellKey(double latitude, double longitude) {
+        return "@" + GeoQuantizer.cellKey(latitude, longitude);
+    }
+
+    private static String encode(GeoLocation location) {
+        return String.format(Locale.ROOT, "%.6f", location.getLatitude()) + SEPARATOR
+                + String.format(Locale.ROOT, "%.6f", location.getLongitude()) + SEPARATOR
+                + (location.getCountry() != null ? location.getCountry() : "") + SEPARATOR
+                + location.getName();
+    }
+
+    private static GeoLocation decode(String value) {
+        String[] fields = value.split(SEPARATOR, 4);
+        if (fields.length < 4) {
+            return null;
+        }
+        try {
+            return new GeoLocation(fields[3], fields[2].isEmpty() ? null : fields[2],
+                    Double.parseDouble(fields[0]), Double.parseDouble(fields[1]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
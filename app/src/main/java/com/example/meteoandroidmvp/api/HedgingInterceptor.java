@@ -0,0 +1,221 @@
+package com.example.meteoandroidmvp.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Requêtes « couvertes » (hedged requests) pour la météo actuelle
+ * Si la réponse n'est pas arrivée au bout du 95e percentile des latences réseau observées,
+ * une seconde requête identique est lancée ; la première réponse arrivée est utilisée
+ * et l'autre appel est annulé. Un serveur lent ponctuellement ne bloque donc plus l'écran.
+ * La requête d'origine et la couverture sont deux appels indépendants d'un client « branche »
+ * qui partage le pool de connexions et le cache, sans repasser par cet intercepteur :
+ * chacun peut être annulé sans toucher à l'autre ni à l'appel de l'application.
+ * Les deux s'exécutent de façon synchrone sur les threads propres à l'intercepteur, jamais
+ * sur le dispatcher partagé : un appel couvert n'y occupe que sa propre place, et des appels
+ * lents simultanés ne peuvent pas s'y bloquer mutuellement. L'attente est bornée par
+ * l'échéance de l'appel (callTimeout).
+ */
+public class HedgingInterceptor implements Interceptor {
+
+    // Nombre minimal de mesures avant de se fier au percentile
+    private static final int MIN_SAMPLES = 20;
+
+    // Percentile des latences qui déclenche la requête de couverture
+    private static final double HEDGE_PERCENTILE = 95;
+
+    // Bornes du délai de déclenchement
+    private static final long MIN_HEDGE_DELAY_MILLIS = 250;
+    private static final long MAX_HEDGE_DELAY_MILLIS = 5000;
+
+    // Intervalle de vérification de l'annulation de l'appel d'origine
+    private static final long POLL_INTERVAL_MILLIS = 200;
+
+    // Attente maximale quand l'appel n'a pas d'échéance (callTimeout non défini)
+    private static final long DEFAULT_DEADLINE_MILLIS = 60_000;
+
+    // Threads des appels couverts (requête d'origine et couverture), hors du dispatcher partagé
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "owm-hedge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Client des deux appels (requête d'origine et couverture)
+    private volatile Call.Factory branchFactory;
+
+    // Nombre de requêtes de couverture lancées, et nombre de fois où elles ont gagné
+    private final AtomicLong hedgesLaunched = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+
+    /**
+     * Définit le client qui exécute les appels couverts
+     */
+    public void setBranchFactory(Call.Factory branchFactory) {
+        this.branchFactory = branchFactory;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Call.Factory factory = branchFactory;
+        long hedgeDelay = hedgeDelayMillis(NetworkMetrics.getInstance().get(OwmEndpoint.WEATHER));
+        if (factory == null || hedgeDelay <= 0
+                || OwmEndpoint.fromUrl(request.url()) != OwmEndpoint.WEATHER
+                || !"GET".equals(request.method()) || request.cacheControl().onlyIfCached()) {
+            return chain.proceed(request);
+        }
+
+        long timeoutNanos = chain.call().timeout().timeoutNanos();
+        long deadline = System.nanoTime()
+                + (timeoutNanos > 0 ? timeoutNanos : TimeUnit.MILLISECONDS.toNanos(DEFAULT_DEADLINE_MILLIS));
+
+        BlockingQueue<Outcome> results = new LinkedBlockingQueue<>();
+        AtomicBoolean settled = new AtomicBoolean(false);
+
+        // Requête d'origine : appel indépendant du client « branche », sur un thread de l'intercepteur
+        Call primary = factory.newCall(request);
+        EXECUTOR.execute(() -> run(primary, results, settled));
+        Call hedge = null;
+        Outcome winner = null;
+        int outstanding = 1;
+
+        try {
+            Outcome outcome = results.poll(hedgeDelay, TimeUnit.MILLISECONDS);
+            if (outcome == null && !chain.call().isCanceled()) {
+                // Réponse trop lente : lancer la requête de couverture
+                Call call = factory.newCall(request);
+                hedge = call;
+                EXECUTOR.execute(() -> run(call, results, settled));
+                hedgesLaunched.incrementAndGet();
+                outstanding++;
+            }
+
+            while (true) {
+                if (outcome == null) {
+                    if (chain.call().isCanceled()) {
+                        throw new IOException("Canceled");
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new InterruptedIOException("Délai de la requête couverte dépassé");
+                    }
+                    outcome = results.poll(Math.min(TimeUnit.NANOSECONDS.toMillis(remaining) + 1, POLL_INTERVAL_MILLIS),
+                            TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                outstanding--;
+                if (outcome.response != null) {
+                    winner = outcome;
+                    if (outcome.call == hedge) {
+                        hedgesWon.incrementAndGet();
+                    }
+                    return outcome.response;
+                }
+                if (outstanding == 0) {
+                    throw outcome.error;
+                }
+                outcome = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Requête couverte interrompue");
+        } finally {
+            // Annuler l'appel perdant (ou les deux, en cas d'échec ou d'abandon)
+            // et fermer toute réponse arrivée trop tard
+            settled.set(true);
+            if (winner == null || winner.call != primary) {
+                primary.cancel();
+            }
+            if (hedge != null && (winner == null || winner.call != hedge)) {
+                hedge.cancel();
+            }
+            closeQueued(results);
+        }
+    }
+
+    /**
+     * Exécute un des deux appels et dépose son résultat dans la file ;
+     * ferme la réponse si un gagnant est déjà choisi
+     */
+    private static void run(Call call, BlockingQueue<Outcome> results, AtomicBoolean settled) {
+        Outcome outcome;
+        try {
+            outcome = new Outcome(call, call.execute(), null);
+        } catch (IOException e) {
+            outcome = new Outcome(call, null, e);
+        }
+        results.offer(outcome);
+        if (settled.get()) {
+            closeQueued(results);
+        }
+    }
+
+    /**
+     * Calcule le délai avant la requête de couverture à partir des latences observées
+     * Seuls les échanges réseau comptent (délai jusqu'aux en-têtes de la réponse) : les
+     * réponses du cache HTTP ou du repli hors ligne, presque instantanées, feraient
+     * tomber le percentile au plancher et couvrir presque chaque appel réseau.
+     *
+     * @return Délai en millisecondes, ou 0 si pas assez de mesures
+     */
+    static long hedgeDelayMillis(NetworkMetrics.EndpointMetrics metrics) {
+        LatencyHistogram latencies = metrics.getTimeToFirstByte();
+        if (latencies.getCount() < MIN_SAMPLES) {
+            return 0;
+        }
+        long p95 = (long) latencies.getPercentileMillis(HEDGE_PERCENTILE);
+        return Math.min(MAX_HEDGE_DELAY_MILLIS, Math.max(MIN_HEDGE_DELAY_MILLIS, p95));
+    }
+
+    private static void closeQueued(BlockingQueue<Outcome> results) {
+        Outcome leftover;
+        while ((leftover = results.poll()) != null) {
+            if (leftover.response != null) {
+                leftover.response.close();
+            }
+        }
+    }
+
+    /**
+     * @return Nombre de requêtes de couverture lancées
+     */
+    public long getHedgesLaunched() {
+        return hedgesLaunched.get();
+    }
+
+    /**
+     * @return Nombre de fois où la requête de couverture a répondu la première
+     */
+    public long getHedgesWon() {
+        return hedgesWon.get();
+    }
+
+    /**
+     * Résultat d'un des deux appels : une réponse ou une erreur
+     */
+    private static class Outcome {
+        // Appel qui a produit le résultat (requête d'origine ou couverture)
+        final Call call;
+        final Response response;
+        final IOException error;
+
+        Outcome(Call call, Response response, IOException error) {
+            this.call = call;
+            this.response = response;
+            this.error = error;
+        }
+    }
+}
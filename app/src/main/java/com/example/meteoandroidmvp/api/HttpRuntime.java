@@ -0,0 +1,110 @@
+package com.example.meteoandroidmvp.api;
+
+import android.content.Context;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * Socle HTTP unique du processus, partagé par les appels OpenWeatherMap et Mistral AI
+ * Un seul pool de connexions, un seul dispatcher (donc un seul pool de threads) et un seul
+ * cache disque. Chaque client dérive de ce socle via newBuilder() pour y ajouter ses propres
+ * timeouts et intercepteurs, sans dupliquer les ressources.
+ */
+public final class HttpRuntime {
+
+    // Taille et emplacement du cache disque HTTP
+    private static final long CACHE_SIZE = 10 * 1024 * 1024; // 10 MB
+    private static final String CACHE_DIRECTORY = "http_cache";
+
+    // Connexions inactives conservées et durée de conservation
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    // Ressources partagées par tous les clients dérivés
+    private static final ConnectionPool CONNECTION_POOL = new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES);
+    private static final Dispatcher DISPATCHER = new Dispatcher();
+
+    // Client de base (sans cache) dont dérivent tous les autres
+    private static OkHttpClient baseClient = null;
+
+    // Cache disque partagé (null tant que init() n'a pas été appelée)
+    private static Cache cache = null;
+
+    private HttpRuntime() {
+    }
+
+    /**
+     * Initialise le cache disque HTTP dans le répertoire de cache de l'application
+     *
+     * @param context Contexte Android
+     */
+    public static synchronized void init(Context context) {
+        if (cache == null) {
+            File directory = new File(context.getApplicationContext().getCacheDir(), CACHE_DIRECTORY);
+            cache = new Cache(directory, CACHE_SIZE);
+        }
+    }
+
+    /**
+     * @return true si le cache disque est configuré
+     */
+    public static synchronized boolean isInitialized() {
+        return cache != null;
+    }
+
+    /**
+     * Retourne un builder dérivé du socle commun
+     * Le pool de connexions, le dispatcher, le cache et les métriques sont partagés ;
+     * l'appelant ajoute ses timeouts et ses intercepteurs
+     *
+     * @return Builder prêt à être personnalisé
+     */
+    public static synchronized OkHttpClient.Builder newClientBuilder() {
+        if (baseClient == null) {
+            baseClient = new OkHttpClient.Builder()
+                    .connectionPool(CONNECTION_POOL)
+                    .dispatcher(DISPATCHER)
+                    .eventListenerFactory(NetworkMetricsEventListener.FACTORY)
+                    .build();
+        }
+        OkHttpClient.Builder builder = baseClient.newBuilder();
+        if (cache != null) {
+            builder.cache(cache);
+        }
+        return builder;
+    }
+
+    /**
+     * @return Nombre d'appels en attente d'un thread dans le dispatcher
+     */
+    public static int getQueuedCallsCount() {
+        return DISPATCHER.queuedCallsCount();
+    }
+
+    /**
+     * @return Nombre d'appels en cours d'exécution
+     */
+    public static int getRunningCallsCount() {
+        return DISPATCHER.runningCallsCount();
+    }
+
+    /**
+     * @return Nombre total de connexions ouvertes dans le pool
+     */
+    public static int getConnectionCount() {
+        return CONNECTION_POOL.connectionCount();
+    }
+
+    /**
+     * @return Nombre de connexions ouvertes mais inutilisées
+     */
+    public static int getIdleConnectionCount() {
+        return CONNECTION_POOL.idleConnectionCount();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.meteoandroidmvp.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramme de durées à taille fixe, sans allocation à l'enregistrement
+ * Les classes sont des puissances de 2 en microsecondes : la classe i contient
+ * les durées comprises entre 2^(i-1) et 2^i µs. 32 classes couvrent plus d'une heure.
+ * Les percentiles sont donc approximatifs (borne haute de la classe), ce qui suffit
+ * pour suivre les tendances et piloter les délais de relance.
+ */
+public class LatencyHistogram {
+
+    // Nombre de classes de l'histogramme
+    private static final int BUCKET_COUNT = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+
+    /**
+     * Enregistre une durée
+     *
+     * @param durationNanos Durée en nanosecondes
+     */
+    public void record(long durationNanos) {
+        long micros = Math.max(0, durationNanos / 1000);
+        int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+    }
+
+    /**
+     * @return Nombre de durées enregistrées
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return Durée moyenne en millisecondes (0 si aucune mesure)
+     */
+    public double getMeanMillis() {
+        long n = count.get();
+        return n == 0 ? 0 : totalMicros.get() / 1000.0 / n;
+    }
+
+    /**
+     * Calcule un percentile approximatif
+     *
+     * @param percentile Percentile entre 0 et 100 (ex: 95)
+     * @return Borne haute de la classe contenant le percentile, en millisecondes (0 si aucune mesure)
+     */
+    public double getPercentileMillis(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return (1L << i) / 1000.0;
+            }
+        }
+        return (1L << (BUCKET_COUNT - 1)) / 1000.0;
+    }
+}
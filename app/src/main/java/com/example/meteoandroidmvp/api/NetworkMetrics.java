@@ -0,0 +1,142 @@
+package com.example.meteoandroidmvp.api;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métriques réseau agrégées par point d'accès OpenWeatherMap
+ * Alimentées par {@link NetworkMetricsEventListener} et {@link NetworkMetricsInterceptor}.
+ * Toutes les structures sont allouées une fois pour toutes : enregistrer une mesure
+ * ne crée aucun objet et ne construit aucune chaîne.
+ */
+public class NetworkMetrics {
+
+    private static final NetworkMetrics INSTANCE = new NetworkMetrics();
+
+    // Une entrée par point d'accès, indexée par ordinal
+    private final EndpointMetrics[] endpoints;
+
+    private NetworkMetrics() {
+        OwmEndpoint[] values = OwmEndpoint.values();
+        endpoints = new EndpointMetrics[values.length];
+        for (int i = 0; i < values.length; i++) {
+            endpoints[i] = new EndpointMetrics();
+        }
+    }
+
+    public static NetworkMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param endpoint Point d'accès
+     * @return Métriques de ce point d'accès
+     */
+    public EndpointMetrics get(OwmEndpoint endpoint) {
+        return endpoints[endpoint.ordinal()];
+    }
+
+    /**
+     * Résumé lisible de toutes les métriques, pour le débogage
+     * (seule méthode qui construit des chaînes, appelée à la demande)
+     */
+    public String describe() {
+        StringBuilder builder = new StringBuilder();
+        for (OwmEndpoint endpoint : OwmEndpoint.values()) {
+            EndpointMetrics metrics = get(endpoint);
+            if (metrics.total.getCount() == 0) {
+                continue;
+            }
+            builder.append(String.format(Locale.ROOT,
+                    "%s: %d appels, %d échecs, total p50=%.0fms p95=%.0fms, ttfb p50=%.0fms, "
+                            + "dns p50=%.0fms, connect p50=%.0fms, tls p50=%.0fms, "
+                            + "cache %d hit / %d miss, %d octets reçus%n",
+                    endpoint.name().toLowerCase(Locale.ROOT),
+                    metrics.total.getCount(), metrics.failures.get(),
+                    metrics.total.getPercentileMillis(50), metrics.total.getPercentileMillis(95),
+                    metrics.timeToFirstByte.getPercentileMillis(50),
+                    metrics.dns.getPercentileMillis(50), metrics.connect.getPercentileMillis(50),
+                    metrics.tls.getPercentileMillis(50),
+                    metrics.cacheHits.get(), metrics.cacheMisses.get(), metrics.bytesReceived.get()));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Métriques d'un point d'accès
+     */
+    public static class EndpointMetrics {
+        // Résolution DNS
+        final LatencyHistogram dns = new LatencyHistogram();
+
+        // Établissement de la connexion (négociation TLS comprise)
+        final LatencyHistogram connect = new LatencyHistogram();
+
+        // Négociation TLS
+        final LatencyHistogram tls = new LatencyHistogram();
+
+        // Entre l'envoi des en-têtes de la requête et la réception des en-têtes de la réponse
+        final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+
+        // Durée totale de l'appel, corps de la réponse inclus
+        final LatencyHistogram total = new LatencyHistogram();
+
+        // Durée jusqu'à la réponse, vue par l'application (cache compris)
+        final LatencyHistogram applicationLatency = new LatencyHistogram();
+
+        final AtomicLong bytesReceived = new AtomicLong();
+        final AtomicLong cacheHits = new AtomicLong();
+        final AtomicLong cacheMisses = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong clientErrors = new AtomicLong();
+        final AtomicLong serverErrors = new AtomicLong();
+
+        public LatencyHistogram getDns() {
+            return dns;
+        }
+
+        public LatencyHistogram getConnect() {
+            return connect;
+        }
+
+        public LatencyHistogram getTls() {
+            return tls;
+        }
+
+        public LatencyHistogram getTimeToFirstByte() {
+            return timeToFirstByte;
+        }
+
+        public LatencyHistogram getTotal() {
+            return total;
+        }
+
+        public LatencyHistogram getApplicationLatency() {
+            return applicationLatency;
+        }
+
+        public long getBytesReceived() {
+            return bytesReceived.get();
+        }
+
+        public long getCacheHits() {
+            return cacheHits.get();
+        }
+
+        public long getCacheMisses() {
+            return cacheMisses.get();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        public long getClientErrors() {
+            return clientErrors.get();
+        }
+
+        public long getServerErrors() {
+            return serverErrors.get();
+        }
+    }
+}
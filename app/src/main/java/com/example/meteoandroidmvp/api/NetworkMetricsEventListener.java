@@ -0,0 +1,116 @@
+package com.example.meteoandroidmvp.api;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * Écouteur d'événements OkHttp qui mesure chaque phase d'un appel
+ * (DNS, connexion, TLS, premier octet, durée totale) et l'état du cache.
+ * Une instance est créée par appel : les horodatages sont de simples champs long.
+ */
+public class NetworkMetricsEventListener extends EventListener {
+
+    /**
+     * Fabrique à enregistrer sur le client OkHttp via eventListenerFactory()
+     */
+    public static final EventListener.Factory FACTORY = call -> new NetworkMetricsEventListener();
+
+    private NetworkMetrics.EndpointMetrics metrics;
+    private long callStartNanos;
+    private long dnsStartNanos;
+    private long connectStartNanos;
+    private long secureConnectStartNanos;
+    private long requestHeadersStartNanos;
+
+    @Override
+    public void callStart(Call call) {
+        metrics = NetworkMetrics.getInstance().get(OwmEndpoint.fromUrl(call.request().url()));
+        callStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        metrics.dns.record(System.nanoTime() - dnsStartNanos);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        metrics.tls.record(System.nanoTime() - secureConnectStartNanos);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        metrics.connect.record(System.nanoTime() - connectStartNanos);
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                              Protocol protocol, IOException ioe) {
+        metrics.connect.record(System.nanoTime() - connectStartNanos);
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestHeadersStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        metrics.timeToFirstByte.record(System.nanoTime() - requestHeadersStartNanos);
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        metrics.bytesReceived.addAndGet(byteCount);
+    }
+
+    @Override
+    public void cacheHit(Call call, Response response) {
+        metrics.cacheHits.incrementAndGet();
+    }
+
+    @Override
+    public void cacheConditionalHit(Call call, Response cachedResponse) {
+        metrics.cacheHits.incrementAndGet();
+    }
+
+    @Override
+    public void cacheMiss(Call call) {
+        metrics.cacheMisses.incrementAndGet();
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        metrics.total.record(System.nanoTime() - callStartNanos);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        metrics.total.record(System.nanoTime() - callStartNanos);
+        metrics.failures.incrementAndGet();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.meteoandroidmvp.api;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Intercepteur applicatif qui mesure la latence telle que l'application la perçoit
+ * (réponses servies par le cache comprises) et compte les erreurs HTTP par point d'accès
+ * Remplace la journalisation des corps de réponse, trop coûteuse en production
+ */
+public class NetworkMetricsInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        NetworkMetrics.EndpointMetrics metrics = NetworkMetrics.getInstance().get(OwmEndpoint.fromUrl(chain.request().url()));
+        long start = System.nanoTime();
+        Response response = chain.proceed(chain.request());
+        metrics.applicationLatency.record(System.nanoTime() - start);
+
+        int code = response.code();
+        if (code >= 500) {
+            metrics.serverErrors.incrementAndGet();
+        } else if (code >= 400) {
+            metrics.clientErrors.incrementAndGet();
+        }
+        return response;
+    }
+}
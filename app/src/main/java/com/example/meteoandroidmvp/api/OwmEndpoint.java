@@ -0,0 +1,84 @@
+package com.example.meteoandroidmvp.api;
+
+import java.util.List;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Points d'accès de l'API OpenWeatherMap connus par la couche réseau
+ * Chaque point d'accès porte sa propre politique de fraîcheur pour le cache HTTP
+ */
+public enum OwmEndpoint {
+    // Météo actuelle : OWM met à jour les observations environ toutes les 10 minutes
+    WEATHER("weather", 10 * 60, 60 * 60),
+
+    // Météo actuelle de plusieurs villes : même cadence que "weather"
+    GROUP("group", 10 * 60, 60 * 60),
+
+    // Prévisions 5 jours : créneaux de 3 heures, recalculés bien moins souvent
+    FORECAST("forecast", 60 * 60, 6 * 60 * 60),
+
+    // Météo actuelle et prévisions en une réponse : même cadence que "weather"
+    ONECALL("onecall", 10 * 60, 60 * 60),
+
+    // Géocodage d'un nom de ville : les coordonnées d'une ville ne changent pas
+    GEO("direct", 24 * 60 * 60, 7 * 24 * 60 * 60),
+
+    // Géocodage inverse d'une position : même stabilité que le géocodage direct
+    GEO_REVERSE("reverse", 24 * 60 * 60, 7 * 24 * 60 * 60),
+
+    // Tout autre appel : pas de politique de cache particulière
+    OTHER(null, 0, 0);
+
+    // Âge maximal d'une réponse en cache servie quand le réseau est indisponible
+    public static final int OFFLINE_MAX_STALE_SECONDS = 7 * 24 * 60 * 60;
+
+    // Dernier segment du chemin de l'URL (ex: "weather" pour /data/2.5/weather)
+    private final String pathSegment;
+
+    // Durée de fraîcheur d'une réponse, en secondes
+    private final int maxAgeSeconds;
+
+    // Fenêtre pendant laquelle une réponse périmée est servie immédiatement
+    // pendant qu'une revalidation est lancée en arrière-plan
+    private final int staleWhileRevalidateSeconds;
+
+    OwmEndpoint(String pathSegment, int maxAgeSeconds, int staleWhileRevalidateSeconds) {
+        this.pathSegment = pathSegment;
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.staleWhileRevalidateSeconds = staleWhileRevalidateSeconds;
+    }
+
+    public int getMaxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    public int getStaleWhileRevalidateSeconds() {
+        return staleWhileRevalidateSeconds;
+    }
+
+    /**
+     * Indique si les réponses de ce point d'accès doivent être mises en cache
+     */
+    public boolean isCacheable() {
+        return maxAgeSeconds > 0;
+    }
+
+    /**
+     * Détermine le point d'accès correspondant à une URL
+     * Compare uniquement le dernier segment du chemin, sans construire de chaîne
+     *
+     * @param url URL de la requête
+     * @return Point d'accès reconnu, ou OTHER
+     */
+    public static OwmEndpoint fromUrl(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        String last = segments.isEmpty() ? "" : segments.get(segments.size() - 1);
+        for (OwmEndpoint endpoint : values()) {
+            if (endpoint.pathSegment != null && endpoint.pathSegment.equals(last)) {
+                return endpoint;
+            }
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.meteoandroidmvp.api;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Ordonnanceur des appels sortants vers OpenWeatherMap, conforme au quota de la clé API
+ * Intercepteur réseau : il ne voit que les requêtes qui partent réellement sur le réseau
+ * (les réponses servies par le cache ne consomment rien), relances et requêtes couvertes comprises.
+ * - un seau à jetons de 60 appels par minute lisse les rafales
+ * - un budget journalier, conservé entre deux lancements, plafonne le nombre d'appels par jour
+ * - une réponse 429 vide le seau et suspend les appels pendant la durée demandée
+ * Quand le budget devient faible, {@link StaleWhileRevalidateInterceptor} sert le cache
+ * plutôt que le réseau ; quand il est épuisé, les appels échouent avec
+ * {@link QuotaExceededException}, ce qui déclenche le repli sur le cache.
+ */
+public class QuotaScheduler implements Interceptor {
+
+    private static final String TAG = "QuotaScheduler";
+
+    // Quota de la clé gratuite : 60 appels par minute
+    private static final int CALLS_PER_MINUTE = 60;
+
+    // Part du quota journalier réservée à cet appareil
+    private static final int CALLS_PER_DAY = 1000;
+
+    // En dessous de ces seuils, le budget est considéré comme faible
+    private static final int LOW_DAILY_REMAINING = CALLS_PER_DAY / 10;
+    private static final double LOW_TOKENS = CALLS_PER_MINUTE / 10.0;
+
+    // Attente maximale d'un jeton avant d'abandonner l'appel
+    private static final long MAX_WAIT_MILLIS = 2000;
+
+    // Suspension appliquée après un 429 sans en-tête Retry-After
+    private static final long DEFAULT_THROTTLE_MILLIS = 60_000;
+
+    // Code HTTP renvoyé quand le quota est dépassé
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    // Sauvegarde du compteur journalier
+    private static final String PREFS_NAME = "OwmQuota";
+    private static final String KEY_DAY = "day";
+    private static final String KEY_CALLS = "calls";
+
+    private static final long NANOS_PER_TOKEN = TimeUnit.MINUTES.toNanos(1) / CALLS_PER_MINUTE;
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+    private static final QuotaScheduler INSTANCE = new QuotaScheduler();
+
+    // Seau à jetons (protégé par this)
+    private double tokens = CALLS_PER_MINUTE;
+    private long lastRefillNanos = System.nanoTime();
+    private long pausedUntilNanos = 0;
+
+    // Budget journalier (jour UTC, comme la remise à zéro du quota OpenWeatherMap)
+    private long day = currentDay();
+    private int dailyCalls = 0;
+
+    private SharedPreferences preferences = null;
+
+    // Appels qui ont dû attendre un jeton, et appels refusés
+    private final AtomicLong deferredCalls = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    /**
+     * Exception levée quand un appel ne peut pas partir sans dépasser le quota
+     */
+    public static class QuotaExceededException extends IOException {
+        public QuotaExceededException(String message) {
+            super(message);
+        }
+    }
+
+    private QuotaScheduler() {
+    }
+
+    public static QuotaScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Recharge le compteur journalier sauvegardé
+     *
+     * @param context Contexte Android
+     */
+    public synchronized void init(Context context) {
+        if (preferences != null) {
+            return;
+        }
+        preferences = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (preferences.getLong(KEY_DAY, -1) == day) {
+            dailyCalls = preferences.getInt(KEY_CALLS, 0);
+        }
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        acquire();
+        Response response = chain.proceed(chain.request());
+        if (response.code() == HTTP_TOO_MANY_REQUESTS) {
+            onThrottled(response.header("Retry-After"));
+        }
+        return response;
+    }
+
+    /**
+     * Prend un jeton et une unité du budget journalier, en attendant si nécessaire
+     *
+     * @throws QuotaExceededException si le budget du jour est épuisé ou si l'attente serait trop longue
+     */
+    private synchronized void acquire() throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_WAIT_MILLIS);
+        boolean waited = false;
+        while (true) {
+            rollOverDay();
+            if (dailyCalls >= CALLS_PER_DAY) {
+                rejectedCalls.incrementAndGet();
+                throw new QuotaExceededException("Quota journalier OpenWeatherMap atteint");
+            }
+
+            long now = System.nanoTime();
+            refill(now);
+            long waitNanos;
+            if (now < pausedUntilNanos) {
+                waitNanos = pausedUntilNanos - now;
+            } else if (tokens >= 1) {
+                tokens -= 1;
+                dailyCalls++;
+                save();
+                if (waited) {
+                    deferredCalls.incrementAndGet();
+                }
+                return;
+            } else {
+                waitNanos = (long) ((1 - tokens) * NANOS_PER_TOKEN);
+            }
+
+            if (now + waitNanos > deadline) {
+                rejectedCalls.incrementAndGet();
+                throw new QuotaExceededException("Trop d'appels OpenWeatherMap, réessayez dans un instant");
+            }
+            waited = true;
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Attente du quota interrompue");
+            }
+        }
+    }
+
+    /**
+     * Le serveur signale un dépassement : vider le seau et suspendre les appels
+     */
+    private synchronized void onThrottled(String retryAfter) {
+        long pauseMillis = DEFAULT_THROTTLE_MILLIS;
+        if (retryAfter != null) {
+            try {
+                pauseMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException ignored) {
+                // Format date HTTP : suspension par défaut
+            }
+        }
+        tokens = 0;
+        pausedUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pauseMillis);
+        Log.w(TAG, "Quota dépassé côté serveur, appels suspendus pendant " + pauseMillis + " ms");
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(CALLS_PER_MINUTE, tokens + (double) (now - lastRefillNanos) / NANOS_PER_TOKEN);
+        lastRefillNanos = now;
+    }
+
+    private void rollOverDay() {
+        long today = currentDay();
+        if (today != day) {
+            day = today;
+            dailyCalls = 0;
+            save();
+        }
+    }
+
+    private void save() {
+        if (preferences != null) {
+            preferences.edit().putLong(KEY_DAY, day).putInt(KEY_CALLS, dailyCalls).apply();
+        }
+    }
+
+    private static long currentDay() {
+        return System.currentTimeMillis() / MILLIS_PER_DAY;
+    }
+
+    /**
+     * @return true si le budget de la minute ou du jour est presque épuisé :
+     * mieux vaut alors servir le cache, même ancien, et reporter les revalidations
+     */
+    public synchronized boolean isBudgetLow() {
+        rollOverDay();
+        refill(System.nanoTime());
+        return CALLS_PER_DAY - dailyCalls <= LOW_DAILY_REMAINING
+                || tokens < LOW_TOKENS
+                || System.nanoTime() < pausedUntilNanos;
+    }
+
+    /**
+     * @return Nombre d'appels encore autorisés aujourd'hui
+     */
+    public synchronized int getRemainingDailyCalls() {
+        rollOverDay();
+        return CALLS_PER_DAY - dailyCalls;
+    }
+
+    /**
+     * @return Nombre d'appels qui ont attendu un jeton avant de partir
+     */
+    public long getDeferredCallCount() {
+        return deferredCalls.get();
+    }
+
+    /**
+     * @return Nombre d'appels refusés pour ne pas dépasser le quota
+     */
+    public long getRejectedCallCount() {
+        return rejectedCalls.get();
+    }
+
+    /**
+     * Remet le seau plein et le compteur du jour à zéro
+     * (changement de clé API, ou isolation des tests)
+     */
+    public synchronized void reset() {
+        tokens = CALLS_PER_MINUTE;
+        lastRefillNanos = System.nanoTime();
+        pausedUntilNanos = 0;
+        day = currentDay();
+        dailyCalls = 0;
+        save();
+    }
+}
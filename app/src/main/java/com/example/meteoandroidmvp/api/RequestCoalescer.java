@@ -0,0 +1,195 @@
+package com.example.meteoandroidmvp.api;
+
+import com.example.meteoandroidmvp.utils.CityNames;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Registre des requêtes en cours, partagé par tout le processus (single-flight)
+ * Quand plusieurs appelants demandent la même ressource au même moment
+ * (double appui sur la recherche, changement d'onglet, notification...),
+ * un seul appel réseau est lancé et tous les appelants reçoivent son résultat
+ */
+public class RequestCoalescer {
+
+    // Instance unique partagée par le présentateur, le récepteur de notifications, etc.
+    private static final RequestCoalescer INSTANCE = new RequestCoalescer();
+
+    // Requêtes en cours, indexées par leur clé (point d'accès, requête, unités, langue)
+    private final Map<String, InFlight<?>> inFlight = new HashMap<>();
+
+    // Nombre d'appels réellement envoyés au réseau
+    private final AtomicLong networkCalls = new AtomicLong();
+
+    // Nombre d'appels évités parce qu'une requête identique était déjà en cours
+    private final AtomicLong coalescedCalls = new AtomicLong();
+    
+    // Nombre d'appels réseau annulés faute d'appelant qui attende encore leur résultat
+    private final AtomicLong cancelledCalls = new AtomicLong();
+    
+    /**
+     * Désinscription d'un appelant
+     */
+    public interface Cancellable {
+        /**
+         * L'appelant n'attend plus le résultat : son callback ne sera pas appelé.
+         * Si plus personne n'attend, l'appel réseau est annulé (connexion et bande passante libérées).
+         * 
+         * @return true si l'appelant attendait encore le résultat
+         */
+        boolean cancel();
+    }
+    
+    /**
+     * Désinscription sans effet, pour un résultat déjà obtenu sans requête
+     */
+    public static final Cancellable DONE = () -> false;
+
+    /**
+     * Retourne l'instance partagée du registre
+     */
+    public static RequestCoalescer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Construit la clé qui identifie une requête
+     * Deux requêtes avec la même clé renvoient forcément la même réponse
+     *
+     * @param endpoint Point d'accès (ex: "weather", "forecast")
+     * @param query Paramètre de recherche (nom de ville ou coordonnées)
+     * @param units Unités de mesure
+     * @param language Code langue
+     * @return Clé de la requête
+     */
+    public static String key(String endpoint, String query, String units, String language) {
+        return endpoint + '|' + normalizeQuery(query) + '|' + units + '|' + language;
+    }
+
+    /**
+     * Normalise une requête texte : espaces superflus et casse ignorés
+     * "Paris", " paris " et "PARIS" donnent la même clé
+     */
+    public static String normalizeQuery(String query) {
+        return CityNames.normalize(query);
+    }
+
+    /**
+     * Exécute une requête, ou rattache l'appelant à une requête identique déjà en cours
+     *
+     * @param key Clé de la requête (voir {@link #key})
+     * @param callFactory Fabrique de l'appel Retrofit, utilisée seulement si aucune requête n'est en cours
+     * @param callback Callback qui recevra le résultat
+     * @return Désinscription de cet appelant
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Cancellable enqueue(String key, Supplier<Call<T>> callFactory, Callback<T> callback) {
+        InFlight<T> request;
+        synchronized (inFlight) {
+            request = (InFlight<T>) inFlight.get(key);
+            if (request != null) {
+                // Une requête identique est déjà partie : on attend simplement son résultat
+                request.callbacks.add(callback);
+                coalescedCalls.incrementAndGet();
+                InFlight<T> joined = request;
+                return () -> cancel(key, joined, callback);
+            }
+            request = new InFlight<>(callFactory.get());
+            request.callbacks.add(callback);
+            inFlight.put(key, request);
+        }
+
+        networkCalls.incrementAndGet();
+        InFlight<T> started = request;
+        started.call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                for (Callback<T> waiting : complete(key, started)) {
+                    waiting.onResponse(call, response);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                for (Callback<T> waiting : complete(key, started)) {
+                    waiting.onFailure(call, t);
+                }
+            }
+        });
+        return () -> cancel(key, started, callback);
+    }
+    
+    /**
+     * Désinscrit un appelant ; annule l'appel réseau si c'était le dernier
+     */
+    private <T> boolean cancel(String key, InFlight<T> request, Callback<T> callback) {
+        synchronized (inFlight) {
+            if (inFlight.get(key) != request || !request.callbacks.remove(callback)) {
+                // Requête déjà terminée, ou appelant déjà désinscrit
+                return false;
+            }
+            if (!request.callbacks.isEmpty()) {
+                // D'autres appelants attendent encore ce résultat
+                return true;
+            }
+            inFlight.remove(key);
+        }
+        request.call.cancel();
+        cancelledCalls.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Retire la requête terminée du registre et retourne les appelants à prévenir
+     */
+    private <T> List<Callback<T>> complete(String key, InFlight<T> request) {
+        synchronized (inFlight) {
+            if (inFlight.get(key) == request) {
+                inFlight.remove(key);
+            }
+            return new ArrayList<>(request.callbacks);
+        }
+    }
+
+    /**
+     * @return Nombre d'appels réellement envoyés au réseau
+     */
+    public long getNetworkCallCount() {
+        return networkCalls.get();
+    }
+
+    /**
+     * @return Nombre d'appels économisés grâce au regroupement
+     */
+    public long getCoalescedCallCount() {
+        return coalescedCalls.get();
+    }
+
+    /**
+     * @return Nombre d'appels réseau annulés parce que plus personne n'attendait leur résultat
+     */
+    public long getCancelledCallCount() {
+        return cancelledCalls.get();
+    }
+    
+    /**
+     * Requête en cours et liste des appelants qui attendent son résultat
+     */
+    private static class InFlight<T> {
+        final Call<T> call;
+        final List<Callback<T>> callbacks = new ArrayList<>();
+
+        InFlight(Call<T> call) {
+            this.call = call;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.meteoandroidmvp.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Intercepteur applicatif qui relance les requêtes GET en échec
+ * avec un délai exponentiel aléatoire (« full jitter ») :
+ * - réponses 5xx (serveur indisponible) et 429 (trop de requêtes)
+ * - erreurs réseau transitoires
+ * L'en-tête Retry-After renvoyé par le serveur est respecté s'il est présent.
+ */
+public class RetryInterceptor implements Interceptor {
+
+    // Nombre de relances après la première tentative
+    private static final int MAX_RETRIES = 2;
+
+    // Délai de base et délai maximal entre deux tentatives
+    private static final long BASE_DELAY_MILLIS = 500;
+    private static final long MAX_DELAY_MILLIS = 8000;
+
+    // Code HTTP renvoyé quand le quota de requêtes est dépassé
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!"GET".equals(request.method()) || request.cacheControl().onlyIfCached()) {
+            return chain.proceed(request);
+        }
+
+        for (int attempt = 0; ; attempt++) {
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (attempt >= MAX_RETRIES || chain.call().isCanceled()
+                        || e instanceof QuotaScheduler.QuotaExceededException) {
+                    throw e;
+                }
+                sleep(backoffMillis(attempt, null));
+                continue;
+            }
+
+            if (!isRetryable(response.code()) || attempt >= MAX_RETRIES) {
+                return response;
+            }
+            String retryAfter = response.header("Retry-After");
+            response.close();
+            sleep(backoffMillis(attempt, retryAfter));
+        }
+    }
+
+    /**
+     * @return true si le code HTTP correspond à une erreur temporaire
+     */
+    static boolean isRetryable(int code) {
+        return code >= 500 || code == HTTP_TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * Calcule le délai avant la prochaine tentative
+     *
+     * @param attempt Numéro de la tentative qui vient d'échouer (0 pour la première)
+     * @param retryAfter Valeur de l'en-tête Retry-After, en secondes (peut être null)
+     * @return Délai en millisecondes
+     */
+    private static long backoffMillis(int attempt, String retryAfter) {
+        if (retryAfter != null) {
+            try {
+                long seconds = Long.parseLong(retryAfter.trim());
+                return Math.min(MAX_DELAY_MILLIS, Math.max(0, seconds * 1000));
+            } catch (NumberFormatException ignored) {
+                // Format date HTTP : on retombe sur le délai exponentiel
+            }
+        }
+        long cap = Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS << attempt);
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Relance interrompue");
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.meteoandroidmvp.api;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.CacheControl;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Intercepteur applicatif qui applique la politique de cache des appels météo :
+ * - une réponse fraîche en cache est servie sans accès réseau
+ * - une réponse périmée (dans la fenêtre stale-while-revalidate) est servie immédiatement
+ *   et une revalidation est lancée en arrière-plan pour rafraîchir le cache
+ * - en cas d'échec réseau (hors ligne), la dernière réponse connue est servie
+ * - quand le quota d'appels est presque épuisé, toute réponse en cache est préférée au réseau
+ *   et les revalidations en arrière-plan sont reportées
+ */
+public class StaleWhileRevalidateInterceptor implements Interceptor {
+
+    private static final String TAG = "StaleWhileRevalidate";
+
+    // En-tête interne qui marque les requêtes de revalidation lancées par cet intercepteur
+    private static final String REVALIDATION_HEADER = "X-Meteo-Revalidation";
+
+    // Code d'avertissement ajouté par OkHttp quand il sert une réponse périmée
+    private static final String STALE_WARNING_PREFIX = "110";
+
+    // Indique si un cache disque est configuré sur le client
+    private final boolean cacheEnabled;
+
+    // URLs en cours de revalidation, pour ne pas lancer deux fois la même
+    private final Set<String> pendingRevalidations = ConcurrentHashMap.newKeySet();
+
+    // Client utilisé pour lancer les revalidations en arrière-plan
+    private volatile Call.Factory callFactory;
+
+    /**
+     * @param cacheEnabled true si le client OkHttp possède un cache disque
+     */
+    public StaleWhileRevalidateInterceptor(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    /**
+     * Définit le client utilisé pour les revalidations en arrière-plan
+     * Doit être appelé une fois le client OkHttp construit
+     */
+    public void setCallFactory(Call.Factory callFactory) {
+        this.callFactory = callFactory;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        OwmEndpoint endpoint = OwmEndpoint.fromUrl(request.url());
+
+        // Revalidation lancée par nous-mêmes : aller directement sur le réseau
+        if (request.header(REVALIDATION_HEADER) != null) {
+            return chain.proceed(request.newBuilder().removeHeader(REVALIDATION_HEADER).build());
+        }
+
+        // Requêtes hors politique : pas de cache, appel non GET ou directive explicite de l'appelant
+        if (!cacheEnabled || !endpoint.isCacheable() || !"GET".equals(request.method())
+                || request.cacheControl().onlyIfCached() || request.cacheControl().noCache()) {
+            return chain.proceed(request);
+        }
+
+        // 1. Chercher une réponse en cache, fraîche ou périmée depuis moins de la fenêtre autorisée
+        // (ou même ancienne si le quota d'appels est presque épuisé)
+        boolean budgetLow = QuotaScheduler.getInstance().isBudgetLow();
+        int maxStaleSeconds = budgetLow ? OwmEndpoint.OFFLINE_MAX_STALE_SECONDS : endpoint.getStaleWhileRevalidateSeconds();
+        Response cached = chain.proceed(cacheOnly(request, maxStaleSeconds));
+        if (cached.code() != HttpURLConnection.HTTP_GATEWAY_TIMEOUT) {
+            String warning = cached.header("Warning");
+            if (warning != null && warning.startsWith(STALE_WARNING_PREFIX) && !budgetLow) {
+                // Réponse périmée : on la sert tout de suite et on rafraîchit le cache en parallèle
+                revalidateInBackground(request);
+            }
+            return cached;
+        }
+        cached.close();
+
+        // 2. Rien d'exploitable en cache : passer par le réseau
+        try {
+            return chain.proceed(request);
+        } catch (IOException e) {
+            // 3. Hors ligne ou quota atteint : servir la dernière réponse connue, même ancienne
+            Response offline = chain.proceed(cacheOnly(request, OwmEndpoint.OFFLINE_MAX_STALE_SECONDS));
+            if (offline.code() != HttpURLConnection.HTTP_GATEWAY_TIMEOUT) {
+                Log.d(TAG, "Réseau indisponible, réponse servie depuis le cache: " + request.url().encodedPath());
+                return offline;
+            }
+            offline.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Construit une variante de la requête qui ne peut être satisfaite que par le cache
+     *
+     * @param request Requête d'origine
+     * @param maxStaleSeconds Âge maximal accepté au-delà de la durée de fraîcheur
+     */
+    private static Request cacheOnly(Request request, int maxStaleSeconds) {
+        CacheControl cacheControl = new CacheControl.Builder()
+                .onlyIfCached()
+                .maxStale(maxStaleSeconds, TimeUnit.SECONDS)
+                .build();
+        return request.newBuilder().cacheControl(cacheControl).build();
+    }
+
+    /**
+     * Relance la requête sur le réseau en arrière-plan pour mettre à jour le cache
+     * Le corps de la réponse doit être lu entièrement pour qu'OkHttp l'écrive sur le disque
+     */
+    private void revalidateInBackground(Request request) {
+        Call.Factory factory = callFactory;
+        String key = request.url().toString();
+        if (factory == null || !pendingRevalidations.add(key)) {
+            return;
+        }
+
+        Request revalidation = request.newBuilder()
+                .cacheControl(CacheControl.FORCE_NETWORK)
+                .header(REVALIDATION_HEADER, "1")
+                .build();
+
+        factory.newCall(revalidation).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                pendingRevalidations.remove(key);
+                Log.w(TAG, "Échec de la revalidation en arrière-plan", e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                try (ResponseBody body = response.body()) {
+                    if (body != null) {
+                        body.bytes();
+                    }
+                } finally {
+                    pendingRevalidations.remove(key);
+                }
+            }
+        });
+    }
+}
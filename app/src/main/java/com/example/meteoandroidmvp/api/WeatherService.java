@@ -1,8 +1,13 @@
 package com.example.meteoandroidmvp.api;
 
 import com.example.meteoandroidmvp.model.ForecastResponse;
+import com.example.meteoandroidmvp.model.GeoLocation;
+import com.example.meteoandroidmvp.model.GroupWeatherResponse;
+import com.example.meteoandroidmvp.model.OneCallResponse;
 import com.example.meteoandroidmvp.model.WeatherResponse;
 
+import java.util.List;
+
 import retrofit2.Call;
 import retrofit2.http.GET;
 import retrofit2.http.Query;
@@ -50,6 +55,24 @@ public interface WeatherService {
             @Query("lang") String language
     );
     
+    /**
+     * Récupère les données météo actuelles de plusieurs villes en une seule requête
+     * L'API accepte au maximum 20 identifiants par appel
+     * 
+     * @param cityIds Identifiants OpenWeatherMap des villes, séparés par des virgules (ex: "2988507,2643743")
+     * @param apiKey Clé API OpenWeatherMap
+     * @param units Unités de mesure (metric, imperial, standard)
+     * @param language Code langue pour les descriptions (fr, en, etc.)
+     * @return Objet Call contenant la météo de chaque ville
+     */
+    @GET("group")
+    Call<GroupWeatherResponse> getCurrentWeatherByIds(
+            @Query("id") String cityIds,
+            @Query("appid") String apiKey,
+            @Query("units") String units,
+            @Query("lang") String language
+    );
+    
     /**
      * Récupère les prévisions météo sur 5 jours pour une ville spécifiée par son nom
      * Les prévisions sont retournées par intervalles de 3 heures
@@ -87,4 +110,59 @@ public interface WeatherService {
             @Query("units") String units,
             @Query("lang") String language
     );
-} 
\ No newline at end of file
+    
+    /**
+     * Géocode un nom de ville : coordonnées, nom officiel et pays
+     * Chemin absolu : ce point d'accès ne fait pas partie de /data/2.5/
+     * 
+     * @param city Nom de la ville (ex: "Paris", "London,GB")
+     * @param limit Nombre maximal de résultats
+     * @param apiKey Clé API OpenWeatherMap
+     * @return Objet Call contenant les villes correspondantes, la plus pertinente en premier
+     */
+    @GET("/geo/1.0/direct")
+    Call<List<GeoLocation>> geocode(
+            @Query("q") String city,
+            @Query("limit") int limit,
+            @Query("appid") String apiKey
+    );
+    
+    /**
+     * Retrouve la ville la plus proche d'une position (géocodage inverse)
+     * 
+     * @param latitude Latitude en degrés décimaux
+     * @param longitude Longitude en degrés décimaux
+     * @param limit Nombre maximal de résultats
+     * @param apiKey Clé API OpenWeatherMap
+     * @return Objet Call contenant les villes proches, la plus proche en premier
+     */
+    @GET("/geo/1.0/reverse")
+    Call<List<GeoLocation>> reverseGeocode(
+            @Query("lat") double latitude,
+            @Query("lon") double longitude,
+            @Query("limit") int limit,
+            @Query("appid") String apiKey
+    );
+    
+    /**
+     * Récupère en une seule requête la météo actuelle et les prévisions horaires et journalières
+     * Nécessite un abonnement One Call 3.0 : sans lui, l'API répond 401
+     * 
+     * @param latitude Latitude en degrés décimaux
+     * @param longitude Longitude en degrés décimaux
+     * @param exclude Blocs à ne pas renvoyer, séparés par des virgules (ex: "minutely,alerts")
+     * @param apiKey Clé API OpenWeatherMap
+     * @param units Unités de mesure (metric, imperial, standard)
+     * @param language Code langue pour les descriptions (fr, en, etc.)
+     * @return Objet Call contenant la réponse One Call
+     */
+    @GET("/data/3.0/onecall")
+    Call<OneCallResponse> getOneCall(
+            @Query("lat") double latitude,
+            @Query("lon") double longitude,
+            @Query("exclude") String exclude,
+            @Query("appid") String apiKey,
+            @Query("units") String units,
+            @Query("lang") String language
+    );
+}
@@ -89,5 +89,20 @@ public interface WeatherContract {
          * @param longitude Longitude
          */
         void getForecastByLocation(double latitude, double longitude);
+        
+        /**
+         * Récupère la météo actuelle et les prévisions d'une ville en une seule requête
+         * quand c'est possible (appelle showWeather puis showForecast)
+         * @param city Nom de la ville
+         */
+        void getWeatherAndForecastByCity(String city);
+        
+        /**
+         * Récupère la météo actuelle et les prévisions d'une position en une seule requête
+         * quand c'est possible (appelle showWeather puis showForecast)
+         * @param latitude Latitude
+         * @param longitude Longitude
+         */
+        void getWeatherAndForecastByLocation(double latitude, double longitude);
     }
 } 
\ No newline at end of file
@@ -8,13 +8,16 @@ import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Process;
+import android.os.SystemClock;
 import android.provider.Settings;
+import android.util.Log;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.inputmethod.EditorInfo;
-import android.widget.EditText;
+import android.widget.AutoCompleteTextView;
 import android.widget.ImageButton;
 import android.widget.ImageView;
 import android.widget.ProgressBar;
@@ -31,37 +34,63 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.meteoandroidmvp.R;
+import com.example.meteoandroidmvp.adapter.CitySuggestionAdapter;
 import com.example.meteoandroidmvp.adapter.ForecastAdapter;
 import com.example.meteoandroidmvp.adapter.ForecastDayAdapter;
+import com.example.meteoandroidmvp.api.GeocodingCache;
 import com.example.meteoandroidmvp.contract.WeatherContract;
 import com.example.meteoandroidmvp.model.FavoriteCity;
 import com.example.meteoandroidmvp.model.ForecastResponse;
+import com.example.meteoandroidmvp.model.GeoLocation;
 import com.example.meteoandroidmvp.model.WeatherResponse;
-import com.example.meteoandroidmvp.model.ForecastDay;
+import com.example.meteoandroidmvp.model.WeatherSnapshot;
 import com.example.meteoandroidmvp.presenter.WeatherPresenter;
+import com.example.meteoandroidmvp.repository.CityGazetteer;
+import com.example.meteoandroidmvp.utils.CityNames;
 import com.example.meteoandroidmvp.utils.Constants;
+import com.example.meteoandroidmvp.utils.ForecastAggregator;
 import com.example.meteoandroidmvp.utils.NotificationUtils;
-import com.example.meteoandroidmvp.utils.DateUtils;
+import com.example.meteoandroidmvp.utils.GeoQuantizer;
+import com.example.meteoandroidmvp.utils.WeatherSnapshotStore;
 import com.squareup.picasso.Picasso;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.ArrayList;
 
 public class WeatherFragment extends Fragment implements WeatherContract.View {
 
+    private static final String TAG = "WeatherFragment";
+
     private WeatherContract.Presenter presenter;
     private ForecastDayAdapter forecastDayAdapter;
+    private CitySuggestionAdapter citySuggestionAdapter;
     private String currentCity = "";
     private double currentLatitude = 0.0;
     private double currentLongitude = 0.0;
     private boolean usingLocation = false;
+    
+    // Dernier nom pour lequel des corrections ont été proposées
+    private String correctedCity = null;
     private WeatherResponse currentWeather;
     
+    // Données à jour de l'écran, sauvegardées ensemble pour le prochain lancement
+    private WeatherResponse latestWeather;
+    private ForecastResponse latestForecast;
+    
+    // Prévisions dont la liste attend son regroupement par jour
+    private ForecastResponse renderedForecast;
+    
+    // true tant que l'écran affiche l'instantané du lancement précédent
+    private boolean showingSnapshot = false;
+    
+    // Mesures du délai avant le premier contenu, une seule fois par processus
+    private static boolean firstContentLogged = false;
+    private static boolean firstFreshContentLogged = false;
+    
     // Vues
-    private EditText editCity;
+    private AutoCompleteTextView editCity;
     private ImageButton btnSearch;
     private ImageButton btnFavorite;
     private ImageButton btnNotification;
@@ -157,14 +186,16 @@ public class WeatherFragment extends Fragment implements WeatherContract.View {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
         
-        // Si un cityName est passé en argument, charger cette ville
+        // Afficher tout de suite le dernier écran sauvegardé s'il correspond à ce qui est demandé
         Bundle args = getArguments();
+        WeatherSnapshot snapshot = restoreSnapshot(args);
+        
+        // Si un cityName est passé en argument, charger cette ville
         if (args != null && args.containsKey("cityName")) {
             currentCity = args.getString("cityName", "");
             if (!currentCity.isEmpty()) {
-                editCity.setText(currentCity);
-                presenter.getWeatherByCity(currentCity);
-                presenter.getForecastByCity(currentCity);
+                editCity.setText(currentCity, false);
+                presenter.getWeatherAndForecastByCity(currentCity);
                 return;
             }
         }
@@ -175,21 +206,126 @@ public class WeatherFragment extends Fragment implements WeatherContract.View {
             currentLongitude = args.getDouble("longitude", 0);
             if (currentLatitude != 0 && currentLongitude != 0) {
                 usingLocation = true;
-                presenter.getWeatherByLocation(currentLatitude, currentLongitude);
-                presenter.getForecastByLocation(currentLatitude, currentLongitude);
+                presenter.getWeatherAndForecastByLocation(currentLatitude, currentLongitude);
                 return;
             }
         }
         
-        // Par défaut, utiliser la ville par défaut
-        currentCity = Constants.DEFAULT_CITY;
-        presenter.getWeatherByCity(Constants.DEFAULT_CITY);
-        presenter.getForecastByCity(Constants.DEFAULT_CITY);
+        // Sinon, actualiser la ville de l'instantané, ou à défaut la ville par défaut
+        if (snapshot != null && snapshot.getWeather().getCityName() != null) {
+            currentCity = snapshot.getWeather().getCityName();
+        } else {
+            currentCity = Constants.DEFAULT_CITY;
+        }
+        presenter.getWeatherAndForecastByCity(currentCity);
+    }
+    
+    /**
+     * Affiche le dernier écran sauvegardé, avant la première image
+     * Il reste affiché (sans indicateur vide) jusqu'à l'arrivée des données à jour
+     * 
+     * @param args Arguments du fragment (ville ou coordonnées demandées)
+     * @return Instantané affiché, ou null s'il n'y en a pas ou s'il concerne un autre lieu
+     */
+    private WeatherSnapshot restoreSnapshot(@Nullable Bundle args) {
+        WeatherSnapshot snapshot = WeatherSnapshotStore.getInstance().restore();
+        if (snapshot == null || !snapshotMatches(snapshot, args)) {
+            // Favori ouvert : son instantané préparé en arrière-plan
+            snapshot = favoriteSnapshot(args);
+            if (snapshot == null) {
+                return null;
+            }
+        }
+        showingSnapshot = true;
+        currentWeather = snapshot.getWeather();
+        renderWeather(snapshot.getWeather());
+        renderForecast(snapshot.getForecast());
+        logFirstContent("instantané");
+        return snapshot;
+    }
+    
+    /**
+     * @return Instantané préparé pour la ville ou la position demandée, ou null
+     */
+    @Nullable
+    private static WeatherSnapshot favoriteSnapshot(@Nullable Bundle args) {
+        if (args == null) {
+            return null;
+        }
+        WeatherSnapshotStore store = WeatherSnapshotStore.getInstance();
+        if (args.containsKey("cityName")) {
+            return store.restoreFavorite(WeatherSnapshotStore.cityKey(args.getString("cityName", "")));
+        }
+        if (args.containsKey("latitude") && args.containsKey("longitude")) {
+            return store.restoreFavorite(WeatherSnapshotStore.positionKey(
+                    args.getDouble("latitude"), args.getDouble("longitude")));
+        }
+        return null;
+    }
+    
+    /**
+     * @return true si l'instantané concerne la ville ou la position demandée
+     */
+    private static boolean snapshotMatches(WeatherSnapshot snapshot, @Nullable Bundle args) {
+        WeatherResponse.Coord coord = snapshot.getWeather().getCoord();
+        if (args != null && args.containsKey("cityName")) {
+            String city = args.getString("cityName", "");
+            if (CityNames.normalize(city).equals(CityNames.normalize(snapshot.getWeather().getCityName()))) {
+                return true;
+            }
+            GeoLocation location = GeocodingCache.getInstance().get(city);
+            return location != null && coord != null
+                    && GeoQuantizer.cellKey(location.getLatitude(), location.getLongitude())
+                            .equals(GeoQuantizer.cellKey(coord.getLatitude(), coord.getLongitude()));
+        }
+        if (args != null && args.containsKey("latitude") && args.containsKey("longitude")) {
+            return coord != null
+                    && GeoQuantizer.cellKey(args.getDouble("latitude"), args.getDouble("longitude"))
+                            .equals(GeoQuantizer.cellKey(coord.getLatitude(), coord.getLongitude()));
+        }
+        // Lancement sans destination : le dernier lieu consulté
+        return true;
+    }
+    
+    /**
+     * Journalise le délai entre le démarrage du processus et le premier contenu affiché
+     * 
+     * @param source Origine du contenu (instantané ou réseau)
+     */
+    private static void logFirstContent(String source) {
+        if (firstContentLogged) {
+            return;
+        }
+        firstContentLogged = true;
+        Log.i(TAG, "Premier contenu (" + source + ") affiché " + elapsedSinceProcessStart() + " ms après le démarrage");
+    }
+    
+    /**
+     * @return Durée écoulée depuis le démarrage du processus, en millisecondes
+     */
+    private static long elapsedSinceProcessStart() {
+        return SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+    }
+    
+    /**
+     * Sauvegarde l'écran quand la météo actuelle et les prévisions à jour sont toutes deux arrivées
+     */
+    private void saveSnapshot() {
+        if (latestWeather == null || latestForecast == null) {
+            return;
+        }
+        if (!firstFreshContentLogged) {
+            firstFreshContentLogged = true;
+            Log.i(TAG, "Données à jour affichées " + elapsedSinceProcessStart() + " ms après le démarrage");
+        }
+        WeatherSnapshotStore.getInstance().save(latestWeather, latestForecast);
     }
     
     private void initViews(View view) {
         editCity = view.findViewById(R.id.edit_city);
         btnSearch = view.findViewById(R.id.btn_search);
+        citySuggestionAdapter = new CitySuggestionAdapter(requireContext());
+        editCity.setAdapter(citySuggestionAdapter);
         btnFavorite = view.findViewById(R.id.btn_favorite);
         btnNotification = view.findViewById(R.id.btn_notification);
         progressBar = view.findViewById(R.id.progress_bar);
@@ -215,18 +351,59 @@ public class WeatherFragment extends Fragment implements WeatherContract.View {
         tvErrorMessage = view.findViewById(R.id.tv_error_message);
     }
     
+    /**
+     * Affiche les villes connues proches d'un nom que le répertoire ne connaît pas
+     *
+     * @return true si des corrections sont proposées
+     */
+    private boolean proposeCorrections(String city) {
+        CityGazetteer gazetteer = CityGazetteer.getInstance();
+        if (GeocodingCache.getInstance().get(city) != null || gazetteer.lookup(city) != null) {
+            return false;
+        }
+        List<CityGazetteer.City> corrections = gazetteer.corrections(city, CityGazetteer.MAX_SUGGESTIONS);
+        if (corrections.isEmpty()) {
+            return false;
+        }
+        citySuggestionAdapter.setSuggestions(corrections);
+        editCity.showDropDown();
+        Toast.makeText(getContext(), "Vouliez-vous dire " + corrections.get(0).getDisplayName() + " ?",
+                Toast.LENGTH_SHORT).show();
+        return true;
+    }
+    
     private void setupListeners() {
         // Rechercher une ville lorsque l'utilisateur clique sur le bouton de recherche
         btnSearch.setOnClickListener(v -> {
             String city = editCity.getText().toString().trim();
             if (!city.isEmpty()) {
+                // Faute de frappe probable : proposer les villes proches plutôt qu'une recherche
+                // vouée au 404 (une deuxième recherche du même texte part telle quelle)
+                if (!city.equals(correctedCity) && proposeCorrections(city)) {
+                    correctedCity = city;
+                    return;
+                }
+                correctedCity = null;
                 currentCity = city;
                 usingLocation = false;
-                presenter.getWeatherByCity(city);
-                presenter.getForecastByCity(city);
+                presenter.getWeatherAndForecastByCity(city);
             }
         });
         
+        // Ville choisie dans les suggestions : sa position est connue, la recherche
+        // part directement sur les coordonnées, sans géocodage
+        editCity.setOnItemClickListener((parent, v, position, id) -> {
+            CityGazetteer.City city = (CityGazetteer.City) parent.getItemAtPosition(position);
+            GeocodingCache.getInstance().put(city.getDisplayName(), city.toGeoLocation());
+            CityGazetteer.getInstance().recordSelection(city);
+            if (correctedCity != null) {
+                // Ville choisie parmi les corrections proposées
+                CityGazetteer.getInstance().recordCorrection();
+            }
+            editCity.dismissDropDown();
+            btnSearch.performClick();
+        });
+        
         // Rechercher une ville lorsque l'utilisateur appuie sur la touche "Entrée"
         editCity.setOnEditorActionListener((v, actionId, event) -> {
             if (actionId == EditorInfo.IME_ACTION_SEARCH || 
@@ -246,6 +423,7 @@ public class WeatherFragment extends Fragment implements WeatherContract.View {
                 Date lastUpdate = new Date(currentWeather.getDateTime() * 1000);
                 
                 FavoriteCity favoriteCity = new FavoriteCity(
+                        currentWeather.getCityId(),
                         cityName, 
                         country, 
                         lastUpdate, 
@@ -368,7 +546,19 @@ public class WeatherFragment extends Fragment implements WeatherContract.View {
     public void showWeather(WeatherResponse weatherResponse) {
         if (weatherResponse == null) return;
         
+        // Les données à jour remplacent l'instantané
+        showingSnapshot = false;
         currentWeather = weatherResponse;
+        latestWeather = weatherResponse;
+        renderWeather(weatherResponse);
+        logFirstContent("réseau");
+        saveSnapshot();
+    }
+    
+    /**
+     * Remplit l'écran avec la météo actuelle
+     */
+    private void renderWeather(WeatherResponse weatherResponse) {
         weatherContent.setVisibility(View.VISIBLE);
         if (tvErrorMessage != null) {
             tvErrorMessage.setVisibility(View.GONE);
@@ -457,46 +647,26 @@ public class WeatherFragment extends Fragment implements WeatherContract.View {
     
     @Override
     public void showForecast(ForecastResponse forecastResponse) {
-        if (forecastResponse != null && forecastResponse.getForecastItems() != null) {
-            // Organiser les prévisions par jour
-            List<ForecastDay> forecastDays = groupForecastItemsByDay(forecastResponse.getForecastItems());
-            forecastDayAdapter.setForecastDays(forecastDays);
-        }
+        if (forecastResponse == null) return;
+        
+        latestForecast = forecastResponse;
+        renderForecast(forecastResponse);
+        saveSnapshot();
     }
     
     /**
-     * Groupe les éléments de prévision par jour
-     *
-     * @param forecastItems Liste des prévisions
-     * @return Liste des jours de prévisions, chacun contenant ses prévisions horaires
+     * Remplit la liste des prévisions
+     * Le regroupement par jour se fait en arrière-plan ; seul le dernier demandé est affiché
      */
-    private List<ForecastDay> groupForecastItemsByDay(List<ForecastResponse.ForecastItem> forecastItems) {
-        List<ForecastDay> result = new ArrayList<>();
-        if (forecastItems == null || forecastItems.isEmpty()) {
-            return result;
-        }
-        
-        // Parcourir chaque élément de prévision
-        ForecastDay currentDay = null;
-        long currentDayTimestamp = 0;
-        
-        for (ForecastResponse.ForecastItem item : forecastItems) {
-            long itemTimestamp = item.getDateTime() * 1000; // Convertir en millisecondes
-            
-            // Si c'est le premier élément ou un nouveau jour
-            if (currentDay == null || !DateUtils.isSameDay(currentDayTimestamp, itemTimestamp)) {
-                // Créer un nouveau jour
-                String dayTitle = DateUtils.getFormattedDayTitle(itemTimestamp);
-                currentDay = new ForecastDay(dayTitle);
-                currentDayTimestamp = itemTimestamp;
-                result.add(currentDay);
-            }
-            
-            // Ajouter la prévision au jour courant
-            currentDay.addHourlyForecast(item);
+    private void renderForecast(ForecastResponse forecastResponse) {
+        if (forecastResponse.getForecastItems() != null) {
+            renderedForecast = forecastResponse;
+            ForecastAggregator.getInstance().aggregate(forecastResponse, (forecast, forecastDays) -> {
+                if (forecast == renderedForecast && forecastDayAdapter != null) {
+                    forecastDayAdapter.setForecastDays(forecastDays);
+                }
+            });
         }
-        
-        return result;
     }
     
     @Override
@@ -509,7 +679,8 @@ public class WeatherFragment extends Fragment implements WeatherContract.View {
                 tvErrorMessage.setVisibility(View.VISIBLE);
                 
                 // Si c'est une erreur de connexion, cacher le contenu météo
-                if (message.contains("Impossible de se connecter")) {
+                // (sauf l'instantané du lancement précédent, mieux qu'un écran vide)
+                if (message.contains("Impossible de se connecter") && !showingSnapshot) {
                     weatherContent.setVisibility(View.GONE);
                 }
             }
@@ -519,7 +690,12 @@ public class WeatherFragment extends Fragment implements WeatherContract.View {
     @Override
     public void showLoading() {
         progressBar.setVisibility(View.VISIBLE);
-        weatherContent.setVisibility(View.GONE);
+        // Nouvelle recherche : les données à jour de la ville précédente ne sont plus à sauvegarder
+        latestWeather = null;
+        latestForecast = null;
+        if (!showingSnapshot) {
+            weatherContent.setVisibility(View.GONE);
+        }
         if (tvErrorMessage != null) {
             tvErrorMessage.setVisibility(View.GONE);
         }
@@ -7,6 +7,10 @@ import java.util.Date;
  * Stocke toutes les informations nécessaires pour retrouver les données météo de cette ville
  */
 public class FavoriteCity {
+    // Identifiant OpenWeatherMap de la ville (0 si inconnu)
+    // Permet de rafraîchir plusieurs favoris en une seule requête
+    private long cityId;
+    
     // Nom de la ville (ex: "Paris")
     private String cityName;
     
@@ -42,6 +46,40 @@ public class FavoriteCity {
         this.fromLocation = fromLocation;
     }
 
+    /**
+     * Constructeur complet incluant l'identifiant OpenWeatherMap de la ville
+     * 
+     * @param cityId Identifiant OpenWeatherMap (0 si inconnu)
+     * @param cityName Nom de la ville
+     * @param country Code pays à 2 lettres
+     * @param lastUpdate Date de dernière mise à jour
+     * @param latitude Latitude en degrés décimaux
+     * @param longitude Longitude en degrés décimaux
+     * @param fromLocation True si ajoutée via localisation GPS
+     */
+    public FavoriteCity(long cityId, String cityName, String country, Date lastUpdate, double latitude, double longitude, boolean fromLocation) {
+        this(cityName, country, lastUpdate, latitude, longitude, fromLocation);
+        this.cityId = cityId;
+    }
+
+    /**
+     * Copie d'un favori, à modifier avant de remplacer l'original dans les favoris
+     * 
+     * @param other Favori copié
+     */
+    public FavoriteCity(FavoriteCity other) {
+        this(other.cityId, other.cityName, other.country, other.lastUpdate,
+                other.latitude, other.longitude, other.fromLocation);
+    }
+
+    public long getCityId() {
+        return cityId;
+    }
+
+    public void setCityId(long cityId) {
+        this.cityId = cityId;
+    }
+
     public String getCityName() {
         return cityName;
     }
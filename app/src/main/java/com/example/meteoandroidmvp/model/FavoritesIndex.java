@@ -0,0 +1,146 @@
+package com.example.meteoandroidmvp.model;
+
+import com.example.meteoandroidmvp.utils.CityNames;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Villes favorites en mémoire, indexées par nom normalisé et par identifiant
+ * Recherche, mise à jour et suppression en temps constant, dans l'ordre d'ajout.
+ * La liste transmise à l'affichage est une copie figée, reconstruite seulement
+ * après un ajout, un remplacement ou une suppression : l'adaptateur ne voit jamais
+ * une liste modifiée pendant qu'il la parcourt.
+ * Un favori indexé ne doit pas être modifié : on le remplace par une copie mise à jour
+ * ({@link #put}), ce qui garde les deux index et la liste affichée cohérents.
+ * À utiliser depuis le thread principal.
+ */
+public class FavoritesIndex {
+
+    // Favoris indexés par nom normalisé, dans l'ordre d'ajout
+    private final Map<String, FavoriteCity> favorites = new LinkedHashMap<>();
+
+    // Favoris portant chaque identifiant OpenWeatherMap connu, dans l'ordre d'indexation
+    private final Map<Long, List<FavoriteCity>> byCityId = new HashMap<>();
+
+    // Copie figée de la liste (null après une modification, reconstruite à la demande)
+    private List<FavoriteCity> snapshot = Collections.emptyList();
+
+    /**
+     * @param cityName Nom de ville
+     * @return Clé d'identité du favori : "Paris", " paris " et "PARIS" désignent le même favori
+     */
+    public static String key(String cityName) {
+        return CityNames.normalize(cityName);
+    }
+
+    /**
+     * @param cityName Nom de ville
+     * @return true si la ville est dans les favoris
+     */
+    public boolean contains(String cityName) {
+        return favorites.containsKey(key(cityName));
+    }
+
+    /**
+     * @param cityName Nom de ville
+     * @return Favori portant ce nom, ou null
+     */
+    public FavoriteCity get(String cityName) {
+        return favorites.get(key(cityName));
+    }
+
+    /**
+     * @param cityId Identifiant OpenWeatherMap
+     * @return Premier favori indexé avec cet identifiant, ou null (toujours null pour 0)
+     */
+    public FavoriteCity findByCityId(long cityId) {
+        List<FavoriteCity> sameCity = cityId > 0 ? byCityId.get(cityId) : null;
+        return sameCity != null ? sameCity.get(0) : null;
+    }
+
+    /**
+     * Ajoute un favori, ou remplace celui qui porte le même nom (à la même place)
+     *
+     * @param favorite Ville favorite
+     * @return Favori remplacé, ou null si la ville n'était pas dans les favoris
+     */
+    public FavoriteCity put(FavoriteCity favorite) {
+        FavoriteCity previous = favorites.put(key(favorite.getCityName()), favorite);
+        if (previous != favorite) {
+            unindex(previous);
+            index(favorite);
+            snapshot = null;
+        }
+        return previous;
+    }
+
+    /**
+     * Ajoute un favori seulement si aucun favori ne porte déjà ce nom
+     *
+     * @param favorite Ville favorite
+     * @return true si le favori a été ajouté
+     */
+    public boolean putIfAbsent(FavoriteCity favorite) {
+        if (favorites.putIfAbsent(key(favorite.getCityName()), favorite) != null) {
+            return false;
+        }
+        index(favorite);
+        snapshot = null;
+        return true;
+    }
+
+    /**
+     * Supprime un favori
+     *
+     * @param cityName Nom de ville
+     * @return Favori supprimé, ou null
+     */
+    public FavoriteCity remove(String cityName) {
+        FavoriteCity removed = favorites.remove(key(cityName));
+        if (removed != null) {
+            unindex(removed);
+            snapshot = null;
+        }
+        return removed;
+    }
+
+    public int size() {
+        return favorites.size();
+    }
+
+    public boolean isEmpty() {
+        return favorites.isEmpty();
+    }
+
+    /**
+     * @return Liste non modifiable des favoris dans l'ordre d'ajout
+     *         (la même instance tant que la liste ne change pas)
+     */
+    public List<FavoriteCity> snapshot() {
+        if (snapshot == null) {
+            snapshot = Collections.unmodifiableList(new ArrayList<>(favorites.values()));
+        }
+        return snapshot;
+    }
+
+    private void index(FavoriteCity favorite) {
+        if (favorite.getCityId() > 0) {
+            byCityId.computeIfAbsent(favorite.getCityId(), id -> new ArrayList<>(1)).add(favorite);
+        }
+    }
+
+    private void unindex(FavoriteCity favorite) {
+        if (favorite == null || favorite.getCityId() <= 0) {
+            return;
+        }
+        List<FavoriteCity> sameCity = byCityId.get(favorite.getCityId());
+        if (sameCity != null && sameCity.remove(favorite) && sameCity.isEmpty()) {
+            byCityId.remove(favorite.getCityId());
+        }
+    }
+}
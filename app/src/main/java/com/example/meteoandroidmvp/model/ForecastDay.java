@@ -7,6 +7,7 @@ import java.util.List;
  * Modèle représentant un jour de prévisions comprenant:
  * - Un titre pour le jour (ex: "Aujourd'hui", "Demain", "Lundi", etc.)
  * - Une liste des prévisions horaires pour ce jour
+ * - Un résumé du jour (températures extrêmes, risque de pluie, temps dominant)
  */
 public class ForecastDay {
     // Titre du jour (ex: "Aujourd'hui", "Demain", "Lundi 17 juin")
@@ -15,6 +16,22 @@ public class ForecastDay {
     // Liste des prévisions horaires pour ce jour
     private List<ForecastResponse.ForecastItem> hourlyForecasts;
     
+    // Jour local de la ville, en jours depuis le 1er janvier 1970
+    private long epochDay;
+    
+    // Décalage de l'heure locale de la ville par rapport à UTC, en secondes
+    private int timezoneOffset;
+    
+    // Températures minimale et maximale du jour
+    private float minTemperature;
+    private float maxTemperature;
+    
+    // Plus forte probabilité de précipitations du jour (0 à 1)
+    private float precipitationProbability;
+    
+    // Conditions les plus fréquentes du jour (null si aucune)
+    private WeatherResponse.Weather dominantCondition;
+    
     /**
      * Constructeur pour créer un nouveau jour de prévisions
      * 
@@ -72,4 +89,48 @@ public class ForecastDay {
         }
         hourlyForecasts.add(forecastItem);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Renseigne le résumé du jour
+     * 
+     * @param epochDay Jour local de la ville, en jours depuis le 1er janvier 1970
+     * @param timezoneOffset Décalage de l'heure locale de la ville par rapport à UTC, en secondes
+     * @param minTemperature Température minimale
+     * @param maxTemperature Température maximale
+     * @param precipitationProbability Plus forte probabilité de précipitations (0 à 1)
+     * @param dominantCondition Conditions les plus fréquentes, ou null
+     */
+    public void setSummary(long epochDay, int timezoneOffset, float minTemperature, float maxTemperature,
+                           float precipitationProbability, WeatherResponse.Weather dominantCondition) {
+        this.epochDay = epochDay;
+        this.timezoneOffset = timezoneOffset;
+        this.minTemperature = minTemperature;
+        this.maxTemperature = maxTemperature;
+        this.precipitationProbability = precipitationProbability;
+        this.dominantCondition = dominantCondition;
+    }
+    
+    public long getEpochDay() {
+        return epochDay;
+    }
+    
+    public int getTimezoneOffset() {
+        return timezoneOffset;
+    }
+    
+    public float getMinTemperature() {
+        return minTemperature;
+    }
+    
+    public float getMaxTemperature() {
+        return maxTemperature;
+    }
+    
+    public float getPrecipitationProbability() {
+        return precipitationProbability;
+    }
+    
+    public WeatherResponse.Weather getDominantCondition() {
+        return dominantCondition;
+    }
+}
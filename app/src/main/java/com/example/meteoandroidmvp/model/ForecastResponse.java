@@ -1,9 +1,20 @@
 package com.example.meteoandroidmvp.model;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Réponse du point d'accès "forecast" d'OpenWeatherMap (5 jours, créneaux de 3 heures)
+ * Désérialisée par {@link StreamingAdapter}, sans réflexion
+ */
+@JsonAdapter(ForecastResponse.StreamingAdapter.class)
 public class ForecastResponse {
     @SerializedName("city")
     private City city;
@@ -19,6 +30,38 @@ public class ForecastResponse {
         return forecastItems;
     }
     
+    /**
+     * Construit des prévisions à partir de données venues d'un autre point d'accès (One Call)
+     */
+    static ForecastResponse create(String cityName, String country, long sunrise, long sunset, int timezoneOffset,
+                                   List<ForecastItem> items) {
+        ForecastResponse response = new ForecastResponse();
+        response.city = new City();
+        response.city.name = cityName;
+        response.city.country = country;
+        response.city.sunrise = sunrise;
+        response.city.sunset = sunset;
+        response.city.timezoneOffset = timezoneOffset;
+        response.forecastItems = items;
+        return response;
+    }
+    
+    static ForecastItem newItem(long dateTime, WeatherResponse.Main main, List<WeatherResponse.Weather> weather,
+                                int cloudiness, WeatherResponse.Wind wind, int visibility,
+                                float probabilityOfPrecipitation, String dateTimeText) {
+        ForecastItem item = new ForecastItem();
+        item.dateTime = dateTime;
+        item.main = main;
+        item.weather = weather;
+        item.clouds = new Clouds();
+        item.clouds.cloudiness = cloudiness;
+        item.wind = wind;
+        item.visibility = visibility;
+        item.probabilityOfPrecipitation = probabilityOfPrecipitation;
+        item.dateTimeText = dateTimeText;
+        return item;
+    }
+    
     public static class City {
         @SerializedName("name")
         private String name;
@@ -32,6 +75,10 @@ public class ForecastResponse {
         @SerializedName("sunset")
         private long sunset;
         
+        // Décalage de l'heure locale de la ville par rapport à UTC, en secondes
+        @SerializedName("timezone")
+        private int timezoneOffset;
+        
         public String getName() {
             return name;
         }
@@ -47,6 +94,10 @@ public class ForecastResponse {
         public long getSunset() {
             return sunset;
         }
+        
+        public int getTimezoneOffset() {
+            return timezoneOffset;
+        }
     }
     
     public static class ForecastItem {
@@ -115,4 +166,189 @@ public class ForecastResponse {
             return cloudiness;
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Adaptateur JSON écrit à la main pour les prévisions
+     * Une réponse contient 40 créneaux : la lecture directe du flux évite
+     * la réflexion pour chacun des objets imbriqués (main, wind, clouds, weather)
+     */
+    static final class StreamingAdapter extends TypeAdapter<ForecastResponse> {
+        
+        // Nombre de créneaux renvoyés par l'API (5 jours x 8 créneaux de 3 heures)
+        private static final int EXPECTED_ITEM_COUNT = 40;
+        
+        @Override
+        public ForecastResponse read(JsonReader in) throws IOException {
+            if (JsonReaders.skipNull(in)) {
+                return null;
+            }
+            ForecastResponse response = new ForecastResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "city":
+                        response.city = readCity(in);
+                        break;
+                    case "list":
+                        response.forecastItems = readItems(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return response;
+        }
+        
+        @Override
+        public void write(JsonWriter out, ForecastResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            if (value.city != null) {
+                out.name("city").beginObject()
+                        .name("name").value(value.city.name)
+                        .name("country").value(value.city.country)
+                        .name("sunrise").value(value.city.sunrise)
+                        .name("sunset").value(value.city.sunset)
+                        .name("timezone").value(value.city.timezoneOffset)
+                        .endObject();
+            }
+            if (value.forecastItems != null) {
+                out.name("list").beginArray();
+                for (ForecastItem item : value.forecastItems) {
+                    writeItem(out, item);
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+        
+        private static City readCity(JsonReader in) throws IOException {
+            if (JsonReaders.skipNull(in)) {
+                return null;
+            }
+            City city = new City();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name":
+                        city.name = JsonReaders.nextString(in);
+                        break;
+                    case "country":
+                        city.country = JsonReaders.nextString(in);
+                        break;
+                    case "sunrise":
+                        city.sunrise = JsonReaders.nextLong(in);
+                        break;
+                    case "sunset":
+                        city.sunset = JsonReaders.nextLong(in);
+                        break;
+                    case "timezone":
+                        city.timezoneOffset = JsonReaders.nextInt(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return city;
+        }
+        
+        private static List<ForecastItem> readItems(JsonReader in) throws IOException {
+            if (JsonReaders.skipNull(in)) {
+                return null;
+            }
+            List<ForecastItem> items = new ArrayList<>(EXPECTED_ITEM_COUNT);
+            in.beginArray();
+            while (in.hasNext()) {
+                if (JsonReaders.skipNull(in)) {
+                    continue;
+                }
+                items.add(readItem(in));
+            }
+            in.endArray();
+            return items;
+        }
+        
+        private static ForecastItem readItem(JsonReader in) throws IOException {
+            ForecastItem item = new ForecastItem();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "dt":
+                        item.dateTime = JsonReaders.nextLong(in);
+                        break;
+                    case "main":
+                        item.main = WeatherResponse.StreamingAdapter.readMain(in);
+                        break;
+                    case "weather":
+                        item.weather = WeatherResponse.StreamingAdapter.readWeatherList(in);
+                        break;
+                    case "clouds":
+                        item.clouds = readClouds(in);
+                        break;
+                    case "wind":
+                        item.wind = WeatherResponse.StreamingAdapter.readWind(in);
+                        break;
+                    case "visibility":
+                        item.visibility = JsonReaders.nextInt(in);
+                        break;
+                    case "pop":
+                        item.probabilityOfPrecipitation = JsonReaders.nextFloat(in);
+                        break;
+                    case "dt_txt":
+                        item.dateTimeText = JsonReaders.nextString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return item;
+        }
+        
+        private static void writeItem(JsonWriter out, ForecastItem item) throws IOException {
+            out.beginObject();
+            out.name("dt").value(item.dateTime);
+            if (item.main != null) {
+                WeatherResponse.StreamingAdapter.writeMain(out.name("main"), item.main);
+            }
+            if (item.weather != null) {
+                WeatherResponse.StreamingAdapter.writeWeatherList(out.name("weather"), item.weather);
+            }
+            if (item.clouds != null) {
+                out.name("clouds").beginObject().name("all").value(item.clouds.cloudiness).endObject();
+            }
+            if (item.wind != null) {
+                WeatherResponse.StreamingAdapter.writeWind(out.name("wind"), item.wind);
+            }
+            out.name("visibility").value(item.visibility);
+            out.name("pop").value(Float.valueOf(item.probabilityOfPrecipitation));
+            out.name("dt_txt").value(item.dateTimeText);
+            out.endObject();
+        }
+        
+        private static Clouds readClouds(JsonReader in) throws IOException {
+            if (JsonReaders.skipNull(in)) {
+                return null;
+            }
+            Clouds clouds = new Clouds();
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("all".equals(in.nextName())) {
+                    clouds.cloudiness = JsonReaders.nextInt(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return clouds;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.meteoandroidmvp.model;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Résultat du géocodage d'un nom de ville (point d'accès geo/1.0/direct d'OpenWeatherMap)
+ * Nom officiel de la ville, pays et coordonnées
+ */
+public class GeoLocation {
+    @SerializedName("name")
+    private String name;
+
+    @SerializedName("lat")
+    private double latitude;
+
+    @SerializedName("lon")
+    private double longitude;
+
+    @SerializedName("country")
+    private String country;
+
+    @SerializedName("state")
+    private String state;
+
+    public GeoLocation(String name, String country, double latitude, double longitude) {
+        this.name = name;
+        this.country = country;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public String getState() {
+        return state;
+    }
+}
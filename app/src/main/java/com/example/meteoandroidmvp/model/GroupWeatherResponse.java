@@ -0,0 +1,25 @@
+package com.example.meteoandroidmvp.model;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+/**
+ * Réponse du point d'accès "group" d'OpenWeatherMap
+ * Contient la météo actuelle de plusieurs villes demandées en une seule requête
+ */
+public class GroupWeatherResponse {
+    @SerializedName("cnt")
+    private int count;
+    
+    @SerializedName("list")
+    private List<WeatherResponse> weatherList;
+    
+    public int getCount() {
+        return count;
+    }
+    
+    public List<WeatherResponse> getWeatherList() {
+        return weatherList;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.meteoandroidmvp.model;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Fonctions de lecture JSON communes aux adaptateurs de flux des modèles
+ * Les valeurs null renvoyées par l'API sont remplacées par la valeur par défaut du type,
+ * comme le faisait la désérialisation par réflexion de Gson
+ */
+final class JsonReaders {
+
+    private JsonReaders() {
+    }
+
+    static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    static int nextInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        // nextDouble accepte aussi "1013.0", que nextInt refuserait
+        return (int) in.nextDouble();
+    }
+
+    static long nextLong(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0L;
+        }
+        return (long) in.nextDouble();
+    }
+
+    static float nextFloat(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0f;
+        }
+        return (float) in.nextDouble();
+    }
+
+    static double nextDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0d;
+        }
+        return in.nextDouble();
+    }
+
+    /**
+     * Indique si la prochaine valeur est null, et la consomme le cas échéant
+     * Utilisé avant de lire un objet ou un tableau imbriqué
+     */
+    static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+}
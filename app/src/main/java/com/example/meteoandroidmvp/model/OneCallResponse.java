@@ -0,0 +1,301 @@
+package com.example.meteoandroidmvp.model;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Réponse du point d'accès One Call 3.0 d'OpenWeatherMap
+ * Conditions actuelles, prévisions heure par heure (48 h) et jour par jour (8 jours)
+ * en une seule requête. Convertie en {@link WeatherResponse} et {@link ForecastResponse}
+ * pour que l'écran météo affiche un instantané cohérent sans changer de modèle.
+ * One Call ne renvoie pas le nom de la ville : il est fourni par le géocodage.
+ */
+public class OneCallResponse {
+    // Les prévisions 5 jours comportent des créneaux de 3 heures alignés sur minuit UTC
+    private static final long SLOT_SECONDS = 3 * 60 * 60;
+
+    // Horizon des prévisions affichées
+    private static final long FORECAST_HORIZON_SECONDS = 5 * 24 * 60 * 60;
+
+    // Heures des relevés « matin » et « soir » d'une journée, par rapport au relevé de midi
+    private static final long HALF_DAY_PART_SECONDS = 6 * 60 * 60;
+
+    // Format du champ dt_txt des prévisions 5 jours
+    private static final String DATE_TIME_TEXT_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    @SerializedName("lat")
+    private double latitude;
+
+    @SerializedName("lon")
+    private double longitude;
+
+    @SerializedName("timezone_offset")
+    private int timezoneOffset;
+
+    @SerializedName("current")
+    private Conditions current;
+
+    @SerializedName("hourly")
+    private List<Conditions> hourly;
+
+    @SerializedName("daily")
+    private List<Day> daily;
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public int getTimezoneOffset() {
+        return timezoneOffset;
+    }
+
+    public Conditions getCurrent() {
+        return current;
+    }
+
+    public List<Conditions> getHourly() {
+        return hourly;
+    }
+
+    public List<Day> getDaily() {
+        return daily;
+    }
+
+    /**
+     * Convertit les conditions actuelles en réponse « weather »
+     * Les températures min/max du jour viennent de la prévision journalière
+     *
+     * @param cityName Nom de la ville (géocodage)
+     * @param country Code pays (géocodage, peut être null)
+     * @return Météo actuelle, ou null si la réponse n'en contient pas
+     */
+    public WeatherResponse toWeatherResponse(String cityName, String country) {
+        if (current == null) {
+            return null;
+        }
+        float tempMin = current.temperature;
+        float tempMax = current.temperature;
+        if (daily != null && !daily.isEmpty() && daily.get(0).temperatures != null) {
+            tempMin = daily.get(0).temperatures.min;
+            tempMax = daily.get(0).temperatures.max;
+        }
+        return WeatherResponse.create(0, cityName, latitude, longitude,
+                WeatherResponse.newMain(current.temperature, current.feelsLike, tempMin, tempMax,
+                        current.humidity, current.pressure),
+                current.weather,
+                WeatherResponse.newWind(current.windSpeed, current.windDegree),
+                WeatherResponse.newSys(country, current.sunrise, current.sunset),
+                current.visibility,
+                WeatherResponse.newClouds(current.clouds),
+                current.dateTime);
+    }
+
+    /**
+     * Convertit les prévisions en réponse « forecast » (créneaux de 3 heures sur 5 jours)
+     * Les 48 premières heures reprennent les prévisions horaires, un créneau sur trois ;
+     * au-delà, chaque jour est représenté par ses relevés du matin, de midi et du soir.
+     *
+     * @param cityName Nom de la ville (géocodage)
+     * @param country Code pays (géocodage, peut être null)
+     * @return Prévisions, ou null si la réponse n'en contient pas
+     */
+    public ForecastResponse toForecastResponse(String cityName, String country) {
+        if (current == null || (hourly == null && daily == null)) {
+            return null;
+        }
+        SimpleDateFormat dateTimeText = new SimpleDateFormat(DATE_TIME_TEXT_PATTERN, Locale.ROOT);
+        dateTimeText.setTimeZone(TimeZone.getTimeZone("UTC"));
+        long horizon = current.dateTime + FORECAST_HORIZON_SECONDS;
+        List<ForecastResponse.ForecastItem> items = new ArrayList<>();
+
+        long lastHourly = current.dateTime;
+        if (hourly != null) {
+            for (Conditions hour : hourly) {
+                if (hour.dateTime % SLOT_SECONDS != 0 || hour.dateTime <= current.dateTime) {
+                    continue;
+                }
+                items.add(toItem(hour.dateTime, hour.temperature, hour.feelsLike, hour.temperature, hour.temperature,
+                        hour.humidity, hour.pressure, hour.weather, hour.clouds, hour.windSpeed, hour.windDegree,
+                        hour.visibility, hour.probabilityOfPrecipitation, dateTimeText));
+                lastHourly = Math.max(lastHourly, hour.dateTime);
+            }
+        }
+
+        if (daily != null) {
+            for (Day day : daily) {
+                if (day.temperatures == null) {
+                    continue;
+                }
+                Temperatures feelsLike = day.feelsLike != null ? day.feelsLike : day.temperatures;
+                long[] times = {day.dateTime - HALF_DAY_PART_SECONDS, day.dateTime, day.dateTime + HALF_DAY_PART_SECONDS};
+                float[] temperatures = {day.temperatures.morning, day.temperatures.day, day.temperatures.evening};
+                float[] feels = {feelsLike.morning, feelsLike.day, feelsLike.evening};
+                for (int i = 0; i < times.length; i++) {
+                    if (times[i] <= lastHourly || times[i] > horizon) {
+                        continue;
+                    }
+                    items.add(toItem(times[i], temperatures[i], feels[i], day.temperatures.min, day.temperatures.max,
+                            day.humidity, day.pressure, day.weather, day.clouds, day.windSpeed, day.windDegree,
+                            0, day.probabilityOfPrecipitation, dateTimeText));
+                }
+            }
+        }
+
+        return ForecastResponse.create(cityName, country, current.sunrise, current.sunset, timezoneOffset, items);
+    }
+
+    private static ForecastResponse.ForecastItem toItem(long dateTime, float temperature, float feelsLike,
+                                                        float tempMin, float tempMax, int humidity, int pressure,
+                                                        List<WeatherResponse.Weather> weather, int clouds,
+                                                        float windSpeed, float windDegree, int visibility,
+                                                        float probabilityOfPrecipitation, SimpleDateFormat dateTimeText) {
+        return ForecastResponse.newItem(dateTime,
+                WeatherResponse.newMain(temperature, feelsLike, tempMin, tempMax, humidity, pressure),
+                weather, clouds, WeatherResponse.newWind(windSpeed, windDegree), visibility,
+                probabilityOfPrecipitation, dateTimeText.format(new Date(dateTime * 1000)));
+    }
+
+    /**
+     * Conditions à un instant donné (bloc « current » ou élément de « hourly »)
+     */
+    public static class Conditions {
+        @SerializedName("dt")
+        private long dateTime;
+
+        @SerializedName("sunrise")
+        private long sunrise;
+
+        @SerializedName("sunset")
+        private long sunset;
+
+        @SerializedName("temp")
+        private float temperature;
+
+        @SerializedName("feels_like")
+        private float feelsLike;
+
+        @SerializedName("pressure")
+        private int pressure;
+
+        @SerializedName("humidity")
+        private int humidity;
+
+        @SerializedName("clouds")
+        private int clouds;
+
+        @SerializedName("visibility")
+        private int visibility;
+
+        @SerializedName("wind_speed")
+        private float windSpeed;
+
+        @SerializedName("wind_deg")
+        private float windDegree;
+
+        @SerializedName("pop")
+        private float probabilityOfPrecipitation;
+
+        @SerializedName("weather")
+        private List<WeatherResponse.Weather> weather;
+
+        public long getDateTime() {
+            return dateTime;
+        }
+
+        public float getTemperature() {
+            return temperature;
+        }
+
+        public List<WeatherResponse.Weather> getWeather() {
+            return weather;
+        }
+    }
+
+    /**
+     * Prévision d'une journée (élément de « daily », relevé de midi heure locale)
+     */
+    public static class Day {
+        @SerializedName("dt")
+        private long dateTime;
+
+        @SerializedName("temp")
+        private Temperatures temperatures;
+
+        @SerializedName("feels_like")
+        private Temperatures feelsLike;
+
+        @SerializedName("pressure")
+        private int pressure;
+
+        @SerializedName("humidity")
+        private int humidity;
+
+        @SerializedName("clouds")
+        private int clouds;
+
+        @SerializedName("wind_speed")
+        private float windSpeed;
+
+        @SerializedName("wind_deg")
+        private float windDegree;
+
+        @SerializedName("pop")
+        private float probabilityOfPrecipitation;
+
+        @SerializedName("weather")
+        private List<WeatherResponse.Weather> weather;
+
+        public long getDateTime() {
+            return dateTime;
+        }
+
+        public Temperatures getTemperatures() {
+            return temperatures;
+        }
+
+        public List<WeatherResponse.Weather> getWeather() {
+            return weather;
+        }
+    }
+
+    /**
+     * Températures d'une journée par moment de la journée
+     */
+    public static class Temperatures {
+        @SerializedName("morn")
+        private float morning;
+
+        @SerializedName("day")
+        private float day;
+
+        @SerializedName("eve")
+        private float evening;
+
+        @SerializedName("night")
+        private float night;
+
+        @SerializedName("min")
+        private float min;
+
+        @SerializedName("max")
+        private float max;
+
+        public float getMin() {
+            return min;
+        }
+
+        public float getMax() {
+            return max;
+        }
+    }
+}
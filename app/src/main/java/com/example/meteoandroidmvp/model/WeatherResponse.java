@@ -1,13 +1,31 @@
 package com.example.meteoandroidmvp.model;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Réponse du point d'accès "weather" d'OpenWeatherMap
+ * Désérialisée par {@link StreamingAdapter}, sans réflexion : les annotations
+ * SerializedName documentent le nom des champs JSON
+ */
+@JsonAdapter(WeatherResponse.StreamingAdapter.class)
 public class WeatherResponse {
+    @SerializedName("id")
+    private long cityId;
+    
     @SerializedName("name")
     private String cityName;
     
+    @SerializedName("coord")
+    private Coord coord;
+    
     @SerializedName("main")
     private Main main;
     
@@ -29,10 +47,18 @@ public class WeatherResponse {
     @SerializedName("dt")
     private long dateTime;
     
+    public long getCityId() {
+        return cityId;
+    }
+    
     public String getCityName() {
         return cityName;
     }
     
+    public Coord getCoord() {
+        return coord;
+    }
+    
     public Main getMain() {
         return main;
     }
@@ -61,6 +87,84 @@ public class WeatherResponse {
         return dateTime;
     }
     
+    /**
+     * Construit une réponse à partir de données venues d'un autre point d'accès (One Call)
+     */
+    static WeatherResponse create(long cityId, String cityName, double latitude, double longitude, Main main,
+                                  List<Weather> weather, Wind wind, Sys sys, int visibility, Clouds clouds, long dateTime) {
+        WeatherResponse response = new WeatherResponse();
+        response.cityId = cityId;
+        response.cityName = cityName;
+        response.coord = new Coord();
+        response.coord.latitude = latitude;
+        response.coord.longitude = longitude;
+        response.main = main;
+        response.weather = weather;
+        response.wind = wind;
+        response.sys = sys;
+        response.visibility = visibility;
+        response.clouds = clouds;
+        response.dateTime = dateTime;
+        return response;
+    }
+    
+    static Main newMain(float temperature, float feelsLike, float tempMin, float tempMax, int humidity, int pressure) {
+        Main main = new Main();
+        main.temperature = temperature;
+        main.feelsLike = feelsLike;
+        main.tempMin = tempMin;
+        main.tempMax = tempMax;
+        main.humidity = humidity;
+        main.pressure = pressure;
+        return main;
+    }
+    
+    static Weather newWeather(int id, String main, String description, String icon) {
+        Weather weather = new Weather();
+        weather.id = id;
+        weather.main = main;
+        weather.description = description;
+        weather.icon = icon;
+        return weather;
+    }
+    
+    static Wind newWind(float speed, float degree) {
+        Wind wind = new Wind();
+        wind.speed = speed;
+        wind.degree = degree;
+        return wind;
+    }
+    
+    static Sys newSys(String country, long sunrise, long sunset) {
+        Sys sys = new Sys();
+        sys.country = country;
+        sys.sunrise = sunrise;
+        sys.sunset = sunset;
+        return sys;
+    }
+    
+    static Clouds newClouds(int cloudiness) {
+        Clouds clouds = new Clouds();
+        clouds.cloudiness = cloudiness;
+        return clouds;
+    }
+    
+    public static class Coord {
+        @SerializedName("lat")
+        private double latitude;
+        
+        @SerializedName("lon")
+        private double longitude;
+        
+        public double getLatitude() {
+            return latitude;
+        }
+        
+        public double getLongitude() {
+            return longitude;
+        }
+    }
+    
     public static class Main {
         @SerializedName("temp")
         private float temperature;
@@ -182,4 +286,294 @@ public class WeatherResponse {
             return cloudiness;
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Adaptateur JSON écrit à la main : lit directement le flux JsonReader,
+     * ignore les champs inconnus sans construire d'arbre et n'utilise pas la réflexion.
+     * Les méthodes statiques de lecture/écriture des sous-objets sont réutilisées
+     * par l'adaptateur de ForecastResponse.
+     */
+    static final class StreamingAdapter extends TypeAdapter<WeatherResponse> {
+        
+        @Override
+        public WeatherResponse read(JsonReader in) throws IOException {
+            if (JsonReaders.skipNull(in)) {
+                return null;
+            }
+            WeatherResponse response = new WeatherResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        response.cityId = JsonReaders.nextLong(in);
+                        break;
+                    case "name":
+                        response.cityName = JsonReaders.nextString(in);
+                        break;
+                    case "coord":
+                        response.coord = readCoord(in);
+                        break;
+                    case "main":
+                        response.main = readMain(in);
+                        break;
+                    case "weather":
+                        response.weather = readWeatherList(in);
+                        break;
+                    case "wind":
+                        response.wind = readWind(in);
+                        break;
+                    case "sys":
+                        response.sys = readSys(in);
+                        break;
+                    case "visibility":
+                        response.visibility = JsonReaders.nextInt(in);
+                        break;
+                    case "clouds":
+                        response.clouds = readClouds(in);
+                        break;
+                    case "dt":
+                        response.dateTime = JsonReaders.nextLong(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return response;
+        }
+        
+        @Override
+        public void write(JsonWriter out, WeatherResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(value.cityId);
+            out.name("name").value(value.cityName);
+            if (value.coord != null) {
+                out.name("coord").beginObject()
+                        .name("lat").value(value.coord.latitude)
+                        .name("lon").value(value.coord.longitude)
+                        .endObject();
+            }
+            if (value.main != null) {
+                writeMain(out.name("main"), value.main);
+            }
+            if (value.weather != null) {
+                writeWeatherList(out.name("weather"), value.weather);
+            }
+            if (value.wind != null) {
+                writeWind(out.name("wind"), value.wind);
+            }
+            if (value.sys != null) {
+                out.name("sys").beginObject()
+                        .name("country").value(value.sys.country)
+                        .name("sunrise").value(value.sys.sunrise)
+                        .name("sunset").value(value.sys.sunset)
+                        .endObject();
+            }
+            out.name("visibility").value(value.visibility);
+            if (value.clouds != null) {
+                out.name("clouds").beginObject().name("all").value(value.clouds.cloudiness).endObject();
+            }
+            out.name("dt").value(value.dateTime);
+            out.endObject();
+        }
+        
+        private static Coord readCoord(JsonReader in) throws IOException {
+            if (JsonReaders.skipNull(in)) {
+                return null;
+            }
+            Coord coord = new Coord();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "lat":
+                        coord.latitude = JsonReaders.nextDouble(in);
+                        break;
+                    case "lon":
+                        coord.longitude = JsonReaders.nextDouble(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return coord;
+        }
+        
+        static Main readMain(JsonReader in) throws IOException {
+            if (JsonReaders.skipNull(in)) {
+                return null;
+            }
+            Main main = new Main();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "temp":
+                        main.temperature = JsonReaders.nextFloat(in);
+                        break;
+                    case "humidity":
+                        main.humidity = JsonReaders.nextInt(in);
+                        break;
+                    case "pressure":
+                        main.pressure = JsonReaders.nextInt(in);
+                        break;
+                    case "feels_like":
+                        main.feelsLike = JsonReaders.nextFloat(in);
+                        break;
+                    case "temp_min":
+                        main.tempMin = JsonReaders.nextFloat(in);
+                        break;
+                    case "temp_max":
+                        main.tempMax = JsonReaders.nextFloat(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return main;
+        }
+        
+        static void writeMain(JsonWriter out, Main main) throws IOException {
+            out.beginObject()
+                    .name("temp").value(Float.valueOf(main.temperature))
+                    .name("humidity").value(main.humidity)
+                    .name("pressure").value(main.pressure)
+                    .name("feels_like").value(Float.valueOf(main.feelsLike))
+                    .name("temp_min").value(Float.valueOf(main.tempMin))
+                    .name("temp_max").value(Float.valueOf(main.tempMax))
+                    .endObject();
+        }
+        
+        static List<Weather> readWeatherList(JsonReader in) throws IOException {
+            if (JsonReaders.skipNull(in)) {
+                return null;
+            }
+            // OWM renvoie presque toujours une seule condition : liste de capacité 1
+            List<Weather> list = new ArrayList<>(1);
+            in.beginArray();
+            while (in.hasNext()) {
+                if (JsonReaders.skipNull(in)) {
+                    continue;
+                }
+                Weather weather = new Weather();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "id":
+                            weather.id = JsonReaders.nextInt(in);
+                            break;
+                        case "main":
+                            weather.main = JsonReaders.nextString(in);
+                            break;
+                        case "description":
+                            weather.description = JsonReaders.nextString(in);
+                            break;
+                        case "icon":
+                            weather.icon = JsonReaders.nextString(in);
+                            break;
+                        default:
+                            in.skipValue();
+                            break;
+                    }
+                }
+                in.endObject();
+                list.add(weather);
+            }
+            in.endArray();
+            return list;
+        }
+        
+        static void writeWeatherList(JsonWriter out, List<Weather> list) throws IOException {
+            out.beginArray();
+            for (Weather weather : list) {
+                out.beginObject()
+                        .name("id").value(weather.id)
+                        .name("main").value(weather.main)
+                        .name("description").value(weather.description)
+                        .name("icon").value(weather.icon)
+                        .endObject();
+            }
+            out.endArray();
+        }
+        
+        static Wind readWind(JsonReader in) throws IOException {
+            if (JsonReaders.skipNull(in)) {
+                return null;
+            }
+            Wind wind = new Wind();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "speed":
+                        wind.speed = JsonReaders.nextFloat(in);
+                        break;
+                    case "deg":
+                        wind.degree = JsonReaders.nextFloat(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return wind;
+        }
+        
+        static void writeWind(JsonWriter out, Wind wind) throws IOException {
+            out.beginObject()
+                    .name("speed").value(Float.valueOf(wind.speed))
+                    .name("deg").value(Float.valueOf(wind.degree))
+                    .endObject();
+        }
+        
+        private static Sys readSys(JsonReader in) throws IOException {
+            if (JsonReaders.skipNull(in)) {
+                return null;
+            }
+            Sys sys = new Sys();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "country":
+                        sys.country = JsonReaders.nextString(in);
+                        break;
+                    case "sunrise":
+                        sys.sunrise = JsonReaders.nextLong(in);
+                        break;
+                    case "sunset":
+                        sys.sunset = JsonReaders.nextLong(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return sys;
+        }
+        
+        private static Clouds readClouds(JsonReader in) throws IOException {
+            if (JsonReaders.skipNull(in)) {
+                return null;
+            }
+            Clouds clouds = new Clouds();
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("all".equals(in.nextName())) {
+                    clouds.cloudiness = JsonReaders.nextInt(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return clouds;
+        }
+    }
+}
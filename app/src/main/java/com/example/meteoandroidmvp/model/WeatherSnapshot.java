@@ -0,0 +1,226 @@
+package com.example.meteoandroidmvp.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+
+/**
+ * Dernier écran météo affiché : météo actuelle et prévisions de la même ville
+ * Sérialisé dans un format binaire compact (champs dans un ordre fixe, sans noms ni JSON)
+ * pour être relu en quelques millisecondes au lancement, avant la première image.
+ */
+public class WeatherSnapshot {
+
+    // Signature et version du format ("MWS" + version)
+    private static final int MAGIC = 0x4D575302;
+
+    // Marqueur de chaîne absente
+    private static final int NULL_STRING = -1;
+
+    private final long savedAtMillis;
+    private final WeatherResponse weather;
+    private final ForecastResponse forecast;
+
+    public WeatherSnapshot(long savedAtMillis, WeatherResponse weather, ForecastResponse forecast) {
+        this.savedAtMillis = savedAtMillis;
+        this.weather = weather;
+        this.forecast = forecast;
+    }
+
+    public long getSavedAtMillis() {
+        return savedAtMillis;
+    }
+
+    public WeatherResponse getWeather() {
+        return weather;
+    }
+
+    public ForecastResponse getForecast() {
+        return forecast;
+    }
+
+    /**
+     * Écrit l'instantané dans le flux
+     *
+     * @param sink Flux de sortie (compressé par l'appelant)
+     */
+    public void writeTo(BufferedSink sink) throws IOException {
+        sink.writeInt(MAGIC);
+        sink.writeLong(savedAtMillis);
+
+        // Météo actuelle
+        sink.writeLong(weather.getCityId());
+        writeString(sink, weather.getCityName());
+        WeatherResponse.Coord coord = weather.getCoord();
+        sink.writeLong(Double.doubleToRawLongBits(coord != null ? coord.getLatitude() : 0));
+        sink.writeLong(Double.doubleToRawLongBits(coord != null ? coord.getLongitude() : 0));
+        writeMain(sink, weather.getMain());
+        writeConditions(sink, weather.getWeather());
+        writeWind(sink, weather.getWind());
+        WeatherResponse.Sys sys = weather.getSys();
+        writeString(sink, sys != null ? sys.getCountry() : null);
+        sink.writeLong(sys != null ? sys.getSunrise() : 0);
+        sink.writeLong(sys != null ? sys.getSunset() : 0);
+        sink.writeInt(weather.getVisibility());
+        sink.writeInt(weather.getClouds() != null ? weather.getClouds().getCloudiness() : 0);
+        sink.writeLong(weather.getDateTime());
+
+        // Prévisions
+        ForecastResponse.City city = forecast.getCity();
+        writeString(sink, city != null ? city.getName() : null);
+        writeString(sink, city != null ? city.getCountry() : null);
+        sink.writeLong(city != null ? city.getSunrise() : 0);
+        sink.writeLong(city != null ? city.getSunset() : 0);
+        sink.writeInt(city != null ? city.getTimezoneOffset() : 0);
+        List<ForecastResponse.ForecastItem> items = forecast.getForecastItems();
+        int count = items != null ? items.size() : 0;
+        sink.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            ForecastResponse.ForecastItem item = items.get(i);
+            sink.writeLong(item.getDateTime());
+            writeMain(sink, item.getMain());
+            writeConditions(sink, item.getWeather());
+            sink.writeInt(item.getClouds() != null ? item.getClouds().getCloudiness() : 0);
+            writeWind(sink, item.getWind());
+            sink.writeInt(item.getVisibility());
+            sink.writeInt(Float.floatToRawIntBits(item.getProbabilityOfPrecipitation()));
+            writeString(sink, item.getDateTimeText());
+        }
+    }
+
+    /**
+     * Relit un instantané écrit par {@link #writeTo}
+     *
+     * @param source Flux d'entrée (décompressé par l'appelant)
+     * @return Instantané
+     * @throws IOException si le flux est tronqué ou d'un autre format
+     */
+    public static WeatherSnapshot readFrom(BufferedSource source) throws IOException {
+        if (source.readInt() != MAGIC) {
+            throw new IOException("Format d'instantané inconnu");
+        }
+        long savedAtMillis = source.readLong();
+
+        long cityId = source.readLong();
+        String cityName = readString(source);
+        double latitude = Double.longBitsToDouble(source.readLong());
+        double longitude = Double.longBitsToDouble(source.readLong());
+        WeatherResponse.Main main = readMain(source);
+        List<WeatherResponse.Weather> conditions = readConditions(source);
+        WeatherResponse.Wind wind = readWind(source);
+        WeatherResponse.Sys sys = WeatherResponse.newSys(readString(source), source.readLong(), source.readLong());
+        int visibility = source.readInt();
+        WeatherResponse.Clouds clouds = WeatherResponse.newClouds(source.readInt());
+        long dateTime = source.readLong();
+        WeatherResponse weather = WeatherResponse.create(cityId, cityName, latitude, longitude,
+                main, conditions, wind, sys, visibility, clouds, dateTime);
+
+        String forecastCity = readString(source);
+        String forecastCountry = readString(source);
+        long sunrise = source.readLong();
+        long sunset = source.readLong();
+        int timezoneOffset = source.readInt();
+        int count = source.readInt();
+        if (count < 0) {
+            throw new IOException("Instantané corrompu");
+        }
+        List<ForecastResponse.ForecastItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long itemDateTime = source.readLong();
+            WeatherResponse.Main itemMain = readMain(source);
+            List<WeatherResponse.Weather> itemConditions = readConditions(source);
+            int cloudiness = source.readInt();
+            WeatherResponse.Wind itemWind = readWind(source);
+            int itemVisibility = source.readInt();
+            float pop = Float.intBitsToFloat(source.readInt());
+            String dateTimeText = readString(source);
+            items.add(ForecastResponse.newItem(itemDateTime, itemMain, itemConditions, cloudiness,
+                    itemWind, itemVisibility, pop, dateTimeText));
+        }
+        ForecastResponse forecast = ForecastResponse.create(forecastCity, forecastCountry, sunrise, sunset, timezoneOffset, items);
+
+        return new WeatherSnapshot(savedAtMillis, weather, forecast);
+    }
+
+    private static void writeMain(BufferedSink sink, WeatherResponse.Main main) throws IOException {
+        sink.writeByte(main != null ? 1 : 0);
+        if (main == null) {
+            return;
+        }
+        sink.writeInt(Float.floatToRawIntBits(main.getTemperature()));
+        sink.writeInt(Float.floatToRawIntBits(main.getFeelsLike()));
+        sink.writeInt(Float.floatToRawIntBits(main.getTempMin()));
+        sink.writeInt(Float.floatToRawIntBits(main.getTempMax()));
+        sink.writeInt(main.getHumidity());
+        sink.writeInt(main.getPressure());
+    }
+
+    private static WeatherResponse.Main readMain(BufferedSource source) throws IOException {
+        if (source.readByte() == 0) {
+            return null;
+        }
+        return WeatherResponse.newMain(
+                Float.intBitsToFloat(source.readInt()),
+                Float.intBitsToFloat(source.readInt()),
+                Float.intBitsToFloat(source.readInt()),
+                Float.intBitsToFloat(source.readInt()),
+                source.readInt(),
+                source.readInt());
+    }
+
+    private static void writeConditions(BufferedSink sink, List<WeatherResponse.Weather> conditions) throws IOException {
+        int count = conditions != null ? conditions.size() : 0;
+        sink.writeByte(count);
+        for (int i = 0; i < count; i++) {
+            WeatherResponse.Weather condition = conditions.get(i);
+            sink.writeInt(condition.getId());
+            writeString(sink, condition.getMain());
+            writeString(sink, condition.getDescription());
+            writeString(sink, condition.getIcon());
+        }
+    }
+
+    private static List<WeatherResponse.Weather> readConditions(BufferedSource source) throws IOException {
+        int count = source.readByte() & 0xFF;
+        List<WeatherResponse.Weather> conditions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            conditions.add(WeatherResponse.newWeather(source.readInt(),
+                    readString(source), readString(source), readString(source)));
+        }
+        return conditions;
+    }
+
+    private static void writeWind(BufferedSink sink, WeatherResponse.Wind wind) throws IOException {
+        sink.writeInt(Float.floatToRawIntBits(wind != null ? wind.getSpeed() : 0));
+        sink.writeInt(Float.floatToRawIntBits(wind != null ? wind.getDegree() : 0));
+    }
+
+    private static WeatherResponse.Wind readWind(BufferedSource source) throws IOException {
+        return WeatherResponse.newWind(Float.intBitsToFloat(source.readInt()), Float.intBitsToFloat(source.readInt()));
+    }
+
+    private static void writeString(BufferedSink sink, String value) throws IOException {
+        if (value == null) {
+            sink.writeInt(NULL_STRING);
+            return;
+        }
+        ByteString bytes = ByteString.encodeUtf8(value);
+        sink.writeInt(bytes.size());
+        sink.write(bytes);
+    }
+
+    private static String readString(BufferedSource source) throws IOException {
+        int length = source.readInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Instantané corrompu");
+        }
+        return source.readUtf8(length);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.meteoandroidmvp.presenter;
+
+import com.example.meteoandroidmvp.api.RequestCoalescer;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cycle de vie des requêtes d'un écran
+ * Chaque nouvelle demande ouvre une « génération » sur son canal (météo actuelle ou
+ * prévisions) et annule les requêtes de la génération précédente : une recherche
+ * rapide ne laisse plus une réponse plus ancienne et plus lente écraser la nouvelle.
+ * Les réponses qui arrivent malgré tout pour une génération dépassée sont ignorées.
+ * Le détachement de la vue annule tout ce qui est encore en cours.
+ */
+class RequestLifecycle {
+
+    /**
+     * Données affichées indépendamment par l'écran
+     */
+    enum Channel { WEATHER, FORECAST }
+
+    // Génération courante de chaque canal
+    private final Map<Channel, Integer> generations = new EnumMap<>(Channel.class);
+
+    // Requêtes en cours de la génération courante de chaque canal
+    private final Map<Channel, List<RequestCoalescer.Cancellable>> inFlight = new EnumMap<>(Channel.class);
+
+    // Requêtes abandonnées (remplacées ou vue détachée) et réponses arrivées trop tard
+    private final AtomicLong cancelledRequests = new AtomicLong();
+    private final AtomicLong discardedResponses = new AtomicLong();
+
+    RequestLifecycle() {
+        for (Channel channel : Channel.values()) {
+            generations.put(channel, 0);
+            inFlight.put(channel, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Ouvre une nouvelle génération et abandonne les requêtes de la précédente
+     *
+     * @param channel Canal de la demande
+     * @return Numéro de la nouvelle génération
+     */
+    synchronized int begin(Channel channel) {
+        cancel(channel);
+        int generation = generations.get(channel) + 1;
+        generations.put(channel, generation);
+        return generation;
+    }
+
+    /**
+     * Rattache une requête à sa génération ; l'abandonne tout de suite si celle-ci est déjà dépassée
+     */
+    synchronized void track(Channel channel, int generation, RequestCoalescer.Cancellable request) {
+        if (generations.get(channel) != generation) {
+            if (request.cancel()) {
+                cancelledRequests.incrementAndGet();
+            }
+            return;
+        }
+        inFlight.get(channel).add(request);
+    }
+
+    /**
+     * @return true si la réponse appartient à la génération courante ; sinon elle est comptée comme ignorée
+     */
+    boolean accept(Channel channel, int generation) {
+        synchronized (this) {
+            if (generations.get(channel) == generation) {
+                return true;
+            }
+        }
+        discardedResponses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Abandonne toutes les requêtes en cours ; leurs éventuelles réponses seront ignorées
+     */
+    synchronized void cancelAll() {
+        for (Channel channel : Channel.values()) {
+            cancel(channel);
+            generations.put(channel, generations.get(channel) + 1);
+        }
+    }
+
+    private void cancel(Channel channel) {
+        List<RequestCoalescer.Cancellable> requests = inFlight.get(channel);
+        for (RequestCoalescer.Cancellable request : requests) {
+            if (request.cancel()) {
+                cancelledRequests.incrementAndGet();
+            }
+        }
+        requests.clear();
+    }
+
+    long getCancelledRequestCount() {
+        return cancelledRequests.get();
+    }
+
+    long getDiscardedResponseCount() {
+        return discardedResponses.get();
+    }
+}
@@ -1,37 +1,56 @@
 package com.example.meteoandroidmvp.presenter;
 
-import com.example.meteoandroidmvp.api.ApiClient;
 import com.example.meteoandroidmvp.api.WeatherService;
 import com.example.meteoandroidmvp.contract.WeatherContract;
 import com.example.meteoandroidmvp.model.ForecastResponse;
 import com.example.meteoandroidmvp.model.WeatherResponse;
-import com.example.meteoandroidmvp.utils.Constants;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import com.example.meteoandroidmvp.presenter.RequestLifecycle.Channel;
+import com.example.meteoandroidmvp.repository.DataStream;
+import com.example.meteoandroidmvp.repository.WeatherRepository;
 
 /**
  * Implémentation du présentateur qui gère la logique métier pour l'écran météo
- * Fait le lien entre les données (API) et la vue (fragment)
+ * Fait le lien entre les données (dépôt météo) et la vue (fragment)
  * Selon le pattern MVP, le présentateur contient la logique métier
  * et ne dépend pas des classes Android (Activity, Fragment, etc.)
+ * Chaque recherche remplace l'observation précédente du même canal : la vue suit ensuite
+ * la ville affichée, y compris quand un autre composant en recharge les données.
  */
 public class WeatherPresenter implements WeatherContract.Presenter {
     
     // Référence à la vue (fragment)
     private WeatherContract.View view;
     
-    // Service qui permet d'accéder à l'API météo
-    private final WeatherService weatherService;
+    // Flux de la météo et des prévisions de chaque ville
+    private final WeatherRepository repository;
+    
+    // Requêtes en cours de l'écran, abandonnées quand elles sont remplacées ou que la vue est détachée
+    private final RequestLifecycle lifecycle = new RequestLifecycle();
     
     /**
      * Constructeur du présentateur
-     * Initialise le service API pour les requêtes réseau
+     * Utilise le dépôt partagé (et le service API partagé, préparé au démarrage de l'application)
      */
     public WeatherPresenter() {
-        // Crée le service avec Retrofit via le client API
-        weatherService = ApiClient.getClient().create(WeatherService.class);
+        this(WeatherRepository.getInstance());
+    }
+    
+    /**
+     * Constructeur du présentateur avec un service fourni
+     * 
+     * @param weatherService Service API météo
+     */
+    public WeatherPresenter(WeatherService weatherService) {
+        this(new WeatherRepository(weatherService));
+    }
+    
+    /**
+     * Constructeur du présentateur avec un dépôt fourni
+     * 
+     * @param repository Dépôt météo
+     */
+    public WeatherPresenter(WeatherRepository repository) {
+        this.repository = repository;
     }
     
     /**
@@ -48,80 +67,38 @@ public class WeatherPresenter implements WeatherContract.Presenter {
     /**
      * Détache la vue du présentateur
      * Essentiel pour éviter les fuites mémoire quand le fragment est détruit
+     * Les observations sont arrêtées et les requêtes encore en cours annulées
      */
     @Override
     public void detachView() {
         this.view = null;
+        lifecycle.cancelAll();
+    }
+    
+    /**
+     * @return Nombre de requêtes abandonnées (remplacées par une nouvelle recherche ou vue détachée)
+     */
+    public long getCancelledRequestCount() {
+        return lifecycle.getCancelledRequestCount();
+    }
+    
+    /**
+     * @return Nombre de réponses ignorées parce qu'une recherche plus récente les avait remplacées
+     */
+    public long getDiscardedResponseCount() {
+        return lifecycle.getDiscardedResponseCount();
     }
     
     /**
      * Récupère les données météo actuelles pour une ville spécifiée
+     * Le nom est d'abord résolu en coordonnées (une seule fois par ville),
+     * puis la météo est demandée par position ; la recherche par nom ne sert qu'en secours
      * 
      * @param city Nom de la ville à rechercher
      */
     @Override
     public void getWeatherByCity(String city) {
-        // Afficher l'indicateur de chargement
-        if (view != null) {
-            view.showLoading();
-        }
-        
-        // Préparation de l'appel API avec les paramètres
-        Call<WeatherResponse> call = weatherService.getCurrentWeatherByCity(
-                city,
-                Constants.API_KEY,
-                Constants.UNITS,
-                Constants.LANGUAGE
-        );
-        
-        // Exécution de l'appel API de manière asynchrone
-        call.enqueue(new Callback<WeatherResponse>() {
-            /**
-             * Appelée quand la réponse de l'API est reçue
-             */
-            @Override
-            public void onResponse(Call<WeatherResponse> call, Response<WeatherResponse> response) {
-                // Masquer l'indicateur de chargement
-                if (view != null) {
-                    view.hideLoading();
-                }
-                
-                // Vérifier si la réponse est valide
-                if (response.isSuccessful() && response.body() != null) {
-                    // Succès : mettre à jour la vue avec les données météo
-                    if (view != null) {
-                        view.showWeather(response.body());
-                    }
-                } else {
-                    // Erreur HTTP : afficher un message d'erreur
-                    if (view != null) {
-                        view.showError("Erreur: " + response.code() + " " + response.message());
-                    }
-                }
-            }
-            
-            /**
-             * Appelée en cas d'échec de la requête
-             * Par exemple, si pas de connexion internet
-             */
-            @Override
-            public void onFailure(Call<WeatherResponse> call, Throwable t) {
-                if (view != null) {
-                    view.hideLoading();
-                    
-                    // Créer un message d'erreur approprié selon le type d'erreur
-                    String errorMessage;
-                    if (t instanceof java.net.UnknownHostException) {
-                        // Problème de connectivité internet
-                        errorMessage = "Impossible de se connecter à Internet. Vérifiez votre connexion réseau.";
-                    } else {
-                        // Autre type d'erreur
-                        errorMessage = "Erreur de connexion: " + t.getMessage();
-                    }
-                    view.showError(errorMessage);
-                }
-            }
-        });
+        observeWeather(WeatherRepository.Query.byName(city));
     }
     
     /**
@@ -132,145 +109,138 @@ public class WeatherPresenter implements WeatherContract.Presenter {
      */
     @Override
     public void getWeatherByLocation(double latitude, double longitude) {
-        // Afficher l'indicateur de chargement
-        if (view != null) {
-            view.showLoading();
-        }
-        
-        // Préparation de l'appel API avec les coordonnées
-        Call<WeatherResponse> call = weatherService.getCurrentWeatherByLocation(
-                latitude,
-                longitude,
-                Constants.API_KEY,
-                Constants.UNITS,
-                Constants.LANGUAGE
-        );
-        
-        // Exécution de l'appel API
-        call.enqueue(new Callback<WeatherResponse>() {
-            @Override
-            public void onResponse(Call<WeatherResponse> call, Response<WeatherResponse> response) {
-                if (view != null) {
-                    view.hideLoading();
-                }
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    if (view != null) {
-                        view.showWeather(response.body());
-                    }
-                } else {
-                    if (view != null) {
-                        view.showError("Erreur: " + response.code() + " " + response.message());
-                    }
-                }
-            }
-            
-            @Override
-            public void onFailure(Call<WeatherResponse> call, Throwable t) {
-                if (view != null) {
-                    view.hideLoading();
-                    String errorMessage;
-                    if (t instanceof java.net.UnknownHostException) {
-                        errorMessage = "Impossible de se connecter à Internet. Vérifiez votre connexion réseau.";
-                    } else {
-                        errorMessage = "Erreur de connexion: " + t.getMessage();
-                    }
-                    view.showError(errorMessage);
-                }
-            }
-        });
+        observeWeather(WeatherRepository.Query.byPosition(latitude, longitude));
     }
     
     /**
      * Récupère les prévisions météo sur 5 jours pour une ville spécifiée
+     * Comme pour la météo actuelle, la recherche passe par les coordonnées de la ville
      * Note: N'affiche pas d'indicateur de chargement pour éviter une UI trop chargée
      * 
      * @param city Nom de la ville à rechercher
      */
     @Override
     public void getForecastByCity(String city) {
-        // Préparation de l'appel API
-        Call<ForecastResponse> call = weatherService.getForecastByCity(
-                city,
-                Constants.API_KEY,
-                Constants.UNITS,
-                Constants.LANGUAGE
-        );
+        observeForecast(WeatherRepository.Query.byName(city));
+    }
+    
+    /**
+     * Récupère les prévisions météo sur 5 jours pour une position géographique
+     * 
+     * @param latitude Latitude en degrés décimaux
+     * @param longitude Longitude en degrés décimaux
+     */
+    @Override
+    public void getForecastByLocation(double latitude, double longitude) {
+        observeForecast(WeatherRepository.Query.byPosition(latitude, longitude));
+    }
+    
+    /**
+     * Récupère la météo actuelle et les prévisions d'une ville
+     * Une seule requête One Call une fois la ville géocodée ; si One Call n'est pas disponible
+     * pour la clé API, les deux requêtes habituelles prennent le relais
+     * 
+     * @param city Nom de la ville à rechercher
+     */
+    @Override
+    public void getWeatherAndForecastByCity(String city) {
+        observeBoth(WeatherRepository.Query.byName(city));
+    }
+    
+    /**
+     * Récupère la météo actuelle et les prévisions d'une position
+     * Le nom de la ville la plus proche est retrouvé une fois par cellule, puis une seule
+     * requête One Call suffit ; sinon, les deux requêtes habituelles prennent le relais
+     * 
+     * @param latitude Latitude en degrés décimaux
+     * @param longitude Longitude en degrés décimaux
+     */
+    @Override
+    public void getWeatherAndForecastByLocation(double latitude, double longitude) {
+        observeBoth(WeatherRepository.Query.byPosition(latitude, longitude));
+    }
+    
+    /**
+     * Observe la météo actuelle d'une ville à la place de la précédente
+     */
+    private void observeWeather(WeatherRepository.Query query) {
+        // Afficher l'indicateur de chargement
+        if (view != null) {
+            view.showLoading();
+        }
+        
+        int generation = lifecycle.begin(Channel.WEATHER);
+        lifecycle.track(Channel.WEATHER, generation, repository.weather(query).observe(weatherObserver(generation)));
+    }
+    
+    /**
+     * Observe les prévisions d'une ville à la place des précédentes
+     */
+    private void observeForecast(WeatherRepository.Query query) {
+        int generation = lifecycle.begin(Channel.FORECAST);
+        lifecycle.track(Channel.FORECAST, generation, repository.forecast(query).observe(forecastObserver(generation)));
+    }
+    
+    /**
+     * Observe la météo actuelle et les prévisions d'une ville, chargées ensemble
+     */
+    private void observeBoth(WeatherRepository.Query query) {
+        // Afficher l'indicateur de chargement
+        if (view != null) {
+            view.showLoading();
+        }
         
-        // Exécution de l'appel API
-        call.enqueue(new Callback<ForecastResponse>() {
+        int weatherGeneration = lifecycle.begin(Channel.WEATHER);
+        int forecastGeneration = lifecycle.begin(Channel.FORECAST);
+        WeatherRepository.Observation observation = repository.observe(query,
+                weatherObserver(weatherGeneration), forecastObserver(forecastGeneration));
+        lifecycle.track(Channel.WEATHER, weatherGeneration, observation.getWeather());
+        lifecycle.track(Channel.FORECAST, forecastGeneration, observation.getForecast());
+    }
+    
+    /**
+     * Observateur de la météo actuelle : transmet chaque valeur à la vue
+     * (sauf si une recherche plus récente l'a remplacée entre-temps)
+     */
+    private DataStream.Observer<WeatherResponse> weatherObserver(int generation) {
+        return new DataStream.Observer<WeatherResponse>() {
             @Override
-            public void onResponse(Call<ForecastResponse> call, Response<ForecastResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    if (view != null) {
-                        view.showForecast(response.body());
-                    }
-                } else {
-                    if (view != null) {
-                        view.showError("Erreur prévisions: " + response.code() + " " + response.message());
-                    }
+            public void onValue(WeatherResponse weather) {
+                if (lifecycle.accept(Channel.WEATHER, generation) && view != null) {
+                    view.hideLoading();
+                    view.showWeather(weather);
                 }
             }
             
             @Override
-            public void onFailure(Call<ForecastResponse> call, Throwable t) {
-                if (view != null) {
-                    String errorMessage;
-                    if (t instanceof java.net.UnknownHostException) {
-                        errorMessage = "Impossible de se connecter à Internet pour les prévisions.";
-                    } else {
-                        errorMessage = "Erreur de connexion prévisions: " + t.getMessage();
-                    }
-                    view.showError(errorMessage);
+            public void onError(String message) {
+                if (lifecycle.accept(Channel.WEATHER, generation) && view != null) {
+                    view.hideLoading();
+                    view.showError(message);
                 }
             }
-        });
+        };
     }
     
     /**
-     * Récupère les prévisions météo sur 5 jours pour une position géographique
-     * 
-     * @param latitude Latitude en degrés décimaux
-     * @param longitude Longitude en degrés décimaux
+     * Observateur des prévisions : transmet chaque valeur à la vue
+     * (sauf si une recherche plus récente l'a remplacée entre-temps)
      */
-    @Override
-    public void getForecastByLocation(double latitude, double longitude) {
-        // Préparation de l'appel API
-        Call<ForecastResponse> call = weatherService.getForecastByLocation(
-                latitude,
-                longitude,
-                Constants.API_KEY,
-                Constants.UNITS,
-                Constants.LANGUAGE
-        );
-        
-        // Exécution de l'appel API
-        call.enqueue(new Callback<ForecastResponse>() {
+    private DataStream.Observer<ForecastResponse> forecastObserver(int generation) {
+        return new DataStream.Observer<ForecastResponse>() {
             @Override
-            public void onResponse(Call<ForecastResponse> call, Response<ForecastResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    if (view != null) {
-                        view.showForecast(response.body());
-                    }
-                } else {
-                    if (view != null) {
-                        view.showError("Erreur prévisions: " + response.code() + " " + response.message());
-                    }
+            public void onValue(ForecastResponse forecast) {
+                if (lifecycle.accept(Channel.FORECAST, generation) && view != null) {
+                    view.showForecast(forecast);
                 }
             }
             
             @Override
-            public void onFailure(Call<ForecastResponse> call, Throwable t) {
-                if (view != null) {
-                    String errorMessage;
-                    if (t instanceof java.net.UnknownHostException) {
-                        errorMessage = "Impossible de se connecter à Internet pour les prévisions.";
-                    } else {
-                        errorMessage = "Erreur de connexion prévisions: " + t.getMessage();
-                    }
-                    view.showError(errorMessage);
+            public void onError(String message) {
+                if (lifecycle.accept(Channel.FORECAST, generation) && view != null) {
+                    view.showError(message);
                 }
             }
-        });
+        };
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,808 @@
+package com.example.meteoandroidmvp.repository;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.meteoandroidmvp.model.GeoLocation;
+import com.example.meteoandroidmvp.utils.CityNames;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Répertoire hors ligne des villes, pour l'autocomplétion du champ de recherche
+ * La liste (fichier « cities.tsv.gz » des assets : identifiant OpenWeatherMap, nom, pays,
+ * latitude, longitude, population) est un échantillon d'environ 165 grandes villes,
+ * surtout françaises et francophones ; seule une vingtaine a son identifiant OpenWeatherMap,
+ * les autres ont 0. Un extrait complet de city.list au même format s'y substitue tel quel,
+ * sans changement de code. La liste est chargée à la première recherche dans un arbre
+ * des préfixes stocké en tableaux. Chaque nœud des premiers niveaux garde les villes les
+ * plus peuplées de son sous-arbre : une suggestion ne parcourt que les lettres saisies.
+ * Les villes choisies récemment passent devant, quelle que soit leur population.
+ * Un nom est indexé à partir de chacun de ses mots : « etienne » trouve « Saint-Étienne ».
+ * Un index des trigrammes des noms permet aussi de corriger une faute de frappe
+ * (distance d'édition) avant d'envoyer une recherche vouée au 404.
+ * Un arbre k-d des positions retrouve enfin la ville la plus proche d'une position GPS,
+ * sans géocodage inverse.
+ */
+public class CityGazetteer {
+
+    private static final String TAG = "CityGazetteer";
+
+    private static final String ASSET_NAME = "cities.tsv.gz";
+
+    // Villes choisies récemment (les plus récentes en premier)
+    private static final String PREFS_NAME = "CityGazetteer";
+    private static final String KEY_RECENT = "recent";
+    private static final int MAX_RECENT = 50;
+
+    // Nombre de villes mémorisées par nœud, et profondeur jusqu'à laquelle elles le sont
+    // (plus bas, les sous-arbres sont assez petits pour être parcourus)
+    private static final int TOP_SIZE = 8;
+    private static final int TOP_DEPTH = 4;
+
+    public static final int MAX_SUGGESTIONS = 5;
+
+    // Au-delà, la position est attribuée à une ville absente du répertoire (géocodage inverse) ;
+    // avec l'échantillon livré, seules les positions proches d'une grande ville sont résolues ici
+    private static final double MAX_NEAREST_KM = 15;
+
+    // Nombre de trigrammes qu'une seule faute peut changer (quatre pour deux lettres inversées)
+    private static final int GRAMS_PER_EDIT = 4;
+
+    private static final CityGazetteer INSTANCE = new CityGazetteer();
+
+    private Context context = null;
+
+    // Vrai une fois le répertoire chargé (lu sans verrou par les méthodes qui ne doivent pas attendre)
+    private volatile boolean loaded = false;
+
+    // Villes, triées par population décroissante, et clé de recherche de leur nom
+    private City[] cities = null;
+    private String[] keys;
+
+    // Arbre des préfixes : lettre, premier fils et frère suivant de chaque nœud (0 = racine)
+    private char[] labels;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int nodeCount;
+
+    // Villes dont un mot commence au nœud (chaînées par entryNext)
+    private int[] firstEntry;
+    private int[] entryCity;
+    private int[] entryNext;
+    private int entryCount;
+
+    // Villes les plus peuplées du sous-arbre, TOP_SIZE cases par nœud des premiers niveaux (-1 = vide)
+    private int[] topStart;
+    private int[] top;
+    private int topCount;
+
+    // Trigrammes des noms complets → villes qui les contiennent (par population décroissante)
+    private Map<Long, int[]> trigrams;
+
+    // Positions des villes
+    private CityKdTree positions;
+
+    // Compteurs de trigrammes communs, réutilisés d'une correction à l'autre
+    private int[] sharedGrams;
+
+    // Clés (nom normalisé + pays) des villes choisies récemment
+    private final LinkedList<String> recent = new LinkedList<>();
+
+    // Corrections retenues à la place d'une recherche vouée au 404
+    private final AtomicLong avoidedNotFound = new AtomicLong();
+
+    /**
+     * Ville du répertoire
+     */
+    public static final class City {
+        private final long id;
+        private final String name;
+        private final String country;
+        private final double latitude;
+        private final double longitude;
+        private final long population;
+
+        City(long id, String name, String country, double latitude, double longitude, long population) {
+            this.id = id;
+            this.name = name;
+            this.country = country;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.population = population;
+        }
+
+        /**
+         * @return Identifiant OpenWeatherMap de la ville, 0 s'il n'est pas connu
+         */
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getCountry() {
+            return country;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public long getPopulation() {
+            return population;
+        }
+
+        /**
+         * @return Nom affiché et saisi dans le champ de recherche ("Lyon, FR")
+         */
+        public String getDisplayName() {
+            return name + ", " + country;
+        }
+
+        /**
+         * @return Position de la ville, au format du géocodage
+         */
+        public GeoLocation toGeoLocation() {
+            return new GeoLocation(name, country, latitude, longitude);
+        }
+
+        String recentKey() {
+            return CityNames.searchKey(name) + "," + country.toLowerCase(Locale.ROOT);
+        }
+
+        @Override
+        public String toString() {
+            return getDisplayName();
+        }
+    }
+
+    private CityGazetteer() {
+    }
+
+    public static CityGazetteer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Mémorise le contexte ; le répertoire n'est chargé qu'à la première recherche
+     *
+     * @param context Contexte Android
+     */
+    public synchronized void init(Context context) {
+        if (this.context == null) {
+            this.context = context.getApplicationContext();
+        }
+    }
+
+    /**
+     * Charge le répertoire en arrière-plan, pour que les premières suggestions et
+     * corrections n'aient pas à l'attendre
+     */
+    public void preload() {
+        if (loaded) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            synchronized (this) {
+                ensureLoaded();
+            }
+        }, "city-gazetteer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        thread.start();
+    }
+
+    /**
+     * Villes dont le nom, ou un mot du nom, commence par le texte saisi
+     * À appeler hors du thread principal : la première recherche charge le répertoire.
+     *
+     * @param prefix Texte saisi
+     * @param limit Nombre maximal de suggestions
+     * @return Villes choisies récemment d'abord, puis par population décroissante
+     */
+    public synchronized List<City> suggest(String prefix, int limit) {
+        String key = CityNames.searchKey(prefix);
+        if (key.isEmpty() || limit <= 0 || !ensureLoaded()) {
+            return Collections.emptyList();
+        }
+
+        int node = find(key);
+        if (node < 0) {
+            return Collections.emptyList();
+        }
+
+        List<City> suggestions = new ArrayList<>(limit);
+        for (String recentKey : recent) {
+            if (suggestions.size() == limit) {
+                return suggestions;
+            }
+            City city = findRecent(recentKey, key);
+            if (city != null && !suggestions.contains(city)) {
+                suggestions.add(city);
+            }
+        }
+
+        for (int index : candidates(node, limit + suggestions.size())) {
+            if (suggestions.size() == limit) {
+                break;
+            }
+            if (!suggestions.contains(cities[index])) {
+                suggestions.add(cities[index]);
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * Fait passer une ville en tête des suggestions suivantes
+     *
+     * @param city Ville choisie dans les suggestions
+     */
+    public synchronized void recordSelection(City city) {
+        String key = city.recentKey();
+        recent.remove(key);
+        recent.addFirst(key);
+        while (recent.size() > MAX_RECENT) {
+            recent.removeLast();
+        }
+        if (context != null) {
+            context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                    .putString(KEY_RECENT, String.join("\n", recent))
+                    .apply();
+        }
+    }
+
+    /**
+     * Ville dont le nom est exactement celui saisi (accents, casse et ponctuation ignorés)
+     * Ne bloque jamais : répond null tant que le répertoire n'est pas chargé.
+     *
+     * @param typed Nom saisi, éventuellement suivi du pays ("Lyon" ou "Lyon, FR")
+     * @return Ville la plus peuplée portant ce nom, ou null
+     */
+    public City lookup(String typed) {
+        if (!loaded) {
+            return null;
+        }
+        String[] query = splitCountry(typed);
+        synchronized (this) {
+            int node = find(query[0]);
+            if (query[0].isEmpty() || node < 0) {
+                return null;
+            }
+            int best = -1;
+            for (int e = firstEntry[node]; e >= 0; e = entryNext[e]) {
+                int index = entryCity[e];
+                if ((best < 0 || index < best) && keys[index].equals(query[0])
+                        && (query[1] == null || cities[index].country.equalsIgnoreCase(query[1]))) {
+                    best = index;
+                }
+            }
+            return best >= 0 ? cities[best] : null;
+        }
+    }
+
+    /**
+     * Villes dont le nom est proche du nom saisi, pour corriger une faute de frappe
+     * Les candidats partagent assez de trigrammes avec la saisie pour être à moins de
+     * quelques fautes ; seuls ceux dont la distance d'édition (transpositions comprises)
+     * reste sous le seuil sont gardés. Aucune correction pour un nom connu ou trop court.
+     * Ne bloque jamais : répond une liste vide tant que le répertoire n'est pas chargé.
+     * Une simple proposition n'est pas comptée : voir {@link #recordCorrection()}.
+     *
+     * @param typed Nom saisi, éventuellement suivi du pays
+     * @param limit Nombre maximal de corrections
+     * @return Corrections, de la plus proche à la plus lointaine puis par population décroissante
+     */
+    public List<City> corrections(String typed, int limit) {
+        if (!loaded || limit <= 0) {
+            return Collections.emptyList();
+        }
+        String[] query = splitCountry(typed);
+        int maxDistance = maxDistance(query[0].length());
+        if (maxDistance == 0) {
+            return Collections.emptyList();
+        }
+
+        synchronized (this) {
+            return nearest(query[0], query[1], maxDistance, limit);
+        }
+    }
+
+    /**
+     * Compte une correction effectivement utilisée à la place du nom saisi
+     * (résolution automatique, ou ville choisie parmi les corrections proposées)
+     */
+    public void recordCorrection() {
+        avoidedNotFound.incrementAndGet();
+    }
+
+    /**
+     * Ville du répertoire la plus proche d'une position
+     * Ne bloque jamais : répond null tant que le répertoire n'est pas chargé.
+     *
+     * @param latitude Latitude en degrés décimaux
+     * @param longitude Longitude en degrés décimaux
+     * @return Ville la plus proche à moins de 15 km, ou null
+     */
+    public City nearest(double latitude, double longitude) {
+        if (!loaded) {
+            return null;
+        }
+        synchronized (this) {
+            int index = positions.nearest(latitude, longitude, MAX_NEAREST_KM);
+            return index >= 0 ? cities[index] : null;
+        }
+    }
+
+    /**
+     * @return Nombre de villes du répertoire (0 s'il n'est pas encore chargé)
+     */
+    public int size() {
+        return loaded ? cities.length : 0;
+    }
+
+    /**
+     * @return Nombre de corrections utilisées à la place d'une recherche qui aurait échoué en 404
+     */
+    public long getAvoidedNotFoundCount() {
+        return avoidedNotFound.get();
+    }
+
+    private boolean ensureLoaded() {
+        if (cities != null) {
+            return true;
+        }
+        if (context == null) {
+            return false;
+        }
+
+        long start = SystemClock.elapsedRealtime();
+        List<City> parsed = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(context.getAssets().open(ASSET_NAME)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                City city = parse(line);
+                if (city != null) {
+                    parsed.add(city);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Répertoire des villes illisible", e);
+            build(new City[0]);
+            loaded = true;
+            return true;
+        }
+
+        SharedPreferences preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String saved = preferences.getString(KEY_RECENT, "");
+        if (!saved.isEmpty()) {
+            recent.addAll(Arrays.asList(saved.split("\n")));
+        }
+        load(parsed);
+
+        Log.d(TAG, cities.length + " villes, " + nodeCount + " nœuds chargés en "
+                + (SystemClock.elapsedRealtime() - start) + " ms");
+        return true;
+    }
+
+    /**
+     * Construit le répertoire à partir d'une liste de villes, dans n'importe quel ordre
+     * (appelé au chargement, ou directement par les tests)
+     */
+    synchronized void load(List<City> list) {
+        City[] sorted = list.toArray(new City[0]);
+        Arrays.sort(sorted, (a, b) -> Long.compare(b.population, a.population));
+        build(sorted);
+        loaded = true;
+    }
+
+    private static City parse(String line) {
+        String[] fields = line.split("\t");
+        if (fields.length < 6 || fields[1].isEmpty()) {
+            return null;
+        }
+        try {
+            return new City(Long.parseLong(fields[0]), fields[1], fields[2],
+                    Double.parseDouble(fields[3]), Double.parseDouble(fields[4]), Long.parseLong(fields[5]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Construit l'arbre ; les villes arrivent par population décroissante, si bien que
+     * les premières à passer par un nœud sont les plus peuplées de son sous-arbre
+     */
+    private void build(City[] sorted) {
+        int capacity = Math.max(16, sorted.length * 8);
+        labels = new char[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        firstEntry = new int[capacity];
+        topStart = new int[capacity];
+        entryCity = new int[Math.max(16, sorted.length * 2)];
+        entryNext = new int[entryCity.length];
+        top = new int[TOP_SIZE * 64];
+        nodeCount = 0;
+        entryCount = 0;
+        topCount = 0;
+        newNode('\0', 0);
+        keys = new String[sorted.length];
+        Map<Long, IntList> postings = new HashMap<>();
+
+        for (int index = 0; index < sorted.length; index++) {
+            String key = CityNames.searchKey(sorted[index].name);
+            keys[index] = key;
+            for (long gram : trigrams(key)) {
+                IntList list = postings.get(gram);
+                if (list == null) {
+                    list = new IntList();
+                    postings.put(gram, list);
+                }
+                list.addIfLast(index);
+            }
+            for (int start = 0; start < key.length(); start = key.indexOf(' ', start) + 1) {
+                if (key.charAt(start) != ' ') {
+                    insert(key, start, index);
+                }
+                if (key.indexOf(' ', start) < 0) {
+                    break;
+                }
+            }
+        }
+
+        trigrams = new HashMap<>(postings.size() * 2);
+        for (Map.Entry<Long, IntList> posting : postings.entrySet()) {
+            trigrams.put(posting.getKey(), posting.getValue().toArray());
+        }
+        sharedGrams = new int[sorted.length];
+
+        double[] latitudes = new double[sorted.length];
+        double[] longitudes = new double[sorted.length];
+        for (int index = 0; index < sorted.length; index++) {
+            latitudes[index] = sorted[index].latitude;
+            longitudes[index] = sorted[index].longitude;
+        }
+        positions = new CityKdTree(latitudes, longitudes);
+        cities = sorted;
+    }
+
+    private void insert(String key, int start, int city) {
+        int node = 0;
+        for (int i = start; i < key.length(); i++) {
+            node = child(node, key.charAt(i), i - start + 1);
+            addTop(node, city);
+        }
+        if (entryCount == entryCity.length) {
+            entryCity = Arrays.copyOf(entryCity, entryCount * 2);
+            entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+        }
+        entryCity[entryCount] = city;
+        entryNext[entryCount] = firstEntry[node];
+        firstEntry[node] = entryCount++;
+    }
+
+    private int child(int node, char label, int depth) {
+        int previous = -1;
+        for (int c = firstChild[node]; c >= 0; c = nextSibling[c]) {
+            if (labels[c] == label) {
+                return c;
+            }
+            previous = c;
+        }
+        int created = newNode(label, depth);
+        if (previous < 0) {
+            firstChild[node] = created;
+        } else {
+            nextSibling[previous] = created;
+        }
+        return created;
+    }
+
+    private int newNode(char label, int depth) {
+        if (nodeCount == labels.length) {
+            int capacity = nodeCount * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            firstEntry = Arrays.copyOf(firstEntry, capacity);
+            topStart = Arrays.copyOf(topStart, capacity);
+        }
+        int node = nodeCount++;
+        labels[node] = label;
+        firstChild[node] = -1;
+        nextSibling[node] = -1;
+        firstEntry[node] = -1;
+        topStart[node] = -1;
+        if (depth > 0 && depth <= TOP_DEPTH) {
+            if (topCount + TOP_SIZE > top.length) {
+                top = Arrays.copyOf(top, top.length * 2);
+            }
+            topStart[node] = topCount;
+            Arrays.fill(top, topCount, topCount + TOP_SIZE, -1);
+            topCount += TOP_SIZE;
+        }
+        return node;
+    }
+
+    private void addTop(int node, int city) {
+        int start = topStart[node];
+        if (start < 0) {
+            return;
+        }
+        for (int i = start; i < start + TOP_SIZE; i++) {
+            if (top[i] == city) {
+                return;
+            }
+            if (top[i] < 0) {
+                top[i] = city;
+                return;
+            }
+        }
+    }
+
+    private int find(String key) {
+        int node = 0;
+        for (int i = 0; i < key.length() && node >= 0; i++) {
+            int c = firstChild[node];
+            while (c >= 0 && labels[c] != key.charAt(i)) {
+                c = nextSibling[c];
+            }
+            node = c;
+        }
+        return node;
+    }
+
+    /**
+     * @return Index des villes les plus peuplées sous le nœud, par population décroissante
+     */
+    private int[] candidates(int node, int limit) {
+        if (topStart[node] >= 0) {
+            int start = topStart[node];
+            int end = start;
+            while (end < start + TOP_SIZE && top[end] >= 0) {
+                end++;
+            }
+            return Arrays.copyOfRange(top, start, end);
+        }
+
+        // Nœud profond : sous-arbre parcouru en entier
+        List<Integer> found = new ArrayList<>();
+        collect(node, found);
+        Collections.sort(found);
+        int[] result = new int[Math.min(limit, found.size())];
+        int size = 0;
+        for (int index : found) {
+            if (size == result.length) {
+                break;
+            }
+            if (size == 0 || result[size - 1] != index) {
+                result[size++] = index;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private void collect(int node, List<Integer> found) {
+        for (int e = firstEntry[node]; e >= 0; e = entryNext[e]) {
+            found.add(entryCity[e]);
+        }
+        for (int c = firstChild[node]; c >= 0; c = nextSibling[c]) {
+            collect(c, found);
+        }
+    }
+
+    /**
+     * @return Ville choisie récemment si son nom correspond au texte saisi, sinon null
+     */
+    private City findRecent(String recentKey, String key) {
+        int comma = recentKey.lastIndexOf(',');
+        if (comma < 0) {
+            return null;
+        }
+        String name = recentKey.substring(0, comma);
+        String country = recentKey.substring(comma + 1);
+        if (!name.startsWith(key) && !name.contains(" " + key)) {
+            return null;
+        }
+        int node = find(name);
+        if (node < 0) {
+            return null;
+        }
+        for (int e = firstEntry[node]; e >= 0; e = entryNext[e]) {
+            City city = cities[entryCity[e]];
+            if (city.country.equalsIgnoreCase(country) && CityNames.searchKey(city.name).equals(name)) {
+                return city;
+            }
+        }
+        return null;
+    }
+
+    private List<City> nearest(String key, String country, int maxDistance, int limit) {
+        long[] grams = trigrams(key);
+        int threshold = grams.length - GRAMS_PER_EDIT * maxDistance;
+        if (threshold < 1) {
+            threshold = 1;
+        }
+
+        // Villes partageant au moins « threshold » trigrammes avec la saisie
+        IntList touched = new IntList();
+        for (long gram : grams) {
+            int[] posting = trigrams.get(gram);
+            if (posting == null) {
+                continue;
+            }
+            for (int index : posting) {
+                if (sharedGrams[index]++ == 0) {
+                    touched.addIfLast(index);
+                }
+            }
+        }
+
+        List<int[]> found = new ArrayList<>();
+        for (int i = 0; i < touched.size; i++) {
+            int index = touched.values[i];
+            boolean candidate = sharedGrams[index] >= threshold;
+            sharedGrams[index] = 0;
+            if (!candidate || Math.abs(keys[index].length() - key.length()) > maxDistance
+                    || (country != null && !cities[index].country.equalsIgnoreCase(country))) {
+                continue;
+            }
+            int distance = editDistance(key, keys[index], maxDistance);
+            if (distance == 0) {
+                // Nom connu : rien à corriger
+                for (i++; i < touched.size; i++) {
+                    sharedGrams[touched.values[i]] = 0;
+                }
+                return Collections.emptyList();
+            }
+            if (distance <= maxDistance) {
+                found.add(new int[]{distance, index});
+            }
+        }
+
+        found.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+        List<City> corrections = new ArrayList<>(Math.min(limit, found.size()));
+        for (int[] match : found) {
+            if (corrections.size() == limit) {
+                break;
+            }
+            if (!corrections.contains(cities[match[1]])) {
+                corrections.add(cities[match[1]]);
+            }
+        }
+        return corrections;
+    }
+
+    /**
+     * @return Nombre de fautes tolérées selon la longueur du nom (aucune pour moins de 4 lettres)
+     */
+    private static int maxDistance(int length) {
+        if (length < 4) {
+            return 0;
+        }
+        if (length <= 5) {
+            return 1;
+        }
+        return length <= 9 ? 2 : 3;
+    }
+
+    /**
+     * Distance d'édition (insertions, suppressions, substitutions et transpositions de
+     * deux lettres voisines), arrêtée dès qu'elle dépasse le seuil
+     *
+     * @return Distance, ou max + 1 si elle dépasse max
+     */
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    /**
+     * @return Trigrammes distincts de la clé, bornée par un espace de chaque côté
+     *         (trois caractères de 16 bits dans un long)
+     */
+    private static long[] trigrams(String key) {
+        String padded = " " + key + " ";
+        long[] grams = new long[Math.max(0, padded.length() - 2)];
+        int count = 0;
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            long gram = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+            boolean seen = false;
+            for (int j = 0; j < count && !seen; j++) {
+                seen = grams[j] == gram;
+            }
+            if (!seen) {
+                grams[count++] = gram;
+            }
+        }
+        return Arrays.copyOf(grams, count);
+    }
+
+    /**
+     * @return Clé de recherche du nom et code pays éventuel ("Lyon, FR" → "lyon", "fr")
+     */
+    private static String[] splitCountry(String typed) {
+        String normalized = CityNames.normalize(typed);
+        int comma = normalized.lastIndexOf(',');
+        if (comma < 0) {
+            return new String[]{CityNames.searchKey(normalized), null};
+        }
+        String country = normalized.substring(comma + 1).trim();
+        return new String[]{CityNames.searchKey(normalized.substring(0, comma)),
+                country.isEmpty() ? null : country};
+    }
+
+    /**
+     * Liste d'entiers extensible, sans emballage
+     */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void addIfLast(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
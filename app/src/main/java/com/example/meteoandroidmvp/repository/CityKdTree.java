@@ -0,0 +1,162 @@
+package com.example.meteoandroidmvp.repository;
+
+/**
+ * Arbre k-d des positions des villes, pour retrouver la plus proche d'une position
+ * Chaque ville est un point de la sphère unité (x, y, z) : la distance en ligne droite
+ * entre deux points croît avec la distance sur le globe, sans cas particulier près des
+ * pôles ni de l'antiméridien. L'arbre est implicite : dans chaque tranche du tableau,
+ * la ville du milieu sépare les deux moitiés selon l'axe x, y ou z (à tour de rôle).
+ */
+class CityKdTree {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    // Coordonnées des points, dans l'ordre de l'arbre
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+
+    // Index de la ville de chaque point
+    private final int[] cities;
+
+    // Recherche en cours (l'arbre est interrogé sous le verrou du répertoire)
+    private double queryX;
+    private double queryY;
+    private double queryZ;
+    private double bestDistance;
+    private int best;
+
+    /**
+     * @param latitudes Latitude de chaque ville, en degrés décimaux
+     * @param longitudes Longitude de chaque ville, en degrés décimaux
+     */
+    CityKdTree(double[] latitudes, double[] longitudes) {
+        int count = latitudes.length;
+        xs = new double[count];
+        ys = new double[count];
+        zs = new double[count];
+        cities = new int[count];
+        for (int i = 0; i < count; i++) {
+            double latitude = Math.toRadians(latitudes[i]);
+            double longitude = Math.toRadians(longitudes[i]);
+            xs[i] = Math.cos(latitude) * Math.cos(longitude);
+            ys[i] = Math.cos(latitude) * Math.sin(longitude);
+            zs[i] = Math.sin(latitude);
+            cities[i] = i;
+        }
+        build(0, count, 0);
+    }
+
+    /**
+     * @param latitude Latitude en degrés décimaux
+     * @param longitude Longitude en degrés décimaux
+     * @param maxKm Distance maximale sur le globe
+     * @return Index de la ville la plus proche à moins de maxKm, ou -1
+     */
+    int nearest(double latitude, double longitude, double maxKm) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        queryX = Math.cos(lat) * Math.cos(lon);
+        queryY = Math.cos(lat) * Math.sin(lon);
+        queryZ = Math.sin(lat);
+        double chord = 2 * Math.sin(Math.min(maxKm / EARTH_RADIUS_KM, Math.PI) / 2);
+        bestDistance = chord * chord;
+        best = -1;
+        search(0, cities.length, 0);
+        return best;
+    }
+
+    private void search(int from, int to, int axis) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        double dx = xs[mid] - queryX;
+        double dy = ys[mid] - queryY;
+        double dz = zs[mid] - queryZ;
+        double distance = dx * dx + dy * dy + dz * dz;
+        // À égalité, la ville la plus peuplée (index le plus petit) l'emporte
+        if (distance < bestDistance || (distance == bestDistance && best >= 0 && cities[mid] < best)) {
+            bestDistance = distance;
+            best = cities[mid];
+        }
+
+        double delta = coordinate(mid, axis) - coordinate(axis);
+        int next = (axis + 1) % 3;
+        // Moitié du côté de la position d'abord, l'autre seulement si elle peut faire mieux
+        if (delta > 0) {
+            search(from, mid, next);
+            if (delta * delta <= bestDistance) {
+                search(mid + 1, to, next);
+            }
+        } else {
+            search(mid + 1, to, next);
+            if (delta * delta <= bestDistance) {
+                search(from, mid, next);
+            }
+        }
+    }
+
+    /**
+     * Place la médiane de la tranche au milieu, les points plus petits avant, les plus grands après
+     */
+    private void build(int from, int to, int axis) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        select(from, to - 1, mid, axis);
+        int next = (axis + 1) % 3;
+        build(from, mid, next);
+        build(mid + 1, to, next);
+    }
+
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            double pivot = coordinate((left + right) >>> 1, axis);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinate(i, axis) < pivot) {
+                    i++;
+                }
+                while (coordinate(j, axis) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private double coordinate(int point, int axis) {
+        return axis == 0 ? xs[point] : axis == 1 ? ys[point] : zs[point];
+    }
+
+    private double coordinate(int axis) {
+        return axis == 0 ? queryX : axis == 1 ? queryY : queryZ;
+    }
+
+    private void swap(int a, int b) {
+        double x = xs[a];
+        xs[a] = xs[b];
+        xs[b] = x;
+        double y = ys[a];
+        ys[a] = ys[b];
+        ys[b] = y;
+        double z = zs[a];
+        zs[a] = zs[b];
+        zs[b] = z;
+        int city = cities[a];
+        cities[a] = cities[b];
+        cities[b] = city;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.meteoandroidmvp.repository;
+
+import com.example.meteoandroidmvp.api.RequestCoalescer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * Flux observable d'une donnée (météo actuelle ou prévisions d'une ville)
+ * Un nouvel observateur reçoit aussitôt la dernière valeur connue, puis les suivantes ;
+ * deux valeurs successives identiques ne sont transmises qu'une fois.
+ * La source est partagée par tous les observateurs : elle est sollicitée à chaque
+ * inscription (sans requête si un chargement est déjà en cours) et abandonnée quand
+ * le dernier observateur se désinscrit.
+ * Les observateurs sont appelés sur le thread qui publie la valeur : celui de la réponse
+ * réseau, ou celui de l'inscription pour la dernière valeur connue.
+ *
+ * @param <T> Type de la donnée
+ */
+public final class DataStream<T> {
+
+    /**
+     * Observateur du flux
+     */
+    public interface Observer<T> {
+        /**
+         * @param value Nouvelle valeur (ou dernière valeur connue, à l'inscription)
+         */
+        void onValue(T value);
+
+        /**
+         * @param message Message d'erreur à afficher ; la dernière valeur connue reste valable
+         */
+        void onError(String message);
+    }
+
+    /**
+     * Source des valeurs du flux
+     */
+    interface Upstream {
+        /**
+         * Un observateur vient de s'inscrire : charger la donnée si rien n'est en cours
+         */
+        void onObserved(DataStream<?> stream);
+
+        /**
+         * Le dernier observateur s'est désinscrit
+         *
+         * @return true si une requête en cours a été abandonnée
+         */
+        boolean onUnobserved(DataStream<?> stream);
+    }
+
+    private final Upstream upstream;
+
+    // Deux valeurs considérées comme identiques (même observation)
+    private final BiPredicate<T, T> sameValue;
+
+    private final List<Observer<T>> observers = new ArrayList<>();
+
+    // Dernière valeur publiée, rejouée aux nouveaux observateurs
+    private T latest;
+
+    DataStream(Upstream upstream, BiPredicate<T, T> sameValue) {
+        this.upstream = upstream;
+        this.sameValue = sameValue;
+    }
+
+    /**
+     * Inscrit un observateur
+     *
+     * @param observer Observateur
+     * @return Désinscription ; true si elle a abandonné la requête en cours
+     */
+    public RequestCoalescer.Cancellable observe(Observer<T> observer) {
+        T replay;
+        synchronized (this) {
+            observers.add(observer);
+            replay = latest;
+        }
+        if (replay != null) {
+            observer.onValue(replay);
+        }
+        upstream.onObserved(this);
+        return () -> unobserve(observer);
+    }
+
+    /**
+     * @return Dernière valeur connue, ou null
+     */
+    public synchronized T getLatest() {
+        return latest;
+    }
+
+    synchronized boolean hasObservers() {
+        return !observers.isEmpty();
+    }
+
+    /**
+     * Transmet une valeur aux observateurs, sauf si elle est identique à la précédente
+     */
+    void publish(T value) {
+        List<Observer<T>> targets;
+        synchronized (this) {
+            if (latest != null && sameValue.test(latest, value)) {
+                return;
+            }
+            latest = value;
+            targets = new ArrayList<>(observers);
+        }
+        for (Observer<T> observer : targets) {
+            observer.onValue(value);
+        }
+    }
+
+    /**
+     * Transmet une erreur aux observateurs (elle n'est pas rejouée aux suivants)
+     */
+    void publishError(String message) {
+        List<Observer<T>> targets;
+        synchronized (this) {
+            targets = new ArrayList<>(observers);
+        }
+        for (Observer<T> observer : targets) {
+            observer.onError(message);
+        }
+    }
+
+    /**
+     * Oublie la dernière valeur (le prochain observateur attendra le chargement)
+     */
+    synchronized void forget() {
+        latest = null;
+    }
+
+    private boolean unobserve(Observer<T> observer) {
+        boolean last;
+        synchronized (this) {
+            if (!observers.remove(observer)) {
+                return false;
+            }
+            last = observers.isEmpty();
+        }
+        return last && upstream.onUnobserved(this);
+    }
+}
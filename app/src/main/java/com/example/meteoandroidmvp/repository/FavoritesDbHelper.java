@@ -0,0 +1,57 @@
+package com.example.meteoandroidmvp.repository;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * Base SQLite des villes favorites
+ * Une ligne par favori : un ajout, une mise à jour ou une suppression ne touche
+ * qu'une ligne, au lieu de réécrire toute la liste.
+ */
+class FavoritesDbHelper extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "favorites.db";
+    private static final int DATABASE_VERSION = 1;
+
+    static final String TABLE = "favorites";
+
+    // Colonnes
+    static final String COLUMN_ID = "_id";
+    static final String COLUMN_NAME_KEY = "name_key";
+    static final String COLUMN_CITY_ID = "city_id";
+    static final String COLUMN_NAME = "name";
+    static final String COLUMN_COUNTRY = "country";
+    static final String COLUMN_LAST_UPDATE = "last_update";
+    static final String COLUMN_LATITUDE = "latitude";
+    static final String COLUMN_LONGITUDE = "longitude";
+    static final String COLUMN_FROM_LOCATION = "from_location";
+
+    FavoritesDbHelper(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        // _id conserve l'ordre d'ajout, qui est l'ordre d'affichage
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + COLUMN_NAME_KEY + " TEXT NOT NULL, "
+                + COLUMN_CITY_ID + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_NAME + " TEXT NOT NULL, "
+                + COLUMN_COUNTRY + " TEXT, "
+                + COLUMN_LAST_UPDATE + " INTEGER, "
+                + COLUMN_LATITUDE + " REAL NOT NULL DEFAULT 0, "
+                + COLUMN_LONGITUDE + " REAL NOT NULL DEFAULT 0, "
+                + COLUMN_FROM_LOCATION + " INTEGER NOT NULL DEFAULT 0)");
+        // Recherche par nom normalisé (unique : un favori par ville) et par position
+        db.execSQL("CREATE UNIQUE INDEX index_favorites_name_key ON " + TABLE + " (" + COLUMN_NAME_KEY + ")");
+        db.execSQL("CREATE INDEX index_favorites_position ON " + TABLE
+                + " (" + COLUMN_LATITUDE + ", " + COLUMN_LONGITUDE + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Première version du schéma : rien à migrer
+    }
+}
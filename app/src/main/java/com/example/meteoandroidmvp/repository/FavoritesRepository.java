@@ -0,0 +1,255 @@
+package com.example.meteoandroidmvp.repository;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.meteoandroidmvp.model.FavoriteCity;
+import com.example.meteoandroidmvp.model.FavoritesIndex;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Stockage des villes favorites dans une base SQLite
+ * Toutes les lectures et écritures se font sur un thread dédié, dans l'ordre des appels :
+ * le thread principal ne touche jamais au disque. Les résultats de lecture sont renvoyés
+ * sur le thread principal.
+ * Au premier lancement, les favoris de l'ancien format (liste JSON dans
+ * les préférences « MeteoPrefs ») sont importés puis supprimés des préférences.
+ */
+public class FavoritesRepository {
+
+    private static final String TAG = "FavoritesRepository";
+
+    // Ancien emplacement des favoris (liste complète en JSON)
+    private static final String LEGACY_PREFERENCES_NAME = "MeteoPrefs";
+    private static final String LEGACY_FAVORITES_KEY = "favorites";
+
+    private static final FavoritesRepository INSTANCE = new FavoritesRepository();
+
+    // Thread unique : les écritures sont appliquées dans l'ordre où elles sont demandées
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "favorites-db");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private Context context = null;
+    private FavoritesDbHelper helper = null;
+
+    /**
+     * Interface pour récupérer les favoris de manière asynchrone
+     */
+    public interface LoadCallback {
+        void onFavoritesLoaded(List<FavoriteCity> favorites);
+    }
+
+    private FavoritesRepository() {
+    }
+
+    public static FavoritesRepository getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Prépare la base (ouverture et import de l'ancien format faits au premier accès, en arrière-plan)
+     *
+     * @param context Contexte Android
+     */
+    public synchronized void init(Context context) {
+        if (helper != null) {
+            return;
+        }
+        this.context = context.getApplicationContext();
+        helper = new FavoritesDbHelper(this.context);
+        executor.execute(this::migrateLegacyFavorites);
+    }
+
+    /**
+     * Charge tous les favoris, dans l'ordre d'ajout
+     *
+     * @param callback Appelé sur le thread principal avec la liste (modifiable)
+     */
+    public void loadAll(LoadCallback callback) {
+        executor.execute(() -> {
+            List<FavoriteCity> favorites = queryAll();
+            mainHandler.post(() -> callback.onFavoritesLoaded(favorites));
+        });
+    }
+
+    /**
+     * Charge tous les favoris et attend le résultat (tâches d'arrière-plan)
+     * À ne jamais appeler depuis le thread principal.
+     *
+     * @return Favoris dans l'ordre d'ajout, liste vide si le chargement échoue
+     */
+    public List<FavoriteCity> loadAllBlocking() {
+        try {
+            return executor.submit(this::queryAll).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ArrayList<>();
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Lecture des favoris impossible", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Ajoute un favori, ou met à jour celui qui porte le même nom
+     * Les valeurs sont lues immédiatement : l'objet peut être modifié ensuite sans effet sur l'écriture
+     *
+     * @param favorite Ville favorite
+     */
+    public void upsert(FavoriteCity favorite) {
+        ContentValues values = toValues(favorite);
+        executor.execute(() -> {
+            SQLiteDatabase db = helper.getWritableDatabase();
+            upsert(db, values);
+        });
+    }
+
+    /**
+     * Met à jour plusieurs favoris en une seule transaction (rafraîchissement de la liste)
+     *
+     * @param favorites Villes favorites modifiées
+     */
+    public void upsertAll(Collection<FavoriteCity> favorites) {
+        List<ContentValues> rows = new ArrayList<>(favorites.size());
+        for (FavoriteCity favorite : favorites) {
+            rows.add(toValues(favorite));
+        }
+        executor.execute(() -> {
+            SQLiteDatabase db = helper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (ContentValues values : rows) {
+                    upsert(db, values);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    /**
+     * Supprime un favori
+     *
+     * @param favorite Ville favorite
+     */
+    public void delete(FavoriteCity favorite) {
+        String key = nameKey(favorite.getCityName());
+        executor.execute(() -> helper.getWritableDatabase().delete(FavoritesDbHelper.TABLE,
+                FavoritesDbHelper.COLUMN_NAME_KEY + " = ?", new String[]{key}));
+    }
+
+    /**
+     * @return Clé d'identité d'un favori, la même que celle de {@link FavoritesIndex}
+     */
+    static String nameKey(String cityName) {
+        return FavoritesIndex.key(cityName);
+    }
+
+    private static void upsert(SQLiteDatabase db, ContentValues values) {
+        int updated = db.update(FavoritesDbHelper.TABLE, values, FavoritesDbHelper.COLUMN_NAME_KEY + " = ?",
+                new String[]{values.getAsString(FavoritesDbHelper.COLUMN_NAME_KEY)});
+        if (updated == 0) {
+            db.insert(FavoritesDbHelper.TABLE, null, values);
+        }
+    }
+
+    private static ContentValues toValues(FavoriteCity favorite) {
+        ContentValues values = new ContentValues();
+        values.put(FavoritesDbHelper.COLUMN_NAME_KEY, nameKey(favorite.getCityName()));
+        values.put(FavoritesDbHelper.COLUMN_CITY_ID, favorite.getCityId());
+        values.put(FavoritesDbHelper.COLUMN_NAME, favorite.getCityName());
+        values.put(FavoritesDbHelper.COLUMN_COUNTRY, favorite.getCountry());
+        values.put(FavoritesDbHelper.COLUMN_LAST_UPDATE,
+                favorite.getLastUpdate() != null ? favorite.getLastUpdate().getTime() : null);
+        values.put(FavoritesDbHelper.COLUMN_LATITUDE, favorite.getLatitude());
+        values.put(FavoritesDbHelper.COLUMN_LONGITUDE, favorite.getLongitude());
+        values.put(FavoritesDbHelper.COLUMN_FROM_LOCATION, favorite.isFromLocation() ? 1 : 0);
+        return values;
+    }
+
+    private List<FavoriteCity> queryAll() {
+        List<FavoriteCity> favorites = new ArrayList<>();
+        try (Cursor cursor = helper.getReadableDatabase().query(FavoritesDbHelper.TABLE, null,
+                null, null, null, null, FavoritesDbHelper.COLUMN_ID)) {
+            int cityId = cursor.getColumnIndexOrThrow(FavoritesDbHelper.COLUMN_CITY_ID);
+            int name = cursor.getColumnIndexOrThrow(FavoritesDbHelper.COLUMN_NAME);
+            int country = cursor.getColumnIndexOrThrow(FavoritesDbHelper.COLUMN_COUNTRY);
+            int lastUpdate = cursor.getColumnIndexOrThrow(FavoritesDbHelper.COLUMN_LAST_UPDATE);
+            int latitude = cursor.getColumnIndexOrThrow(FavoritesDbHelper.COLUMN_LATITUDE);
+            int longitude = cursor.getColumnIndexOrThrow(FavoritesDbHelper.COLUMN_LONGITUDE);
+            int fromLocation = cursor.getColumnIndexOrThrow(FavoritesDbHelper.COLUMN_FROM_LOCATION);
+            while (cursor.moveToNext()) {
+                favorites.add(new FavoriteCity(
+                        cursor.getLong(cityId),
+                        cursor.getString(name),
+                        cursor.getString(country),
+                        cursor.isNull(lastUpdate) ? null : new Date(cursor.getLong(lastUpdate)),
+                        cursor.getDouble(latitude),
+                        cursor.getDouble(longitude),
+                        cursor.getInt(fromLocation) != 0));
+            }
+        }
+        return favorites;
+    }
+
+    /**
+     * Importe la liste JSON de l'ancien format, puis la retire des préférences
+     */
+    private void migrateLegacyFavorites() {
+        SharedPreferences preferences = context.getSharedPreferences(LEGACY_PREFERENCES_NAME, Context.MODE_PRIVATE);
+        String json = preferences.getString(LEGACY_FAVORITES_KEY, null);
+        if (json == null) {
+            return;
+        }
+
+        List<FavoriteCity> legacy = null;
+        try {
+            Type type = new TypeToken<List<FavoriteCity>>() {}.getType();
+            legacy = new Gson().fromJson(json, type);
+        } catch (JsonParseException e) {
+            Log.w(TAG, "Anciens favoris illisibles, ignorés", e);
+        }
+
+        if (legacy != null) {
+            SQLiteDatabase db = helper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (FavoriteCity favorite : legacy) {
+                    if (favorite != null && favorite.getCityName() != null) {
+                        upsert(db, toValues(favorite));
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            Log.i(TAG, legacy.size() + " favoris importés de l'ancien format");
+        }
+
+        // commit() : l'import ne doit pas être rejoué si le processus s'arrête juste après
+        preferences.edit().remove(LEGACY_FAVORITES_KEY).commit();
+    }
+}
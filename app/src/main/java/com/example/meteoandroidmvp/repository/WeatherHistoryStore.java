@@ -0,0 +1,476 @@
+package com.example.meteoandroidmvp.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.meteoandroidmvp.model.WeatherResponse;
+import com.example.meteoandroidmvp.utils.CityNames;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Historique des observations météo, par ville, en colonnes
+ * Chaque ville a un répertoire avec un fichier par grandeur, à largeur fixe et quantifiée :
+ * - heure d'observation : secondes depuis 1970, entier non signé sur 4 octets
+ * - température : dixièmes de degré, 2 octets
+ * - humidité : pourcentage, 1 octet
+ * - pression : hPa, 2 octets
+ * - vent : dixièmes de m/s, 2 octets
+ * - condition : identifiant OpenWeatherMap, 2 octets
+ * soit 13 octets par observation. Les fichiers ne font que grandir (ajout en fin) ;
+ * la colonne des heures est écrite en dernier et fait foi : une écriture interrompue
+ * ne laisse qu'une ligne incomplète, ignorée puis écrasée.
+ * Les lectures passent par des fichiers projetés en mémoire (mmap) : une requête
+ * sur une période est une recherche dichotomique sur les heures, puis une copie
+ * des lignes trouvées, sans appel système.
+ * Le verrou ne couvre que la mise à jour des projections : une lecture ne fait jamais
+ * attendre un ajout en cours, et réciproquement (les ajouts ont un seul thread écrivain).
+ */
+public class WeatherHistoryStore {
+
+    private static final String TAG = "WeatherHistory";
+
+    // Répertoire de l'historique, dans le stockage interne de l'application
+    private static final String DIRECTORY = "weather_history";
+
+    // Colonnes et largeur de chaque valeur, en octets
+    private static final String COLUMN_TIME = "time.col";
+    private static final String COLUMN_TEMPERATURE = "temperature.col";
+    private static final String COLUMN_HUMIDITY = "humidity.col";
+    private static final String COLUMN_PRESSURE = "pressure.col";
+    private static final String COLUMN_WIND = "wind.col";
+    private static final String COLUMN_CONDITION = "condition.col";
+    private static final int TIME_BYTES = 4;
+
+    // Quantification des grandeurs décimales
+    private static final float TENTHS = 10f;
+
+    private static final WeatherHistoryStore INSTANCE = new WeatherHistoryStore();
+
+    // Thread unique des ajouts : l'écran n'attend jamais le disque
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "weather-history");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Colonnes ouvertes, par nom de ville normalisé
+    private final Map<String, CityColumns> cities = new HashMap<>();
+
+    private File root = null;
+
+    private WeatherHistoryStore() {
+    }
+
+    public static WeatherHistoryStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param context Contexte Android
+     */
+    public synchronized void init(Context context) {
+        if (root == null) {
+            init(new File(context.getApplicationContext().getFilesDir(), DIRECTORY));
+        }
+    }
+
+    /**
+     * Change le répertoire de l'historique (isolation des tests)
+     *
+     * @param directory Répertoire de l'historique
+     */
+    synchronized void init(File directory) {
+        root = directory;
+        cities.clear();
+    }
+
+    /**
+     * Ajoute une observation à l'historique de sa ville, en arrière-plan
+     * Une observation déjà enregistrée (même heure ou plus ancienne) est ignorée
+     *
+     * @param weather Météo actuelle reçue
+     */
+    public void record(WeatherResponse weather) {
+        if (weather == null || weather.getCityName() == null || weather.getMain() == null) {
+            return;
+        }
+        // Valeurs quantifiées tout de suite : la réponse peut être réutilisée ailleurs
+        String city = CityNames.normalize(weather.getCityName());
+        long time = weather.getDateTime();
+        short temperature = quantize(weather.getMain().getTemperature());
+        byte humidity = (byte) Math.max(0, Math.min(100, weather.getMain().getHumidity()));
+        short pressure = (short) Math.max(0, Math.min(Short.MAX_VALUE, weather.getMain().getPressure()));
+        short wind = weather.getWind() != null ? quantize(weather.getWind().getSpeed()) : 0;
+        short condition = (short) (weather.getWeather() != null && !weather.getWeather().isEmpty()
+                ? weather.getWeather().get(0).getId() : 0);
+        executor.execute(() -> {
+            try {
+                append(city, time, temperature, humidity, pressure, wind, condition);
+            } catch (IOException e) {
+                Log.w(TAG, "Ajout à l'historique impossible pour " + city, e);
+            }
+        });
+    }
+
+    /**
+     * Observations d'une ville sur une période
+     *
+     * @param cityName Nom de la ville
+     * @param fromSeconds Début de la période (inclus), en secondes depuis 1970
+     * @param toSeconds Fin de la période (exclue), en secondes depuis 1970
+     * @return Observations dans l'ordre chronologique (vide si aucune)
+     */
+    public HistoryRange query(String cityName, long fromSeconds, long toSeconds) {
+        try {
+            Projection projection = project(CityNames.normalize(cityName));
+            if (projection == null) {
+                return HistoryRange.EMPTY;
+            }
+            int from = projection.lowerBound(fromSeconds);
+            int to = projection.lowerBound(toSeconds);
+            return projection.read(from, Math.max(from, to));
+        } catch (IOException e) {
+            Log.w(TAG, "Lecture de l'historique impossible pour " + cityName, e);
+            return HistoryRange.EMPTY;
+        }
+    }
+
+    /**
+     * Observations des derniers jours, par exemple les 7 derniers jours à Lyon
+     *
+     * @param cityName Nom de la ville
+     * @param days Nombre de jours
+     * @return Observations dans l'ordre chronologique
+     */
+    public HistoryRange lastDays(String cityName, int days) {
+        long now = System.currentTimeMillis() / 1000;
+        return query(cityName, now - days * 86_400L, now + 1);
+    }
+
+    /**
+     * Exporte l'historique complet d'une ville en CSV, ligne par ligne
+     * (sans construire le fichier entier en mémoire)
+     *
+     * @param cityName Nom de la ville
+     * @param out Destination du CSV
+     * @return Nombre d'observations exportées
+     */
+    public int exportCsv(String cityName, Writer out) throws IOException {
+        out.write("time,temperature,humidity,pressure,wind_speed,condition_id\n");
+        Projection projection = project(CityNames.normalize(cityName));
+        if (projection == null) {
+            return 0;
+        }
+        StringBuilder line = new StringBuilder(64);
+        for (int row = 0; row < projection.rows; row++) {
+            line.setLength(0);
+            line.append(projection.time(row)).append(',')
+                    .append(String.format(Locale.ROOT, "%.1f", projection.temperature.getShort(row * 2) / TENTHS)).append(',')
+                    .append(projection.humidity.get(row)).append(',')
+                    .append(projection.pressure.getShort(row * 2)).append(',')
+                    .append(String.format(Locale.ROOT, "%.1f", projection.wind.getShort(row * 2) / TENTHS)).append(',')
+                    .append(projection.condition.getShort(row * 2)).append('\n');
+            out.write(line.toString());
+        }
+        return projection.rows;
+    }
+
+    /**
+     * Ajoute une ligne ; appelé uniquement depuis le thread des ajouts (un seul écrivain),
+     * seule la mise à jour des projections se fait sous verrou
+     */
+    void append(String city, long time, short temperature, byte humidity,
+                short pressure, short wind, short condition) throws IOException {
+        CityColumns columns;
+        synchronized (this) {
+            columns = columns(city, true);
+        }
+        if (columns == null) {
+            return;
+        }
+        int rows = columns.rowCount();
+        if (rows > 0) {
+            Projection projection;
+            synchronized (this) {
+                projection = columns.map();
+            }
+            if (time <= projection.time(projection.rows - 1)) {
+                // Même observation qu'au dernier affichage (ou plus ancienne)
+                return;
+            }
+        }
+        // Valeurs d'abord, heure en dernier : la ligne n'existe qu'une fois l'heure écrite
+        write(columns.file(COLUMN_TEMPERATURE), (long) rows * 2, ByteBuffer.allocate(2).putShort(0, temperature));
+        write(columns.file(COLUMN_HUMIDITY), rows, ByteBuffer.allocate(1).put(0, humidity));
+        write(columns.file(COLUMN_PRESSURE), (long) rows * 2, ByteBuffer.allocate(2).putShort(0, pressure));
+        write(columns.file(COLUMN_WIND), (long) rows * 2, ByteBuffer.allocate(2).putShort(0, wind));
+        write(columns.file(COLUMN_CONDITION), (long) rows * 2, ByteBuffer.allocate(2).putShort(0, condition));
+        write(columns.file(COLUMN_TIME), (long) rows * TIME_BYTES, ByteBuffer.allocate(TIME_BYTES).putInt(0, (int) time));
+    }
+
+    /**
+     * Écrit à une position donnée : une ligne laissée incomplète par un arrêt brutal est écrasée
+     */
+    private static void write(File file, long position, ByteBuffer buffer) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = raf.getChannel();
+            channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * @return Projection à jour des colonnes d'une ville, ou null si elle n'a pas d'historique
+     */
+    private synchronized Projection project(String city) throws IOException {
+        CityColumns columns = columns(city, false);
+        return columns != null ? columns.map() : null;
+    }
+
+    private CityColumns columns(String city, boolean create) throws UnsupportedEncodingException {
+        if (root == null || city.isEmpty()) {
+            return null;
+        }
+        CityColumns columns = cities.get(city);
+        if (columns == null) {
+            File directory = new File(root, URLEncoder.encode(city, "UTF-8"));
+            if (!directory.isDirectory() && (!create || !directory.mkdirs())) {
+                return null;
+            }
+            columns = new CityColumns(directory);
+            cities.put(city, columns);
+        }
+        return columns;
+    }
+
+    private static short quantize(float value) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value * TENTHS)));
+    }
+
+    /**
+     * Colonnes d'une ville et leur dernière projection en mémoire
+     */
+    private static class CityColumns {
+        final File directory;
+
+        // Dernière projection, remplacée quand des lignes ont été ajoutées
+        Projection projection = null;
+
+        CityColumns(File directory) {
+            this.directory = directory;
+        }
+
+        File file(String column) {
+            return new File(directory, column);
+        }
+
+        /**
+         * @return Nombre de lignes complètes (la colonne des heures fait foi)
+         */
+        int rowCount() {
+            return (int) (file(COLUMN_TIME).length() / TIME_BYTES);
+        }
+
+        /**
+         * Projette les colonnes en mémoire, seulement si des lignes ont été ajoutées depuis
+         */
+        Projection map() throws IOException {
+            int rows = rowCount();
+            if (projection == null || projection.rows != rows) {
+                projection = new Projection(rows,
+                        map(COLUMN_TIME, (long) rows * TIME_BYTES),
+                        map(COLUMN_TEMPERATURE, (long) rows * 2),
+                        map(COLUMN_HUMIDITY, rows),
+                        map(COLUMN_PRESSURE, (long) rows * 2),
+                        map(COLUMN_WIND, (long) rows * 2),
+                        map(COLUMN_CONDITION, (long) rows * 2));
+            }
+            return projection;
+        }
+
+        private MappedByteBuffer map(String column, long size) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(file(column), "r")) {
+                // La projection reste valable après la fermeture du fichier
+                return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+    }
+
+    /**
+     * Projection en mémoire des rows premières lignes d'une ville
+     * Immuable (lectures absolues seulement) : utilisable hors verrou, par plusieurs threads
+     */
+    private static class Projection {
+        final int rows;
+        final MappedByteBuffer time;
+        final MappedByteBuffer temperature;
+        final MappedByteBuffer humidity;
+        final MappedByteBuffer pressure;
+        final MappedByteBuffer wind;
+        final MappedByteBuffer condition;
+
+        Projection(int rows, MappedByteBuffer time, MappedByteBuffer temperature, MappedByteBuffer humidity,
+                   MappedByteBuffer pressure, MappedByteBuffer wind, MappedByteBuffer condition) {
+            this.rows = rows;
+            this.time = time;
+            this.temperature = temperature;
+            this.humidity = humidity;
+            this.pressure = pressure;
+            this.wind = wind;
+            this.condition = condition;
+        }
+
+        long time(int row) {
+            return Integer.toUnsignedLong(time.getInt(row * TIME_BYTES));
+        }
+
+        /**
+         * @return Première ligne dont l'heure est supérieure ou égale à seconds
+         */
+        int lowerBound(long seconds) {
+            int low = 0;
+            int high = rows;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (time(middle) < seconds) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        HistoryRange read(int from, int to) {
+            int count = to - from;
+            long[] times = new long[count];
+            float[] temperatures = new float[count];
+            int[] humidities = new int[count];
+            int[] pressures = new int[count];
+            float[] winds = new float[count];
+            int[] conditions = new int[count];
+            for (int i = 0; i < count; i++) {
+                int row = from + i;
+                times[i] = time(row);
+                temperatures[i] = temperature.getShort(row * 2) / TENTHS;
+                humidities[i] = humidity.get(row);
+                pressures[i] = pressure.getShort(row * 2);
+                winds[i] = wind.getShort(row * 2) / TENTHS;
+                conditions[i] = condition.getShort(row * 2);
+            }
+            return new HistoryRange(times, temperatures, humidities, pressures, winds, conditions);
+        }
+    }
+
+    /**
+     * Observations d'une période, en colonnes
+     */
+    public static class HistoryRange {
+        static final HistoryRange EMPTY = new HistoryRange(new long[0], new float[0], new int[0],
+                new int[0], new float[0], new int[0]);
+
+        private final long[] times;
+        private final float[] temperatures;
+        private final int[] humidities;
+        private final int[] pressures;
+        private final float[] windSpeeds;
+        private final int[] conditionIds;
+
+        HistoryRange(long[] times, float[] temperatures, int[] humidities, int[] pressures,
+                     float[] windSpeeds, int[] conditionIds) {
+            this.times = times;
+            this.temperatures = temperatures;
+            this.humidities = humidities;
+            this.pressures = pressures;
+            this.windSpeeds = windSpeeds;
+            this.conditionIds = conditionIds;
+        }
+
+        public int size() {
+            return times.length;
+        }
+
+        /**
+         * @return Heure de l'observation, en secondes depuis 1970
+         */
+        public long getTime(int index) {
+            return times[index];
+        }
+
+        public float getTemperature(int index) {
+            return temperatures[index];
+        }
+
+        public int getHumidity(int index) {
+            return humidities[index];
+        }
+
+        public int getPressure(int index) {
+            return pressures[index];
+        }
+
+        public float getWindSpeed(int index) {
+            return windSpeeds[index];
+        }
+
+        public int getConditionId(int index) {
+            return conditionIds[index];
+        }
+
+        /**
+         * @return Température moyenne de la période (NaN si vide)
+         */
+        public float getAverageTemperature() {
+            if (temperatures.length == 0) {
+                return Float.NaN;
+            }
+            double sum = 0;
+            for (float temperature : temperatures) {
+                sum += temperature;
+            }
+            return (float) (sum / temperatures.length);
+        }
+
+        /**
+         * Tendance des températures (régression linéaire sur la période)
+         *
+         * @return Évolution en degrés par jour (0 si moins de deux observations)
+         */
+        public float getTemperatureTrendPerDay() {
+            int n = times.length;
+            if (n < 2) {
+                return 0;
+            }
+            // Heures relatives à la première observation, en jours, pour garder la précision
+            double meanX = 0;
+            double meanY = 0;
+            for (int i = 0; i < n; i++) {
+                meanX += (times[i] - times[0]) / 86_400.0;
+                meanY += temperatures[i];
+            }
+            meanX /= n;
+            meanY /= n;
+            double covariance = 0;
+            double variance = 0;
+            for (int i = 0; i < n; i++) {
+                double dx = (times[i] - times[0]) / 86_400.0 - meanX;
+                covariance += dx * (temperatures[i] - meanY);
+                variance += dx * dx;
+            }
+            return variance == 0 ? 0 : (float) (covariance / variance);
+        }
+    }
+}
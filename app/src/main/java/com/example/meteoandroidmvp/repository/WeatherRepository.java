@@ -0,0 +1,660 @@
+package com.example.meteoandroidmvp.repository;
+
+import com.example.meteoandroidmvp.api.ApiClient;
+import com.example.meteoandroidmvp.api.CityResolver;
+import com.example.meteoandroidmvp.api.FreshDataStore;
+import com.example.meteoandroidmvp.api.FreshnessPolicy;
+import com.example.meteoandroidmvp.api.RequestCoalescer;
+import com.example.meteoandroidmvp.api.WeatherService;
+import com.example.meteoandroidmvp.model.ForecastResponse;
+import com.example.meteoandroidmvp.model.GeoLocation;
+import com.example.meteoandroidmvp.model.OneCallResponse;
+import com.example.meteoandroidmvp.model.WeatherResponse;
+import com.example.meteoandroidmvp.utils.Constants;
+import com.example.meteoandroidmvp.utils.GeoQuantizer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Dépôt de la météo actuelle et des prévisions, publiées ville par ville sous forme de flux
+ * ({@link DataStream}) : l'écran météo, le widget ou les notifications observent la même
+ * donnée sans la redemander chacun de leur côté.
+ * À l'inscription, la dernière valeur connue est rejouée, puis la donnée est rechargée :
+ * depuis {@link FreshDataStore} si elle est encore à jour, sinon depuis le réseau
+ * (une seule requête One Call quand la météo actuelle et les prévisions sont observées
+ * ensemble). Une réponse identique à la valeur déjà publiée n'est pas retransmise.
+ */
+public class WeatherRepository {
+
+    // Blocs de la réponse One Call inutiles à l'écran météo
+    private static final String ONE_CALL_EXCLUDE = "minutely,alerts";
+
+    // Codes HTTP renvoyés quand la clé API n'a pas accès à One Call
+    private static final int HTTP_UNAUTHORIZED = 401;
+    private static final int HTTP_FORBIDDEN = 403;
+
+    // Villes dont les flux sont gardés en mémoire sans observateur
+    private static final int MAX_FEEDS = 32;
+
+    // One Call indisponible pour la clé API : les requêtes séparées sont utilisées directement
+    private static volatile boolean oneCallUnavailable = false;
+
+    private static WeatherRepository instance;
+
+    // Service API, relu à chaque chargement (il est recréé quand l'URL de base change)
+    private final Supplier<WeatherService> services;
+
+    private final FreshDataStore freshData = FreshDataStore.getInstance();
+
+    // Flux de chaque ville, du moins au plus récemment utilisé
+    private final Map<String, Feed> feeds = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Ville observée : un nom saisi ou une position
+     */
+    public static final class Query {
+        private final String name;
+        private final double latitude;
+        private final double longitude;
+        private final String key;
+
+        private Query(String name, double latitude, double longitude, String key) {
+            this.name = name;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.key = key;
+        }
+
+        /**
+         * @param name Nom de la ville, tel que saisi
+         */
+        public static Query byName(String name) {
+            return new Query(name, 0, 0, "city:" + RequestCoalescer.normalizeQuery(name));
+        }
+
+        /**
+         * @param latitude Latitude en degrés décimaux
+         * @param longitude Longitude en degrés décimaux
+         */
+        public static Query byPosition(double latitude, double longitude) {
+            return new Query(null, latitude, longitude, "cell:" + GeoQuantizer.cellKey(latitude, longitude));
+        }
+
+        @Override
+        public String toString() {
+            return key;
+        }
+    }
+
+    /**
+     * Inscription commune aux deux flux d'une ville, chacun se désinscrivant séparément
+     */
+    public static final class Observation {
+        private final RequestCoalescer.Cancellable weather;
+        private final RequestCoalescer.Cancellable forecast;
+
+        private Observation(RequestCoalescer.Cancellable weather, RequestCoalescer.Cancellable forecast) {
+            this.weather = weather;
+            this.forecast = forecast;
+        }
+
+        public RequestCoalescer.Cancellable getWeather() {
+            return weather;
+        }
+
+        public RequestCoalescer.Cancellable getForecast() {
+            return forecast;
+        }
+    }
+
+    /**
+     * Retourne l'instance partagée du dépôt, qui utilise le service API partagé
+     */
+    public static synchronized WeatherRepository getInstance() {
+        if (instance == null) {
+            instance = new WeatherRepository(ApiClient::getWeatherService);
+        }
+        return instance;
+    }
+
+    /**
+     * Dépôt propre à un service fourni
+     *
+     * @param weatherService Service API météo
+     */
+    public WeatherRepository(WeatherService weatherService) {
+        this(() -> weatherService);
+    }
+
+    private WeatherRepository(Supplier<WeatherService> services) {
+        this.services = services;
+    }
+
+    /**
+     * @return Flux de la météo actuelle de la ville
+     */
+    public DataStream<WeatherResponse> weather(Query query) {
+        return feed(query).weather;
+    }
+
+    /**
+     * @return Flux des prévisions de la ville
+     */
+    public DataStream<ForecastResponse> forecast(Query query) {
+        return feed(query).forecast;
+    }
+
+    /**
+     * Observe la météo actuelle et les prévisions d'une ville, chargées ensemble
+     *
+     * @param query Ville observée
+     * @param weatherObserver Observateur de la météo actuelle
+     * @param forecastObserver Observateur des prévisions
+     * @return Désinscriptions des deux flux
+     */
+    public Observation observe(Query query, DataStream.Observer<WeatherResponse> weatherObserver,
+                               DataStream.Observer<ForecastResponse> forecastObserver) {
+        Feed feed = feed(query);
+        // Le chargement ne part qu'une fois les deux observateurs inscrits
+        feed.hold();
+        RequestCoalescer.Cancellable weather;
+        RequestCoalescer.Cancellable forecast;
+        try {
+            weather = feed.weather.observe(weatherObserver);
+            forecast = feed.forecast.observe(forecastObserver);
+        } finally {
+            feed.release();
+        }
+        return new Observation(weather, forecast);
+    }
+
+    /**
+     * Oublie les dernières valeurs de toutes les villes (changement d'unités ou de langue, tests)
+     */
+    public void clear() {
+        List<Feed> all;
+        synchronized (feeds) {
+            all = new ArrayList<>(feeds.values());
+        }
+        for (Feed feed : all) {
+            feed.weather.forget();
+            feed.forecast.forget();
+        }
+    }
+
+    private Feed feed(Query query) {
+        synchronized (feeds) {
+            Feed feed = feeds.get(query.key);
+            if (feed == null) {
+                feed = new Feed(query);
+                feeds.put(query.key, feed);
+                evictUnobserved();
+            }
+            return feed;
+        }
+    }
+
+    /**
+     * Libère les flux les moins récemment utilisés au-delà de la limite, s'ils ne sont plus observés
+     */
+    private void evictUnobserved() {
+        Iterator<Feed> iterator = feeds.values().iterator();
+        int excess = feeds.size() - MAX_FEEDS;
+        while (excess > 0 && iterator.hasNext()) {
+            Feed feed = iterator.next();
+            if (!feed.weather.hasObservers() && !feed.forecast.hasObservers()) {
+                iterator.remove();
+                excess--;
+            }
+        }
+    }
+
+    private static boolean sameWeather(WeatherResponse previous, WeatherResponse next) {
+        return previous.getCityId() == next.getCityId()
+                && previous.getDateTime() == next.getDateTime()
+                && Objects.equals(previous.getCityName(), next.getCityName())
+                && Objects.equals(temperature(previous.getMain()), temperature(next.getMain()));
+    }
+
+    private static boolean sameForecast(ForecastResponse previous, ForecastResponse next) {
+        if (previous.getCity() == null || next.getCity() == null
+                || !Objects.equals(previous.getCity().getName(), next.getCity().getName())) {
+            return false;
+        }
+        List<ForecastResponse.ForecastItem> before = previous.getForecastItems();
+        List<ForecastResponse.ForecastItem> after = next.getForecastItems();
+        if (before == null || after == null || before.size() != after.size()) {
+            return false;
+        }
+        for (int i = 0; i < before.size(); i++) {
+            if (before.get(i).getDateTime() != after.get(i).getDateTime()
+                    || !Objects.equals(temperature(before.get(i).getMain()), temperature(after.get(i).getMain()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Float temperature(WeatherResponse.Main main) {
+        return main != null ? main.getTemperature() : null;
+    }
+
+    /**
+     * Requêtes d'un chargement (géocodage puis météo), abandonnées ensemble
+     */
+    private static final class RequestChain implements RequestCoalescer.Cancellable {
+        private final List<RequestCoalescer.Cancellable> requests = new ArrayList<>();
+        private boolean cancelled = false;
+
+        void add(RequestCoalescer.Cancellable request) {
+            synchronized (this) {
+                if (!cancelled) {
+                    requests.add(request);
+                    return;
+                }
+            }
+            request.cancel();
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean cancel() {
+            List<RequestCoalescer.Cancellable> pending;
+            synchronized (this) {
+                if (cancelled) {
+                    return false;
+                }
+                cancelled = true;
+                pending = new ArrayList<>(requests);
+                requests.clear();
+            }
+            boolean abandoned = false;
+            for (RequestCoalescer.Cancellable request : pending) {
+                abandoned |= request.cancel();
+            }
+            return abandoned;
+        }
+    }
+
+    /**
+     * Flux d'une ville et chargement qui les alimente
+     */
+    private final class Feed implements DataStream.Upstream {
+        private final Query query;
+        final DataStream<WeatherResponse> weather = new DataStream<>(this, WeatherRepository::sameWeather);
+        final DataStream<ForecastResponse> forecast = new DataStream<>(this, WeatherRepository::sameForecast);
+
+        // Chargement en cours et données qu'il doit encore fournir
+        private RequestChain load;
+        private boolean loadingWeather = false;
+        private boolean loadingForecast = false;
+
+        // Inscriptions groupées en cours : le chargement attend la dernière
+        private int holds = 0;
+
+        Feed(Query query) {
+            this.query = query;
+        }
+
+        @Override
+        public void onObserved(DataStream<?> stream) {
+            refresh();
+        }
+
+        @Override
+        public boolean onUnobserved(DataStream<?> stream) {
+            RequestChain abandoned;
+            synchronized (this) {
+                if (load == null || weather.hasObservers() || forecast.hasObservers()) {
+                    return false;
+                }
+                abandoned = load;
+                load = null;
+                loadingWeather = false;
+                loadingForecast = false;
+            }
+            return abandoned.cancel();
+        }
+
+        synchronized void hold() {
+            holds++;
+        }
+
+        void release() {
+            synchronized (this) {
+                holds--;
+            }
+            refresh();
+        }
+
+        /**
+         * Recharge les données observées qui ne sont pas déjà en cours de chargement
+         */
+        private void refresh() {
+            boolean needWeather;
+            boolean needForecast;
+            RequestChain chain;
+            synchronized (this) {
+                if (holds > 0) {
+                    return;
+                }
+                needWeather = !loadingWeather && weather.hasObservers();
+                needForecast = !loadingForecast && forecast.hasObservers();
+                if (!needWeather && !needForecast) {
+                    return;
+                }
+                loadingWeather |= needWeather;
+                loadingForecast |= needForecast;
+                if (load == null) {
+                    load = new RequestChain();
+                }
+                chain = load;
+            }
+            start(chain, needWeather, needForecast);
+        }
+
+        private void start(RequestChain chain, boolean needWeather, boolean needForecast) {
+            WeatherService service = services.get();
+            CityResolver resolver = new CityResolver(service);
+            if (query.name != null) {
+                // Le nom est d'abord résolu en coordonnées (une seule fois par ville) ;
+                // la recherche par nom ne sert qu'en secours
+                chain.add(resolver.resolve(query.name, new CityResolver.ResolveCallback() {
+                    @Override
+                    public void onResolved(GeoLocation location) {
+                        if (!chain.isCancelled()) {
+                            fetchAt(service, chain, location.getLatitude(), location.getLongitude(),
+                                    location.getName(), location.getCountry(), needWeather, needForecast);
+                        }
+                    }
+
+                    @Override
+                    public void onUnresolved() {
+                        if (!chain.isCancelled()) {
+                            fetchByName(service, chain, needWeather, needForecast);
+                        }
+                    }
+                }));
+            } else if (needWeather && needForecast && !oneCallUnavailable) {
+                // One Call ne renvoie pas le nom de la ville : il est retrouvé une fois par cellule
+                chain.add(resolver.resolveNear(query.latitude, query.longitude, new CityResolver.ResolveCallback() {
+                    @Override
+                    public void onResolved(GeoLocation location) {
+                        if (!chain.isCancelled()) {
+                            fetchAt(service, chain, query.latitude, query.longitude,
+                                    location.getName(), location.getCountry(), true, true);
+                        }
+                    }
+
+                    @Override
+                    public void onUnresolved() {
+                        if (!chain.isCancelled()) {
+                            fetchAt(service, chain, query.latitude, query.longitude, null, null, true, true);
+                        }
+                    }
+                }));
+            } else {
+                fetchAt(service, chain, query.latitude, query.longitude, null, null, needWeather, needForecast);
+            }
+        }
+
+        /**
+         * Charge les données d'une position : One Call si les deux sont demandées et que le nom
+         * de la ville est connu, sinon une requête par donnée
+         */
+        private void fetchAt(WeatherService service, RequestChain chain, double latitude, double longitude,
+                             String cityName, String country, boolean needWeather, boolean needForecast) {
+            if (needWeather && needForecast && cityName != null && !oneCallUnavailable) {
+                fetchOneCall(service, chain, latitude, longitude, cityName, country);
+                return;
+            }
+            String cell = GeoQuantizer.cellKey(latitude, longitude);
+            if (needWeather) {
+                fetchWeather(chain, RequestCoalescer.key("weather", cell, Constants.UNITS, Constants.LANGUAGE),
+                        () -> service.getCurrentWeatherByLocation(
+                                latitude,
+                                longitude,
+                                Constants.API_KEY,
+                                Constants.UNITS,
+                                Constants.LANGUAGE
+                        ));
+            }
+            if (needForecast) {
+                fetchForecast(chain, RequestCoalescer.key("forecast", cell, Constants.UNITS, Constants.LANGUAGE),
+                        () -> service.getForecastByLocation(
+                                latitude,
+                                longitude,
+                                Constants.API_KEY,
+                                Constants.UNITS,
+                                Constants.LANGUAGE
+                        ));
+            }
+        }
+
+        /**
+         * Recherche par nom de ville (secours, sans géocodage)
+         */
+        private void fetchByName(WeatherService service, RequestChain chain, boolean needWeather, boolean needForecast) {
+            String city = query.name;
+            if (needWeather) {
+                fetchWeather(chain, RequestCoalescer.key("weather", "q=" + city, Constants.UNITS, Constants.LANGUAGE),
+                        () -> service.getCurrentWeatherByCity(
+                                city,
+                                Constants.API_KEY,
+                                Constants.UNITS,
+                                Constants.LANGUAGE
+                        ));
+            }
+            if (needForecast) {
+                fetchForecast(chain, RequestCoalescer.key("forecast", "q=" + city, Constants.UNITS, Constants.LANGUAGE),
+                        () -> service.getForecastByCity(
+                                city,
+                                Constants.API_KEY,
+                                Constants.UNITS,
+                                Constants.LANGUAGE
+                        ));
+            }
+        }
+
+        /**
+         * Demande la météo actuelle et les prévisions d'une position en une seule requête
+         * Si One Call échoue, les deux requêtes habituelles prennent le relais
+         */
+        private void fetchOneCall(WeatherService service, RequestChain chain, double latitude, double longitude,
+                                  String cityName, String country) {
+            // Clés de la requête et des données qu'elle fournit, construites à partir des coordonnées
+            String cell = GeoQuantizer.cellKey(latitude, longitude);
+            String key = RequestCoalescer.key("onecall", cell, Constants.UNITS, Constants.LANGUAGE);
+            String weatherKey = RequestCoalescer.key("weather", cell, Constants.UNITS, Constants.LANGUAGE);
+            String forecastKey = RequestCoalescer.key("forecast", cell, Constants.UNITS, Constants.LANGUAGE);
+
+            // Les deux données sont encore à jour : publication sans requête
+            WeatherResponse freshWeather = freshData.get(weatherKey, WeatherResponse.class);
+            ForecastResponse freshForecast = freshData.get(forecastKey, ForecastResponse.class);
+            if (freshWeather != null && freshForecast != null) {
+                publishWeather(chain, freshWeather);
+                publishForecast(chain, freshForecast);
+                return;
+            }
+
+            chain.add(RequestCoalescer.getInstance().enqueue(key, () -> service.getOneCall(
+                    latitude,
+                    longitude,
+                    ONE_CALL_EXCLUDE,
+                    Constants.API_KEY,
+                    Constants.UNITS,
+                    Constants.LANGUAGE
+            ), new Callback<OneCallResponse>() {
+                @Override
+                public void onResponse(Call<OneCallResponse> call, Response<OneCallResponse> response) {
+                    if (chain.isCancelled()) {
+                        return;
+                    }
+                    OneCallResponse body = response.body();
+                    WeatherResponse weather = null;
+                    ForecastResponse forecast = null;
+                    if (response.isSuccessful() && body != null) {
+                        weather = body.toWeatherResponse(cityName, country);
+                        forecast = body.toForecastResponse(cityName, country);
+                    } else if (response.code() == HTTP_UNAUTHORIZED || response.code() == HTTP_FORBIDDEN) {
+                        // Pas d'abonnement One Call pour cette clé : ne plus essayer
+                        oneCallUnavailable = true;
+                    }
+
+                    if (weather == null || forecast == null) {
+                        fetchAt(service, chain, latitude, longitude, null, null, true, true);
+                        return;
+                    }
+
+                    long now = System.currentTimeMillis();
+                    freshData.put(weatherKey, weather, FreshnessPolicy.expiresAt(weather, now));
+                    freshData.put(forecastKey, forecast, FreshnessPolicy.expiresAt(forecast, now));
+                    WeatherHistoryStore.getInstance().record(weather);
+                    publishWeather(chain, weather);
+                    publishForecast(chain, forecast);
+                }
+
+                @Override
+                public void onFailure(Call<OneCallResponse> call, Throwable t) {
+                    // Les requêtes séparées peuvent encore être servies par le cache hors ligne
+                    if (!chain.isCancelled()) {
+                        fetchAt(service, chain, latitude, longitude, null, null, true, true);
+                    }
+                }
+            }));
+        }
+
+        /**
+         * Demande la météo actuelle, sauf si une réponse encore à jour est en mémoire
+         * Une requête identique déjà en cours (autre écran, notification) est réutilisée
+         */
+        private void fetchWeather(RequestChain chain, String key, Supplier<Call<WeatherResponse>> callFactory) {
+            WeatherResponse fresh = freshData.get(key, WeatherResponse.class);
+            if (fresh != null) {
+                publishWeather(chain, fresh);
+                return;
+            }
+
+            chain.add(RequestCoalescer.getInstance().enqueue(key, callFactory, new Callback<WeatherResponse>() {
+                @Override
+                public void onResponse(Call<WeatherResponse> call, Response<WeatherResponse> response) {
+                    if (chain.isCancelled()) {
+                        return;
+                    }
+                    if (response.isSuccessful() && response.body() != null) {
+                        // Garder la réponse jusqu'à sa prochaine mise à jour
+                        WeatherResponse weather = response.body();
+                        freshData.put(key, weather, FreshnessPolicy.expiresAt(weather, System.currentTimeMillis()));
+                        WeatherHistoryStore.getInstance().record(weather);
+                        publishWeather(chain, weather);
+                    } else {
+                        failWeather(chain, "Erreur: " + response.code() + " " + response.message());
+                    }
+                }
+
+                /**
+                 * Appelée en cas d'échec de la requête
+                 * Par exemple, si pas de connexion internet
+                 */
+                @Override
+                public void onFailure(Call<WeatherResponse> call, Throwable t) {
+                    if (chain.isCancelled()) {
+                        return;
+                    }
+                    if (t instanceof java.net.UnknownHostException) {
+                        // Problème de connectivité internet
+                        failWeather(chain, "Impossible de se connecter à Internet. Vérifiez votre connexion réseau.");
+                    } else {
+                        failWeather(chain, "Erreur de connexion: " + t.getMessage());
+                    }
+                }
+            }));
+        }
+
+        /**
+         * Demande les prévisions, sauf si une réponse encore à jour est en mémoire
+         */
+        private void fetchForecast(RequestChain chain, String key, Supplier<Call<ForecastResponse>> callFactory) {
+            ForecastResponse fresh = freshData.get(key, ForecastResponse.class);
+            if (fresh != null) {
+                publishForecast(chain, fresh);
+                return;
+            }
+
+            chain.add(RequestCoalescer.getInstance().enqueue(key, callFactory, new Callback<ForecastResponse>() {
+                @Override
+                public void onResponse(Call<ForecastResponse> call, Response<ForecastResponse> response) {
+                    if (chain.isCancelled()) {
+                        return;
+                    }
+                    if (response.isSuccessful() && response.body() != null) {
+                        ForecastResponse forecast = response.body();
+                        freshData.put(key, forecast, FreshnessPolicy.expiresAt(forecast, System.currentTimeMillis()));
+                        publishForecast(chain, forecast);
+                    } else {
+                        failForecast(chain, "Erreur prévisions: " + response.code() + " " + response.message());
+                    }
+                }
+
+                @Override
+                public void onFailure(Call<ForecastResponse> call, Throwable t) {
+                    if (chain.isCancelled()) {
+                        return;
+                    }
+                    if (t instanceof java.net.UnknownHostException) {
+                        failForecast(chain, "Impossible de se connecter à Internet pour les prévisions.");
+                    } else {
+                        failForecast(chain, "Erreur de connexion prévisions: " + t.getMessage());
+                    }
+                }
+            }));
+        }
+
+        private void publishWeather(RequestChain chain, WeatherResponse value) {
+            finish(chain, true, false);
+            weather.publish(value);
+        }
+
+        private void publishForecast(RequestChain chain, ForecastResponse value) {
+            finish(chain, false, true);
+            forecast.publish(value);
+        }
+
+        private void failWeather(RequestChain chain, String message) {
+            finish(chain, true, false);
+            weather.publishError(message);
+        }
+
+        private void failForecast(RequestChain chain, String message) {
+            finish(chain, false, true);
+            forecast.publishError(message);
+        }
+
+        /**
+         * Une donnée du chargement est arrivée : le suivant pourra la redemander
+         */
+        private synchronized void finish(RequestChain chain, boolean weatherDone, boolean forecastDone) {
+            if (load != chain) {
+                return;
+            }
+            loadingWeather &= !weatherDone;
+            loadingForecast &= !forecastDone;
+            if (!loadingWeather && !loadingForecast) {
+                load = null;
+            }
+        }
+    }
+}
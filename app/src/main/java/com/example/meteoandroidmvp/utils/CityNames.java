@@ -0,0 +1,45 @@
+package com.example.meteoandroidmvp.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Classe utilitaire pour comparer des noms de ville saisis librement
+ */
+public class CityNames {
+
+    private CityNames() {
+    }
+
+    /**
+     * Normalise un nom de ville : espaces superflus, espaces autour des virgules et casse ignorés
+     * "Paris", " paris " et "PARIS" donnent le même résultat, tout comme "Paris, FR" et "paris,fr"
+     *
+     * @param name Nom saisi (peut être null)
+     * @return Nom normalisé, chaîne vide si null
+     */
+    public static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        return name.trim()
+                .replaceAll("\\s+", " ")
+                .replaceAll(" ?, ?", ",")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Clé de recherche d'un nom de ville : normalisé, sans accents ni ponctuation
+     * "Saint-Étienne", "saint etienne" et "SAINT ETIENNE" donnent "saint etienne"
+     *
+     * @param name Nom saisi (peut être null)
+     * @return Clé de recherche, chaîne vide si null
+     */
+    public static String searchKey(String name) {
+        String normalized = Normalizer.normalize(normalize(name), Normalizer.Form.NFD);
+        return normalized.replaceAll("\\p{M}+", "")
+                .replaceAll("[-'’.]", " ")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+}
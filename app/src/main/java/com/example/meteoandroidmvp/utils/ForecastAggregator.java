@@ -0,0 +1,191 @@
+package com.example.meteoandroidmvp.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.meteoandroidmvp.model.ForecastDay;
+import com.example.meteoandroidmvp.model.ForecastResponse;
+import com.example.meteoandroidmvp.model.WeatherResponse;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Regroupe les créneaux des prévisions par jour et calcule le résumé de chaque jour
+ * (températures extrêmes, plus forte probabilité de précipitations, temps dominant)
+ * Les jours sont ceux de la ville (décalage UTC renvoyé par l'API), pas ceux de l'appareil :
+ * le jour d'un créneau se calcule par simple division, sans Calendar ni fuseau horaire.
+ * Un seul parcours des créneaux ; chaque jour reprend une vue de la liste d'origine.
+ */
+public class ForecastAggregator {
+
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    // Jour de la semaine et date, ex: "lundi 17 juin" (DateTimeFormatter est utilisable par plusieurs threads)
+    private static final DateTimeFormatter DAY_TITLE_FORMAT = DateTimeFormatter.ofPattern("EEEE d MMMM", Locale.FRANCE);
+
+    // Créée au premier regroupement en arrière-plan : byDay reste utilisable hors d'Android
+    private static ForecastAggregator instance;
+
+    // Calculs hors du thread principal, dans l'ordre où ils sont demandés
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "forecast-aggregation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Interface pour recevoir les jours de prévisions
+     */
+    public interface Callback {
+        /**
+         * @param forecast Prévisions regroupées
+         * @param days Jours de prévisions, dans l'ordre
+         */
+        void onAggregated(ForecastResponse forecast, List<ForecastDay> days);
+    }
+
+    private ForecastAggregator() {
+    }
+
+    public static synchronized ForecastAggregator getInstance() {
+        if (instance == null) {
+            instance = new ForecastAggregator();
+        }
+        return instance;
+    }
+
+    /**
+     * Regroupe les prévisions en arrière-plan
+     *
+     * @param forecast Prévisions
+     * @param callback Appelé sur le thread principal
+     */
+    public void aggregate(ForecastResponse forecast, Callback callback) {
+        executor.execute(() -> {
+            List<ForecastDay> days = byDay(forecast, System.currentTimeMillis());
+            mainHandler.post(() -> callback.onAggregated(forecast, days));
+        });
+    }
+
+    /**
+     * Regroupe les prévisions par jour local de la ville
+     *
+     * @param forecast Prévisions
+     * @param nowMillis Heure actuelle, pour les titres "Aujourd'hui" et "Demain"
+     * @return Jours de prévisions, dans l'ordre
+     */
+    public static List<ForecastDay> byDay(ForecastResponse forecast, long nowMillis) {
+        List<ForecastResponse.ForecastItem> items = forecast != null ? forecast.getForecastItems() : null;
+        if (items == null || items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        ForecastResponse.City city = forecast.getCity();
+        int offset = city != null ? city.getTimezoneOffset() : 0;
+        long today = Math.floorDiv(Math.floorDiv(nowMillis, 1000) + offset, SECONDS_PER_DAY);
+
+        // Comptage des conditions du jour en cours (au plus une entrée par créneau)
+        int count = items.size();
+        int[] conditionIds = new int[count];
+        int[] conditionCounts = new int[count];
+        WeatherResponse.Weather[] conditions = new WeatherResponse.Weather[count];
+        int distinct = 0;
+
+        List<ForecastDay> days = new ArrayList<>(count / 8 + 2);
+        long day = 0;
+        int dayStart = 0;
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        float precipitation = 0;
+
+        for (int i = 0; i < count; i++) {
+            ForecastResponse.ForecastItem item = items.get(i);
+            long itemDay = Math.floorDiv(item.getDateTime() + offset, SECONDS_PER_DAY);
+            if (i > 0 && itemDay != day) {
+                days.add(newDay(items, dayStart, i, day, today, offset, min, max, precipitation,
+                        dominant(conditions, conditionCounts, distinct)));
+                dayStart = i;
+                min = Float.POSITIVE_INFINITY;
+                max = Float.NEGATIVE_INFINITY;
+                precipitation = 0;
+                distinct = 0;
+            }
+            day = itemDay;
+
+            WeatherResponse.Main main = item.getMain();
+            if (main != null) {
+                min = Math.min(min, Math.min(main.getTempMin(), main.getTemperature()));
+                max = Math.max(max, Math.max(main.getTempMax(), main.getTemperature()));
+            }
+            precipitation = Math.max(precipitation, item.getProbabilityOfPrecipitation());
+
+            List<WeatherResponse.Weather> weather = item.getWeather();
+            if (weather != null && !weather.isEmpty() && weather.get(0) != null) {
+                WeatherResponse.Weather condition = weather.get(0);
+                int slot = 0;
+                while (slot < distinct && conditionIds[slot] != condition.getId()) {
+                    slot++;
+                }
+                if (slot == distinct) {
+                    conditionIds[slot] = condition.getId();
+                    conditionCounts[slot] = 0;
+                    conditions[slot] = condition;
+                    distinct++;
+                }
+                conditionCounts[slot]++;
+            }
+        }
+        days.add(newDay(items, dayStart, count, day, today, offset, min, max, precipitation,
+                dominant(conditions, conditionCounts, distinct)));
+        return days;
+    }
+
+    private static ForecastDay newDay(List<ForecastResponse.ForecastItem> items, int from, int to, long day, long today,
+                                      int offset, float min, float max, float precipitation,
+                                      WeatherResponse.Weather dominant) {
+        ForecastDay forecastDay = new ForecastDay(dayTitle(day, today));
+        forecastDay.setHourlyForecasts(items.subList(from, to));
+        // Aucune température dans le jour : résumé à zéro plutôt qu'infini
+        if (min > max) {
+            min = 0;
+            max = 0;
+        }
+        forecastDay.setSummary(day, offset, min, max, precipitation, dominant);
+        return forecastDay;
+    }
+
+    /**
+     * Conditions les plus fréquentes ; à égalité, celles rencontrées en premier
+     */
+    private static WeatherResponse.Weather dominant(WeatherResponse.Weather[] conditions, int[] counts, int distinct) {
+        int best = -1;
+        for (int slot = 0; slot < distinct; slot++) {
+            if (best < 0 || counts[slot] > counts[best]) {
+                best = slot;
+            }
+        }
+        return best >= 0 ? conditions[best] : null;
+    }
+
+    /**
+     * @return Titre du jour (ex: "Aujourd'hui", "Demain", "Lundi 17 juin")
+     */
+    private static String dayTitle(long day, long today) {
+        if (day == today) {
+            return "Aujourd'hui";
+        }
+        if (day == today + 1) {
+            return "Demain";
+        }
+        String title = LocalDate.ofEpochDay(day).format(DAY_TITLE_FORMAT);
+        // En français, mettre la première lettre en majuscule
+        return title.substring(0, 1).toUpperCase(Locale.FRANCE) + title.substring(1);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.meteoandroidmvp.utils;
+
+import java.util.Locale;
+
+/**
+ * Classe utilitaire qui ramène des coordonnées GPS au centre d'une cellule de grille
+ * Deux positions distantes de quelques mètres (imprécision du GPS) tombent dans la même
+ * cellule et produisent donc la même URL : elles partagent l'entrée de cache HTTP et
+ * la requête en cours. Les cellules font environ la même taille partout : le pas en
+ * longitude s'élargit avec la latitude pour compenser le resserrement des méridiens.
+ */
+public class GeoQuantizer {
+
+    // Longueur d'un degré de latitude, en mètres
+    private static final double METERS_PER_DEGREE = 111_320;
+
+    // Taille de cellule par défaut, en mètres (la météo ne varie pas à cette échelle)
+    public static final double DEFAULT_CELL_SIZE_METERS = 1500;
+
+    // Taille de cellule courante
+    private static volatile double cellSizeMeters = DEFAULT_CELL_SIZE_METERS;
+
+    private GeoQuantizer() {
+    }
+
+    /**
+     * Change la taille des cellules
+     *
+     * @param meters Côté d'une cellule, en mètres (strictement positif)
+     */
+    public static void setCellSizeMeters(double meters) {
+        if (meters <= 0) {
+            throw new IllegalArgumentException("Taille de cellule invalide : " + meters);
+        }
+        cellSizeMeters = meters;
+    }
+
+    public static double getCellSizeMeters() {
+        return cellSizeMeters;
+    }
+
+    /**
+     * @param latitude Latitude en degrés décimaux
+     * @return Latitude du centre de la bande qui contient ce point
+     */
+    public static double snapLatitude(double latitude) {
+        double step = latitudeStep();
+        double snapped = (Math.floor(latitude / step) + 0.5) * step;
+        return round(Math.max(-90, Math.min(90, snapped)));
+    }
+
+    /**
+     * @param latitude Latitude en degrés décimaux
+     * @param longitude Longitude en degrés décimaux
+     * @return Longitude du centre de la cellule qui contient ce point
+     */
+    public static double snapLongitude(double latitude, double longitude) {
+        // Pas calculé sur le centre de la bande, pour qu'il soit identique pour tous ses points
+        double step = longitudeStep(snapLatitude(latitude));
+        double snapped = (Math.floor(longitude / step) + 0.5) * step;
+        return round(Math.max(-180, Math.min(180, snapped)));
+    }
+
+    /**
+     * Identifiant de la cellule, utilisable comme clé (requêtes en cours, caches)
+     *
+     * @return Coordonnées du centre de la cellule, par exemple « 48.8530,2.3505 »
+     */
+    public static String cellKey(double latitude, double longitude) {
+        return format(snapLatitude(latitude)) + "," + format(snapLongitude(latitude, longitude));
+    }
+
+    /**
+     * Écrit une coordonnée avec une précision fixe, indépendante de la langue du téléphone
+     */
+    public static String format(double coordinate) {
+        return String.format(Locale.ROOT, "%.4f", coordinate);
+    }
+
+    private static double latitudeStep() {
+        return cellSizeMeters / METERS_PER_DEGREE;
+    }
+
+    private static double longitudeStep(double latitude) {
+        double cos = Math.cos(Math.toRadians(latitude));
+        // Près des pôles, une seule cellule fait le tour de la Terre
+        return Math.min(360, cellSizeMeters / (METERS_PER_DEGREE * Math.max(cos, 1e-6)));
+    }
+
+    // Arrondi à 4 décimales (environ 10 m), bien en deçà de la taille d'une cellule
+    private static double round(double coordinate) {
+        return Math.round(coordinate * 10_000) / 10_000.0;
+    }
+}
@@ -7,6 +7,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
 import java.io.IOException;
+import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.Call;
@@ -17,6 +18,9 @@ import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 
+import com.example.meteoandroidmvp.api.FreshDataStore;
+import com.example.meteoandroidmvp.api.FreshnessPolicy;
+import com.example.meteoandroidmvp.api.HttpRuntime;
 import com.example.meteoandroidmvp.utils.Constants;
 
 /**
@@ -34,12 +38,8 @@ public class MistralAIService {
     // Type de média pour les requêtes JSON
     private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
     
-    // Client HTTP
-    private static final OkHttpClient client = new OkHttpClient.Builder()
-            .connectTimeout(60, TimeUnit.SECONDS)
-            .readTimeout(60, TimeUnit.SECONDS)
-            .writeTimeout(60, TimeUnit.SECONDS)
-            .build();
+    // Client HTTP, dérivé du socle partagé avec les appels météo (créé au premier appel)
+    private static OkHttpClient client = null;
     
     // Gson pour la sérialisation/désérialisation JSON
     private static final Gson gson = new Gson();
@@ -52,6 +52,22 @@ public class MistralAIService {
         void onFailure(String errorMessage);
     }
     
+    /**
+     * Retourne le client HTTP de Mistral AI
+     * Il partage le pool de connexions et le dispatcher de l'application,
+     * seuls les timeouts (plus longs pour la génération de texte) lui sont propres
+     */
+    private static synchronized OkHttpClient getClient() {
+        if (client == null) {
+            client = HttpRuntime.newClientBuilder()
+                    .connectTimeout(60, TimeUnit.SECONDS)
+                    .readTimeout(60, TimeUnit.SECONDS)
+                    .writeTimeout(60, TimeUnit.SECONDS)
+                    .build();
+        }
+        return client;
+    }
+    
     /**
      * Génère une recommandation vestimentaire en utilisant l'API Mistral AI
      * 
@@ -70,6 +86,14 @@ public class MistralAIService {
             int humidity,
             AIResponseCallback callback) {
         
+        // Mêmes conditions dans le même créneau de 3 heures : la recommandation ne changerait pas
+        String cacheKey = recommendationKey(cityName, temperature, weatherDescription, windSpeed, humidity);
+        String cached = FreshDataStore.getInstance().get(cacheKey, String.class);
+        if (cached != null) {
+            callback.onResponse(cached);
+            return;
+        }
+        
         // Construction du prompt pour l'IA
         String prompt = String.format(
                 "Tu es un assistant météo spécialisé dans les recommandations vestimentaires. " +
@@ -115,7 +139,7 @@ public class MistralAIService {
                 .build();
         
         // Exécution de la requête de manière asynchrone
-        client.newCall(request).enqueue(new Callback() {
+        getClient().newCall(request).enqueue(new Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
                 Log.e("MistralAI", "Erreur lors de la communication avec l'API", e);
@@ -155,7 +179,9 @@ public class MistralAIService {
                             .get("content")
                             .getAsString();
                     
-                    // Transmission de la réponse au callback
+                    // Mémorisation jusqu'au prochain créneau, puis transmission au callback
+                    FreshDataStore.getInstance().put(cacheKey, aiRecommendation,
+                            FreshnessPolicy.nextSlotBoundary(System.currentTimeMillis()));
                     callback.onResponse(aiRecommendation);
                     
                 } catch (Exception e) {
@@ -178,4 +204,15 @@ public class MistralAIService {
             }
         });
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Clé de mémorisation d'une recommandation
+     * Les valeurs sont arrondies comme dans le prompt : des écarts invisibles pour l'IA
+     * ne provoquent pas de nouvel appel
+     */
+    private static String recommendationKey(String cityName, float temperature, String weatherDescription,
+                                            float windSpeed, int humidity) {
+        return String.format(Locale.ROOT, "ai|%s|%.0f|%s|%.0f|%d",
+                CityNames.normalize(cityName), temperature, weatherDescription, windSpeed, humidity);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,302 @@
+package com.example.meteoandroidmvp.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.meteoandroidmvp.model.ForecastResponse;
+import com.example.meteoandroidmvp.model.WeatherResponse;
+import com.example.meteoandroidmvp.model.WeatherSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.GzipSink;
+import okio.GzipSource;
+import okio.Okio;
+
+/**
+ * Sauvegarde du dernier écran météo affiché, pour un lancement instantané
+ * L'instantané (binaire compressé, quelques Ko) est relu en arrière-plan dès la création
+ * du processus : quand l'écran météo se construit, il est déjà décodé et s'affiche
+ * avant la première image, sans attendre la localisation ni le réseau.
+ * Les écritures sont faites en arrière-plan, dans un fichier temporaire renommé ensuite,
+ * et regroupées : seul le dernier écran demandé est écrit.
+ * Un instantané par favori, préparé par le préchargement périodique, est aussi gardé :
+ * ouvrir un favori affiche le sien tout de suite, pendant que les données se rafraîchissent.
+ */
+public class WeatherSnapshotStore {
+
+    private static final String TAG = "WeatherSnapshot";
+
+    // Fichier de l'instantané, dans le stockage interne de l'application
+    private static final String FILE_NAME = "weather_snapshot.bin";
+
+    // Dossier des instantanés des favoris (un fichier par favori)
+    private static final String FAVORITES_DIR = "favorites_snapshots";
+    private static final String FAVORITE_SUFFIX = ".bin";
+
+    // Attente maximale de la lecture de démarrage, depuis le thread principal (quelques images)
+    private static final long RESTORE_TIMEOUT_MILLIS = 50;
+
+    private static final WeatherSnapshotStore INSTANCE = new WeatherSnapshotStore();
+
+    // Thread unique : les lectures et écritures du fichier ne se chevauchent jamais
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "weather-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Dernier écran à écrire (null si aucune écriture en attente)
+    private final AtomicReference<WeatherSnapshot> pendingWrite = new AtomicReference<>();
+
+    private File file = null;
+    private File favoritesDir = null;
+
+    // Instantanés des favoris, par clé (voir cityKey et positionKey)
+    private final Map<String, WeatherSnapshot> favorites = new ConcurrentHashMap<>();
+
+    // Lecture lancée au démarrage
+    private Future<WeatherSnapshot> preload = null;
+
+    private WeatherSnapshotStore() {
+    }
+
+    public static WeatherSnapshotStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Lance la lecture de l'instantané en arrière-plan
+     * À appeler le plus tôt possible (création de l'application)
+     *
+     * @param context Contexte Android
+     */
+    public synchronized void init(Context context) {
+        if (file != null) {
+            return;
+        }
+        file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+        favoritesDir = new File(context.getApplicationContext().getFilesDir(), FAVORITES_DIR);
+        File target = file;
+        File directory = favoritesDir;
+        preload = executor.submit(() -> read(target));
+        // Après le dernier écran, qui est attendu par le premier affichage
+        executor.execute(() -> readFavorites(directory));
+    }
+
+    /**
+     * @param cityName Nom d'un favori ajouté par recherche
+     * @return Clé de son instantané
+     */
+    public static String cityKey(String cityName) {
+        return "city:" + CityNames.normalize(cityName);
+    }
+
+    /**
+     * @return Clé de l'instantané d'un favori ajouté par localisation
+     */
+    public static String positionKey(double latitude, double longitude) {
+        return "cell:" + GeoQuantizer.cellKey(latitude, longitude);
+    }
+
+    /**
+     * @param key Clé du favori (voir {@link #cityKey} et {@link #positionKey})
+     * @return Dernier instantané préparé pour ce favori, ou null (rien de préparé, ou lecture pas terminée)
+     */
+    public WeatherSnapshot restoreFavorite(String key) {
+        return favorites.get(key);
+    }
+
+    /**
+     * Sauvegarde les données préparées d'un favori
+     *
+     * @param key Clé du favori
+     * @param weather Météo actuelle
+     * @param forecast Prévisions de la même ville
+     */
+    public void saveFavorite(String key, WeatherResponse weather, ForecastResponse forecast) {
+        File directory;
+        synchronized (this) {
+            directory = favoritesDir;
+        }
+        if (directory == null || weather == null || forecast == null) {
+            return;
+        }
+        WeatherSnapshot snapshot = new WeatherSnapshot(System.currentTimeMillis(), weather, forecast);
+        favorites.put(key, snapshot);
+        executor.execute(() -> {
+            if (directory.isDirectory() || directory.mkdirs()) {
+                write(new File(directory, fileName(key)), snapshot);
+            }
+        });
+    }
+
+    /**
+     * Supprime les instantanés des villes qui ne sont plus dans les favoris
+     *
+     * @param keys Clés des favoris actuels
+     */
+    public void retainFavorites(Set<String> keys) {
+        File directory;
+        synchronized (this) {
+            directory = favoritesDir;
+        }
+        favorites.keySet().retainAll(keys);
+        if (directory == null) {
+            return;
+        }
+        executor.execute(() -> {
+            File[] files = directory.listFiles();
+            if (files == null) {
+                return;
+            }
+            for (File favorite : files) {
+                String key = keyOf(favorite);
+                if (key == null || !keys.contains(key)) {
+                    favorite.delete();
+                }
+            }
+        });
+    }
+
+    /**
+     * Retourne le dernier écran sauvegardé
+     * Si la lecture de démarrage n'est pas terminée, attend sa fin, au plus
+     * {@value #RESTORE_TIMEOUT_MILLIS} ms : au-delà (stockage lent, écritures en file),
+     * l'écran démarre sur son état de chargement habituel plutôt que de bloquer
+     *
+     * @return Instantané, ou null s'il n'y en a pas (premier lancement, fichier illisible,
+     *         lecture trop lente)
+     */
+    public WeatherSnapshot restore() {
+        Future<WeatherSnapshot> future;
+        synchronized (this) {
+            future = preload;
+        }
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get(RESTORE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            Log.w(TAG, "Instantané non relu à temps, affichage sans instantané");
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sauvegarde l'écran affiché
+     *
+     * @param weather Météo actuelle
+     * @param forecast Prévisions de la même ville
+     */
+    public void save(WeatherResponse weather, ForecastResponse forecast) {
+        File target;
+        synchronized (this) {
+            target = file;
+        }
+        if (target == null || weather == null || forecast == null) {
+            return;
+        }
+        WeatherSnapshot snapshot = new WeatherSnapshot(System.currentTimeMillis(), weather, forecast);
+        synchronized (this) {
+            // Un écran météo recréé dans ce processus repart du dernier écran affiché
+            preload = CompletableFuture.completedFuture(snapshot);
+        }
+        if (pendingWrite.getAndSet(snapshot) == null) {
+            executor.execute(() -> write(target, pendingWrite.getAndSet(null)));
+        }
+    }
+
+    private static WeatherSnapshot read(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try (BufferedSource source = Okio.buffer(new GzipSource(Okio.source(file)))) {
+            WeatherSnapshot snapshot = WeatherSnapshot.readFrom(source);
+            Log.d(TAG, "Instantané relu en " + (System.nanoTime() - start) / 1_000_000 + " ms ("
+                    + file.length() + " octets)");
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            // Fichier tronqué ou d'une ancienne version : il sera réécrit au prochain affichage
+            Log.w(TAG, "Instantané illisible, ignoré", e);
+            return null;
+        }
+    }
+
+    private void readFavorites(File directory) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File favorite : files) {
+            String key = keyOf(favorite);
+            WeatherSnapshot snapshot = key != null ? read(favorite) : null;
+            if (snapshot != null) {
+                // Un instantané plus récent a pu être préparé pendant la lecture
+                favorites.putIfAbsent(key, snapshot);
+            }
+        }
+    }
+
+    private static String fileName(String key) {
+        try {
+            return URLEncoder.encode(key, "UTF-8") + FAVORITE_SUFFIX;
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String keyOf(File favorite) {
+        String name = favorite.getName();
+        if (!name.endsWith(FAVORITE_SUFFIX)) {
+            return null;
+        }
+        try {
+            return URLDecoder.decode(name.substring(0, name.length() - FAVORITE_SUFFIX.length()), "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void write(File file, WeatherSnapshot snapshot) {
+        if (snapshot == null) {
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (BufferedSink sink = Okio.buffer(new GzipSink(Okio.sink(temp)))) {
+            snapshot.writeTo(sink);
+        } catch (IOException e) {
+            Log.w(TAG, "Écriture de l'instantané impossible", e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            Log.w(TAG, "Remplacement de l'instantané impossible");
+            temp.delete();
+        }
+    }
+}
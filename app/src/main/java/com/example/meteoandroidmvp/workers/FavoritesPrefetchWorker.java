@@ -0,0 +1,128 @@
+package com.example.meteoandroidmvp.workers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.meteoandroidmvp.api.ApiClient;
+import com.example.meteoandroidmvp.api.FavoritesPrefetcher;
+import com.example.meteoandroidmvp.model.FavoriteCity;
+import com.example.meteoandroidmvp.repository.FavoritesRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tâche périodique qui prépare la météo et les prévisions des favoris
+ * Planifiée par WorkManager (une seule instance, relancée après un redémarrage),
+ * seulement avec une connexion ; en option, seulement en Wi-Fi (réseau non limité)
+ * et/ou pendant la charge. Un passage qui n'a rien pu récupérer est retenté avec
+ * un délai qui double à chaque échec.
+ */
+public class FavoritesPrefetchWorker extends Worker {
+
+    private static final String TAG = "FavoritesPrefetch";
+
+    // Nom unique de la tâche périodique
+    private static final String WORK_NAME = "favorites_prefetch";
+
+    // Fréquence du préchargement et premier délai avant une nouvelle tentative
+    private static final long INTERVAL_HOURS = 1;
+    private static final long BACKOFF_MINUTES = 1;
+
+    // Préférences des conditions d'exécution
+    private static final String PREFERENCES_NAME = "MeteoPrefetchPrefs";
+    private static final String UNMETERED_ONLY_KEY = "unmetered_only";
+    private static final String CHARGING_ONLY_KEY = "charging_only";
+
+    public FavoritesPrefetchWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        List<FavoriteCity> favorites = FavoritesRepository.getInstance().loadAllBlocking();
+        if (favorites.isEmpty()) {
+            return Result.success();
+        }
+
+        FavoritesPrefetcher.Result result = new FavoritesPrefetcher(ApiClient.getWeatherService()).prefetch(favorites);
+        Log.d(TAG, result.getPrefetched() + " favoris préparés, " + result.getFailed() + " en échec, "
+                + result.getSkipped() + " reportés");
+
+        // Rien n'a pu être récupéré (réseau) : nouvelle tentative après le délai d'attente
+        // Budget d'appels bas : pas de nouvelle tentative avant le prochain passage
+        if (result.getPrefetched() == 0 && result.getFailed() > 0 && result.getSkipped() == 0) {
+            return Result.retry();
+        }
+        return Result.success();
+    }
+
+    /**
+     * Planifie le préchargement périodique avec les conditions enregistrées
+     * Une planification existante est mise à jour (sans repartir de zéro)
+     *
+     * @param context Contexte Android
+     */
+    public static void schedule(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(prefs.getBoolean(UNMETERED_ONLY_KEY, false)
+                        ? NetworkType.UNMETERED
+                        : NetworkType.CONNECTED)
+                .setRequiresCharging(prefs.getBoolean(CHARGING_ONLY_KEY, false))
+                .setRequiresBatteryNotLow(true)
+                .build();
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                FavoritesPrefetchWorker.class, INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_MINUTES, TimeUnit.MINUTES)
+                .build();
+
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.UPDATE, request);
+    }
+
+    /**
+     * Limite le préchargement au Wi-Fi (réseau non limité) et/ou à la charge, puis replanifie
+     *
+     * @param context Contexte Android
+     * @param unmeteredOnly true pour ne précharger que sur un réseau non limité
+     * @param chargingOnly true pour ne précharger que pendant la charge
+     */
+    public static void setConditions(Context context, boolean unmeteredOnly, boolean chargingOnly) {
+        context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE).edit()
+                .putBoolean(UNMETERED_ONLY_KEY, unmeteredOnly)
+                .putBoolean(CHARGING_ONLY_KEY, chargingOnly)
+                .apply();
+        schedule(context);
+    }
+
+    /**
+     * @return true si le préchargement est limité aux réseaux non limités
+     */
+    public static boolean isUnmeteredOnly(Context context) {
+        return context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE)
+                .getBoolean(UNMETERED_ONLY_KEY, false);
+    }
+
+    /**
+     * @return true si le préchargement est limité aux périodes de charge
+     */
+    public static boolean isChargingOnly(Context context) {
+        return context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE)
+                .getBoolean(CHARGING_ONLY_KEY, false);
+    }
+}
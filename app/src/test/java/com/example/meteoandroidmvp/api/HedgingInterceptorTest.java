@@ -0,0 +1,189 @@
+package com.example.meteoandroidmvp.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Requêtes couvertes face à un serveur lent
+ * Les appels passent par le dispatcher partagé de {@link HttpRuntime} (5 appels simultanés
+ * par hôte) : plus de 5 appels lents en même temps ne doivent pas se bloquer mutuellement.
+ */
+public class HedgingInterceptorTest {
+
+    // Plus d'appels simultanés que le dispatcher n'en accepte par hôte
+    private static final int CONCURRENT_CALLS = 8;
+
+    // Délai de réponse du serveur, bien au-delà du délai de couverture (250 ms au minimum)
+    private static final long SLOW_RESPONSE_MILLIS = 600;
+
+    // Délai maximal d'attente de tous les appels
+    private static final long TIMEOUT_SECONDS = 20;
+
+    private final MockWebServer server = new MockWebServer();
+    private volatile long responseDelayMillis = SLOW_RESPONSE_MILLIS;
+
+    // Délai de la première requête reçue seulement (les suivantes utilisent responseDelayMillis)
+    private volatile long firstResponseDelayMillis = -1;
+    private final AtomicInteger received = new AtomicInteger();
+    private HedgingInterceptor hedging;
+
+    @Before
+    public void setUp() throws Exception {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                long delay = received.getAndIncrement() == 0 && firstResponseDelayMillis >= 0
+                        ? firstResponseDelayMillis : responseDelayMillis;
+                return new MockResponse()
+                        .setHeadersDelay(delay, TimeUnit.MILLISECONDS)
+                        .setBody("{\"id\":2988507,\"name\":\"Paris\"}");
+            }
+        });
+        server.start();
+
+        // Assez de mesures rapides pour que la couverture se déclenche au délai minimal
+        LatencyHistogram latencies = NetworkMetrics.getInstance().get(OwmEndpoint.WEATHER).getTimeToFirstByte();
+        while (latencies.getCount() < 20) {
+            latencies.record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        hedging = new HedgingInterceptor();
+        hedging.setBranchFactory(HttpRuntime.newClientBuilder().build());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void slowConcurrentCalls_allComplete() throws Exception {
+        OkHttpClient client = HttpRuntime.newClientBuilder()
+                .addInterceptor(hedging)
+                .build();
+        CountDownLatch done = new CountDownLatch(CONCURRENT_CALLS);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+
+        for (int i = 0; i < CONCURRENT_CALLS; i++) {
+            client.newCall(weatherRequest("Paris" + i)).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    failure.set(e);
+                    done.countDown();
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try (Response ignored = response) {
+                        if (response.isSuccessful()) {
+                            succeeded.incrementAndGet();
+                        }
+                    }
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue("Appels bloqués au bout de " + TIMEOUT_SECONDS + " s",
+                done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertNull(failure.get());
+        assertEquals(CONCURRENT_CALLS, succeeded.get());
+        assertTrue(hedging.getHedgesLaunched() > 0);
+    }
+
+    @Test
+    public void hedgedCall_stopsAtCallTimeout() throws Exception {
+        // Au-delà de l'échéance, mais sous l'attente d'arrêt de MockWebServer (5 s)
+        responseDelayMillis = 3000;
+        OkHttpClient client = HttpRuntime.newClientBuilder()
+                .addInterceptor(hedging)
+                .callTimeout(1, TimeUnit.SECONDS)
+                .build();
+
+        long start = System.nanoTime();
+        IOException failure = null;
+        try (Response ignored = client.newCall(weatherRequest("Lyon")).execute()) {
+            // Une réponse ne devrait pas arriver avant l'échéance
+        } catch (IOException e) {
+            failure = e;
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertNotNull(failure);
+        assertTrue("Échéance dépassée : " + elapsedMillis + " ms", elapsedMillis < 2500);
+    }
+
+    @Test
+    public void hedgeWins_primaryIsCancelled() throws Exception {
+        firstResponseDelayMillis = 3000;
+        responseDelayMillis = 0;
+        AtomicInteger canceled = new AtomicInteger();
+        hedging.setBranchFactory(HttpRuntime.newClientBuilder()
+                .eventListener(new EventListener() {
+                    @Override
+                    public void canceled(Call call) {
+                        canceled.incrementAndGet();
+                    }
+                })
+                .build());
+        OkHttpClient client = HttpRuntime.newClientBuilder()
+                .addInterceptor(hedging)
+                .build();
+
+        long start = System.nanoTime();
+        try (Response response = client.newCall(weatherRequest("Nice")).execute()) {
+            assertTrue(response.isSuccessful());
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(1, hedging.getHedgesWon());
+        assertEquals(1, canceled.get());
+        assertTrue("Réponse de la couverture attendue : " + elapsedMillis + " ms", elapsedMillis < 2000);
+    }
+
+    @Test
+    public void hedgeDelay_ignoresCacheAnswers() {
+        NetworkMetrics.EndpointMetrics metrics = new NetworkMetrics.EndpointMetrics();
+        // Réponses du cache : durées totales de 1 ms, sans échange réseau
+        for (int i = 0; i < 100; i++) {
+            metrics.getTotal().record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertEquals(0, HedgingInterceptor.hedgeDelayMillis(metrics));
+
+        for (int i = 0; i < 20; i++) {
+            metrics.getTimeToFirstByte().record(TimeUnit.MILLISECONDS.toNanos(800));
+        }
+        // 800 ms tombe dans l'intervalle de l'histogramme borné à 2^20 µs
+        assertEquals(1048, HedgingInterceptor.hedgeDelayMillis(metrics));
+    }
+
+    private Request weatherRequest(String city) {
+        return new Request.Builder()
+                .url(server.url("/data/2.5/weather?q=" + city))
+                .build();
+    }
+}
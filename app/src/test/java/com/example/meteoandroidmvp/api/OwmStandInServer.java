@@ -0,0 +1,146 @@
+package com.example.meteoandroidmvp.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Serveur local qui remplace OpenWeatherMap dans les tests
+ * Sert des réponses enregistrées (src/test/resources/fixtures) pour les points d'accès
+ * « weather », « forecast », One Call et de géocodage, avec une latence, une gigue et un débit configurables,
+ * sans clé API ni accès à Internet.
+ */
+public class OwmStandInServer {
+
+    private final MockWebServer server = new MockWebServer();
+
+    private final String weatherBody;
+    private final String forecastBody;
+    private final String geoBody;
+    private final String oneCallBody;
+
+    // Latence avant les en-têtes de la réponse, et variation aléatoire autour de cette valeur
+    private volatile long latencyMillis = 0;
+    private volatile long jitterMillis = 0;
+
+    // Débit du corps de la réponse (0 = illimité)
+    private volatile long bytesPerSecond = 0;
+
+    public OwmStandInServer() throws IOException {
+        weatherBody = readFixture("fixtures/weather.json");
+        forecastBody = readFixture("fixtures/forecast.json");
+        geoBody = readFixture("fixtures/geo.json");
+        oneCallBody = readFixture("fixtures/onecall.json");
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return respond(request);
+            }
+        });
+    }
+
+    /**
+     * Démarre le serveur sur un port libre
+     */
+    public void start() throws IOException {
+        server.start();
+    }
+
+    public void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    /**
+     * @return URL de base à passer à {@link ApiClient#setBaseUrl(String)}
+     */
+    public String getBaseUrl() {
+        return server.url("/data/2.5/").toString();
+    }
+
+    /**
+     * @param latencyMillis Latence moyenne avant la réponse
+     * @param jitterMillis Variation maximale, en plus ou en moins
+     */
+    public OwmStandInServer setLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        return this;
+    }
+
+    /**
+     * @param bytesPerSecond Débit du corps des réponses, 0 pour ne pas le limiter
+     */
+    public OwmStandInServer setBandwidth(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * @return Nombre de requêtes reçues depuis le démarrage
+     */
+    public int getRequestCount() {
+        return server.getRequestCount();
+    }
+
+    private MockResponse respond(RecordedRequest request) {
+        String path = request.getRequestUrl() != null ? request.getRequestUrl().encodedPath() : "";
+        MockResponse response;
+        if (path.endsWith("/weather")) {
+            response = json(weatherBody);
+        } else if (path.endsWith("/forecast")) {
+            response = json(forecastBody);
+        } else if (path.endsWith("/onecall")) {
+            response = json(oneCallBody);
+        } else if (path.equals("/geo/1.0/direct") || path.equals("/geo/1.0/reverse")) {
+            response = json(geoBody);
+        } else {
+            return new MockResponse().setResponseCode(404)
+                    .setBody("{\"cod\":\"404\",\"message\":\"city not found\"}");
+        }
+
+        long delay = latencyMillis;
+        if (jitterMillis > 0) {
+            delay += ThreadLocalRandom.current().nextLong(-jitterMillis, jitterMillis + 1);
+        }
+        response.setHeadersDelay(Math.max(0, delay), TimeUnit.MILLISECONDS);
+
+        if (bytesPerSecond > 0) {
+            // Corps envoyé par tranches de 10 ms pour simuler le débit
+            response.throttleBody(Math.max(1, bytesPerSecond / 100), 10, TimeUnit.MILLISECONDS);
+        }
+        return response;
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(body);
+    }
+
+    /**
+     * @param name Chemin de la réponse enregistrée, ex: "fixtures/weather.json"
+     * @return Contenu de la réponse
+     */
+    public static String readFixture(String name) throws IOException {
+        try (InputStream input = OwmStandInServer.class.getClassLoader().getResourceAsStream(name)) {
+            if (input == null) {
+                throw new IOException("Fixture introuvable : " + name);
+            }
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.meteoandroidmvp.model;
+
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Index des favoris : recherche par nom et par identifiant, remplacement à la même place
+ * et liste figée transmise à l'affichage
+ */
+public class FavoritesIndexTest {
+
+    @Test
+    public void findByCityId_followsPutReplaceAndRemove() {
+        FavoritesIndex index = new FavoritesIndex();
+        FavoriteCity paris = favorite(2988507, "Paris");
+        FavoriteCity here = favorite(2988507, "Paris 1er");
+        FavoriteCity lyon = favorite(0, "Lyon");
+        index.put(paris);
+        index.putIfAbsent(here);
+        index.put(lyon);
+
+        assertSame(paris, index.findByCityId(2988507));
+        assertNull(index.findByCityId(0));
+
+        // Identifiant appris au rafraîchissement : la copie remplace l'original
+        FavoriteCity lyonWithId = new FavoriteCity(lyon);
+        lyonWithId.setCityId(2996944);
+        assertSame(lyon, index.put(lyonWithId));
+        assertSame(lyonWithId, index.findByCityId(2996944));
+
+        // Le premier favori supprimé, le suivant portant l'identifiant prend le relais
+        index.remove(" PARIS ");
+        assertSame(here, index.findByCityId(2988507));
+        index.remove("Paris 1er");
+        assertNull(index.findByCityId(2988507));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void snapshot_isRebuiltOnReplaceOnly() {
+        FavoritesIndex index = new FavoritesIndex();
+        FavoriteCity paris = favorite(2988507, "Paris");
+        index.put(paris);
+        index.put(favorite(0, "Lyon"));
+        List<FavoriteCity> shown = index.snapshot();
+
+        // Même instance : la liste affichée ne change pas
+        index.put(paris);
+        assertSame(shown, index.snapshot());
+
+        FavoriteCity updated = new FavoriteCity(paris);
+        updated.setLastUpdate(new Date(1_760_745_600_000L));
+        index.put(updated);
+        List<FavoriteCity> rebuilt = index.snapshot();
+
+        assertNotSame(shown, rebuilt);
+        assertSame(paris, shown.get(0));
+        assertEquals(0, paris.getLastUpdate().getTime());
+        // Remplacé à la même place
+        assertSame(updated, rebuilt.get(0));
+        assertEquals("Lyon", rebuilt.get(1).getCityName());
+    }
+
+    private static FavoriteCity favorite(long cityId, String name) {
+        return new FavoriteCity(cityId, name, "FR", new Date(0), 0, 0, false);
+    }
+}
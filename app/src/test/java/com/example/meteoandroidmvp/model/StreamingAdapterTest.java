@@ -0,0 +1,185 @@
+package com.example.meteoandroidmvp.model;
+
+import com.example.meteoandroidmvp.api.OwmStandInServer;
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.internal.ConstructorConstructor;
+import com.google.gson.internal.Excluder;
+import com.google.gson.internal.bind.JsonAdapterAnnotationTypeAdapterFactory;
+import com.google.gson.internal.bind.ReflectiveTypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Adaptateurs JSON écrits à la main de WeatherResponse et ForecastResponse
+ * Sur les réponses enregistrées, ils doivent produire exactement les mêmes objets que
+ * la désérialisation par réflexion de Gson (champ par champ), relire ce qu'ils écrivent,
+ * et ne pas être plus lents qu'elle (mesure lancée seulement avec -Pbenchmarks). Sur une JVM de bureau « chaude », les deux débits sont
+ * proches (la lecture du flux domine) ; le gain attendu se situe sur ART et à la première
+ * lecture, sans parcours des champs par réflexion.
+ */
+public class StreamingAdapterTest {
+
+    // Lectures de chauffe (non mesurées) puis lectures mesurées, par série
+    private static final int WARM_UP_ITERATIONS = 500;
+    private static final int MEASURED_ITERATIONS = 2000;
+    private static final int ROUNDS = 5;
+
+    // Marge tolérée sur la durée des adaptateurs par rapport à la réflexion (bruit de mesure)
+    private static final double TIME_TOLERANCE = 1.5;
+
+    private static String weatherJson;
+    private static String forecastJson;
+
+    // Gson standard : utilise les adaptateurs déclarés par @JsonAdapter
+    private static final Gson streamingGson = new Gson();
+
+    // Gson par réflexion, qui ignore les @JsonAdapter des deux réponses
+    private static final Gson reflectiveGson = reflectiveGson();
+
+    @BeforeClass
+    public static void loadFixtures() throws Exception {
+        weatherJson = OwmStandInServer.readFixture("fixtures/weather.json");
+        forecastJson = OwmStandInServer.readFixture("fixtures/forecast.json");
+    }
+
+    @Test
+    public void weather_matchesReflectiveGson() {
+        WeatherResponse streamed = streamingGson.fromJson(weatherJson, WeatherResponse.class);
+        WeatherResponse reflected = reflectiveGson.fromJson(weatherJson, WeatherResponse.class);
+
+        assertEquals(2988507, streamed.getCityId());
+        assertEquals("Paris", streamed.getCityName());
+        assertEquals(14.62f, streamed.getMain().getTemperature(), 0f);
+        assertEquals("nuageux", streamed.getWeather().get(0).getDescription());
+        assertSameFields("weather", fields(reflected), fields(streamed));
+    }
+
+    @Test
+    public void forecast_matchesReflectiveGson() {
+        ForecastResponse streamed = streamingGson.fromJson(forecastJson, ForecastResponse.class);
+        ForecastResponse reflected = reflectiveGson.fromJson(forecastJson, ForecastResponse.class);
+
+        assertEquals(40, streamed.getForecastItems().size());
+        assertEquals("Paris", streamed.getCity().getName());
+        assertEquals(7200, streamed.getCity().getTimezoneOffset());
+        assertSameFields("forecast", fields(reflected), fields(streamed));
+    }
+
+    @Test
+    public void weather_roundTrip() {
+        WeatherResponse original = streamingGson.fromJson(weatherJson, WeatherResponse.class);
+        String written = streamingGson.toJson(original);
+        WeatherResponse reread = streamingGson.fromJson(written, WeatherResponse.class);
+
+        assertSameFields("weather", fields(original), fields(reread));
+    }
+
+    @Test
+    public void forecast_roundTrip() {
+        ForecastResponse original = streamingGson.fromJson(forecastJson, ForecastResponse.class);
+        String written = streamingGson.toJson(original);
+        ForecastResponse reread = streamingGson.fromJson(written, ForecastResponse.class);
+
+        assertSameFields("forecast", fields(original), fields(reread));
+    }
+
+    @Test
+    public void streamingAdapters_keepUpWithReflection() {
+        assumeTrue("Mesure de temps : lancer avec -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+        // Séries alternées, meilleure série de chaque côté (insensible à l'ordre et à la compilation JIT)
+        long streamingNanos = Long.MAX_VALUE;
+        long reflectiveNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            streamingNanos = Math.min(streamingNanos, parseNanos(streamingGson));
+            reflectiveNanos = Math.min(reflectiveNanos, parseNanos(reflectiveGson));
+        }
+
+        assertTrue("Adaptateurs plus lents que la réflexion : " + streamingNanos + " ns contre " + reflectiveNanos,
+                streamingNanos <= reflectiveNanos * TIME_TOLERANCE);
+    }
+
+    /**
+     * @return Durée totale des lectures mesurées des deux réponses
+     */
+    private static long parseNanos(Gson gson) {
+        long checksum = 0;
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            checksum += gson.fromJson(weatherJson, WeatherResponse.class).getDateTime();
+            checksum += gson.fromJson(forecastJson, ForecastResponse.class).getForecastItems().size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            checksum += gson.fromJson(weatherJson, WeatherResponse.class).getDateTime();
+            checksum += gson.fromJson(forecastJson, ForecastResponse.class).getForecastItems().size();
+        }
+        long elapsed = System.nanoTime() - start;
+        // Empêche l'élimination des lectures
+        assertTrue(checksum != 0);
+        return elapsed;
+    }
+
+    /**
+     * @return Tous les champs de l'objet, lus par réflexion
+     */
+    private static JsonElement fields(Object value) {
+        assertNotNull(value);
+        return reflectiveGson.toJsonTree(value);
+    }
+
+    /**
+     * Compare deux arbres champ par champ, en nommant le premier champ différent
+     */
+    private static void assertSameFields(String path, JsonElement expected, JsonElement actual) {
+        if (expected.isJsonObject() && actual.isJsonObject()) {
+            JsonObject expectedObject = expected.getAsJsonObject();
+            JsonObject actualObject = actual.getAsJsonObject();
+            assertEquals(path + " : champs", expectedObject.keySet(), actualObject.keySet());
+            for (Map.Entry<String, JsonElement> field : expectedObject.entrySet()) {
+                assertSameFields(path + "." + field.getKey(), field.getValue(), actualObject.get(field.getKey()));
+            }
+        } else if (expected.isJsonArray() && actual.isJsonArray()) {
+            assertEquals(path + " : taille", expected.getAsJsonArray().size(), actual.getAsJsonArray().size());
+            for (int i = 0; i < expected.getAsJsonArray().size(); i++) {
+                assertSameFields(path + "[" + i + "]", expected.getAsJsonArray().get(i), actual.getAsJsonArray().get(i));
+            }
+        } else {
+            assertEquals(path, expected, actual);
+        }
+    }
+
+    /**
+     * Gson qui désérialise WeatherResponse et ForecastResponse par réflexion,
+     * comme avant l'ajout de leurs adaptateurs
+     */
+    private static Gson reflectiveGson() {
+        ConstructorConstructor constructors = new ConstructorConstructor(Collections.emptyMap());
+        TypeAdapterFactory reflective = new ReflectiveTypeAdapterFactory(constructors, FieldNamingPolicy.IDENTITY,
+                Excluder.DEFAULT, new JsonAdapterAnnotationTypeAdapterFactory(constructors));
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(new TypeAdapterFactory() {
+                    @Override
+                    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+                        Class<? super T> raw = type.getRawType();
+                        return raw == WeatherResponse.class || raw == ForecastResponse.class
+                                ? reflective.create(gson, type) : null;
+                    }
+                })
+                .create();
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.meteoandroidmvp.presenter;
+
+import com.example.meteoandroidmvp.api.ApiClient;
+import com.example.meteoandroidmvp.api.FreshDataStore;
+import com.example.meteoandroidmvp.api.OwmStandInServer;
+import com.example.meteoandroidmvp.api.QuotaScheduler;
+import com.example.meteoandroidmvp.contract.WeatherContract;
+import com.example.meteoandroidmvp.model.ForecastResponse;
+import com.example.meteoandroidmvp.model.WeatherResponse;
+import com.example.meteoandroidmvp.repository.WeatherRepository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test de non-régression des temps de réponse de bout en bout
+ * Mesure le délai entre l'appel au présentateur et l'affichage (showWeather / showForecast)
+ * à travers toute la pile réseau (OkHttp, intercepteurs, Retrofit, désérialisation),
+ * face à un serveur local qui rejoue des réponses OpenWeatherMap enregistrées.
+ * Le test échoue si le 50e ou le 95e percentile dépasse son budget.
+ */
+public class WeatherPresenterLatencyTest {
+
+    // Conditions réseau simulées : 40 ms ± 20 ms, 512 Ko/s
+    private static final long LATENCY_MILLIS = 40;
+    private static final long JITTER_MILLIS = 20;
+    private static final long BYTES_PER_SECOND = 512 * 1024;
+
+    // Appels de chauffe (non mesurés) puis appels mesurés
+    private static final int WARM_UP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 40;
+
+    // Budgets en millisecondes (latence simulée comprise)
+    private static final long WEATHER_P50_BUDGET = 150;
+    private static final long WEATHER_P95_BUDGET = 300;
+    private static final long FORECAST_P50_BUDGET = 250;
+    private static final long FORECAST_P95_BUDGET = 450;
+    private static final long ONE_CALL_P50_BUDGET = 250;
+    private static final long ONE_CALL_P95_BUDGET = 450;
+
+    // Délai maximal d'attente d'une réponse
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private OwmStandInServer server;
+    private WeatherPresenter presenter;
+    private RecordingView view;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new OwmStandInServer()
+                .setLatency(LATENCY_MILLIS, JITTER_MILLIS)
+                .setBandwidth(BYTES_PER_SECOND);
+        server.start();
+        ApiClient.setBaseUrl(server.getBaseUrl());
+        // Chaque test part d'un quota plein (les appels mesurés restent sous 60 par minute)
+        QuotaScheduler.getInstance().reset();
+
+        presenter = new WeatherPresenter();
+        view = new RecordingView();
+        presenter.attachView(view);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        presenter.detachView();
+        ApiClient.setBaseUrl(null);
+        server.shutdown();
+    }
+
+    @Test
+    public void weatherByCity_staysWithinBudget() throws Exception {
+        long[] latencies = measure(() -> presenter.getWeatherByCity("Paris"));
+        assertEquals("Paris", view.weather.getCityName());
+        assertBudget("weather par ville", latencies, WEATHER_P50_BUDGET, WEATHER_P95_BUDGET);
+    }
+
+    @Test
+    public void weatherByLocation_staysWithinBudget() throws Exception {
+        long[] latencies = measure(() -> presenter.getWeatherByLocation(48.8534, 2.3488));
+        assertNotNull(view.weather);
+        assertBudget("weather par position", latencies, WEATHER_P50_BUDGET, WEATHER_P95_BUDGET);
+    }
+
+    @Test
+    public void forecastByCity_staysWithinBudget() throws Exception {
+        long[] latencies = measure(() -> presenter.getForecastByCity("Paris"));
+        assertEquals(40, view.forecast.getForecastItems().size());
+        assertBudget("forecast par ville", latencies, FORECAST_P50_BUDGET, FORECAST_P95_BUDGET);
+    }
+
+    @Test
+    public void forecastByLocation_staysWithinBudget() throws Exception {
+        long[] latencies = measure(() -> presenter.getForecastByLocation(48.8534, 2.3488));
+        assertNotNull(view.forecast);
+        assertBudget("forecast par position", latencies, FORECAST_P50_BUDGET, FORECAST_P95_BUDGET);
+    }
+
+    @Test
+    public void weatherAndForecastByCity_staysWithinBudget() throws Exception {
+        long[] latencies = measure(() -> presenter.getWeatherAndForecastByCity("Paris"), 2);
+        assertEquals("Paris", view.weather.getCityName());
+        assertTrue(view.forecast.getForecastItems().size() >= 20);
+        assertBudget("météo et prévisions One Call", latencies, ONE_CALL_P50_BUDGET, ONE_CALL_P95_BUDGET);
+    }
+
+    @Test
+    public void supersededSearch_isCancelledAndNeverDisplayed() throws Exception {
+        FreshDataStore.getInstance().clear();
+        WeatherRepository.getInstance().clear();
+        view.reset(1);
+        // Première recherche aussitôt remplacée par une seconde, sur une autre position
+        presenter.getWeatherByLocation(45.7640, 4.8357);
+        presenter.getWeatherByLocation(48.8534, 2.3488);
+        assertTrue("Pas de réponse au bout de " + TIMEOUT_SECONDS + " s",
+                view.displayed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // Laisser à la première réponse le temps d'arriver si elle n'avait pas été annulée
+        Thread.sleep(LATENCY_MILLIS + JITTER_MILLIS + 200);
+        assertEquals(1, view.displayCount.get());
+        assertEquals(1, presenter.getCancelledRequestCount());
+    }
+
+    private long[] measure(Runnable request) throws InterruptedException {
+        return measure(request, 1);
+    }
+
+    /**
+     * Exécute la requête plusieurs fois, une à la fois, et mesure chaque délai jusqu'à l'affichage
+     *
+     * @param displays Nombre d'affichages attendus par requête (météo, prévisions)
+     * @return Délais mesurés en millisecondes, triés
+     */
+    private long[] measure(Runnable request, int displays) throws InterruptedException {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            runOnce(request, displays);
+        }
+        long[] latencies = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            latencies[i] = runOnce(request, displays);
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private long runOnce(Runnable request, int displays) throws InterruptedException {
+        // Sans cela, toutes les itérations après la première seraient servies depuis la mémoire
+        FreshDataStore.getInstance().clear();
+        WeatherRepository.getInstance().clear();
+        view.reset(displays);
+        long start = System.nanoTime();
+        request.run();
+        assertTrue("Pas de réponse au bout de " + TIMEOUT_SECONDS + " s",
+                view.displayed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(view.displayedAtNanos - start);
+        assertNull(view.error);
+        return elapsed;
+    }
+
+    private static void assertBudget(String name, long[] sortedLatencies, long p50Budget, long p95Budget) {
+        long p50 = percentile(sortedLatencies, 50);
+        long p95 = percentile(sortedLatencies, 95);
+        String summary = String.format(Locale.ROOT, "%s : p50=%d ms (budget %d), p95=%d ms (budget %d)",
+                name, p50, p50Budget, p95, p95Budget);
+        System.out.println(summary);
+        assertTrue(summary, p50 <= p50Budget);
+        assertTrue(summary, p95 <= p95Budget);
+    }
+
+    /**
+     * Percentile par rang le plus proche sur un tableau trié
+     */
+    private static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /**
+     * Vue qui enregistre ce que le présentateur lui demande d'afficher
+     */
+    private static class RecordingView implements WeatherContract.View {
+        volatile CountDownLatch displayed = new CountDownLatch(1);
+        volatile long displayedAtNanos;
+        volatile WeatherResponse weather;
+        volatile ForecastResponse forecast;
+        volatile String error;
+        final AtomicInteger displayCount = new AtomicInteger();
+
+        void reset(int displays) {
+            displayed = new CountDownLatch(displays);
+            displayCount.set(0);
+            error = null;
+        }
+
+        @Override
+        public void showWeather(WeatherResponse weatherResponse) {
+            weather = weatherResponse;
+            markDisplayed();
+        }
+
+        @Override
+        public void showForecast(ForecastResponse forecastResponse) {
+            forecast = forecastResponse;
+            markDisplayed();
+        }
+
+        @Override
+        public void showError(String message) {
+            error = message;
+            markDisplayed();
+        }
+
+        @Override
+        public void showLoading() {
+        }
+
+        @Override
+        public void hideLoading() {
+        }
+
+        private void markDisplayed() {
+            displayedAtNanos = System.nanoTime();
+            displayCount.incrementAndGet();
+            displayed.countDown();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.meteoandroidmvp.repository;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Correction des fautes de frappe par le répertoire des villes : seuils selon la longueur
+ * du nom, transpositions, accents ignorés, comptage des corrections utilisées, et temps
+ * de réponse sur un répertoire de 200 000 noms (mesure lancée seulement avec -Pbenchmarks)
+ */
+public class CityGazetteerTest {
+
+    // Répertoire généré et corrections vérifiées
+    private static final int GENERATED_CITIES = 20_000;
+    private static final int GENERATED_QUERIES = 200;
+
+    // Répertoire de la mesure de temps, et corrections mesurées
+    private static final int BENCHMARK_CITIES = 200_000;
+    private static final int BENCHMARK_QUERIES = 500;
+
+    // Budgets en millisecondes par correction
+    private static final long P50_BUDGET_MILLIS = 15;
+    private static final long P95_BUDGET_MILLIS = 60;
+
+    private final CityGazetteer gazetteer = CityGazetteer.getInstance();
+
+    @Before
+    public void setUp() {
+        gazetteer.load(Arrays.asList(
+                city("Paris", "FR", 2_138_551),
+                city("Marseille", "FR", 870_731),
+                city("Lyon", "FR", 516_092),
+                city("Toulouse", "FR", 493_465),
+                city("Nice", "FR", 342_669),
+                city("Montpellier", "FR", 295_542),
+                city("Strasbourg", "FR", 287_228),
+                city("Reims", "FR", 182_211),
+                city("Saint-Étienne", "FR", 172_565),
+                city("Nîmes", "FR", 151_001),
+                city("Besançon", "FR", 117_912),
+                city("Lens", "FR", 31_415),
+                city("Paris", "US", 24_171)));
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        // Répertoire vide : les autres tests retrouvent un répertoire sans ville
+        CityGazetteer.getInstance().load(Collections.emptyList());
+    }
+
+    @Test
+    public void editDistance_countsTranspositionAsOneEdit() {
+        assertEquals(1, CityGazetteer.editDistance("ylon", "lyon", 2));
+        assertEquals(1, CityGazetteer.editDistance("marsielle", "marseille", 2));
+        assertEquals(2, CityGazetteer.editDistance("mrasiel", "marseil", 2));
+        assertEquals(1, CityGazetteer.editDistance("lyonn", "lyon", 2));
+        assertEquals(1, CityGazetteer.editDistance("lon", "lyon", 2));
+        // Au-delà du seuil : seuil + 1
+        assertEquals(2, CityGazetteer.editDistance("lille", "lyon", 1));
+        assertEquals(3, CityGazetteer.editDistance("strasbourg", "lyon", 2));
+    }
+
+    @Test
+    public void corrections_thresholdDependsOnLength() {
+        // Moins de 4 lettres : aucune correction
+        assertTrue(gazetteer.corrections("Lyn", 5).isEmpty());
+        assertTrue(gazetteer.corrections("Nie", 5).isEmpty());
+
+        // 4 à 5 lettres : une faute
+        assertEquals("Lyon", first("Lyonn"));
+        assertEquals("Reims", first("Riems"));
+        assertTrue(gazetteer.corrections("Lyxxn", 5).isEmpty());
+
+        // 6 à 9 lettres : deux fautes
+        assertEquals("Toulouse", first("Tolouze"));
+        assertTrue(gazetteer.corrections("Tlouzz", 5).isEmpty());
+
+        // 10 lettres et plus : trois fautes
+        assertEquals("Montpellier", first("Montpelyer"));
+        assertEquals("Strasbourg", first("Strazbourgg"));
+    }
+
+    @Test
+    public void corrections_transpositions() {
+        assertEquals("Marseille", first("Marsielle"));
+        assertEquals("Lyon", first("Ylon"));
+        assertEquals("Nîmes", first("Nimse"));
+    }
+
+    @Test
+    public void corrections_ignoreAccentsAndCase() {
+        // Nom connu, aux accents près : rien à corriger
+        assertTrue(gazetteer.corrections("besancon", 5).isEmpty());
+        assertTrue(gazetteer.corrections("SAINT ETIENNE", 5).isEmpty());
+        assertEquals("Besançon", gazetteer.lookup("besancon").getName());
+
+        // Faute sur un nom accentué, saisi sans accents
+        assertEquals("Besançon", first("Besanson"));
+        assertEquals("Saint-Étienne", first("saint etiene"));
+        assertEquals("Nîmes", first("NIMMES"));
+    }
+
+    @Test
+    public void corrections_closestFirstThenMostPopulated() {
+        List<CityGazetteer.City> corrections = gazetteer.corrections("Pariss", 5);
+        assertEquals(2, corrections.size());
+        assertEquals("FR", corrections.get(0).getCountry());
+        assertEquals("US", corrections.get(1).getCountry());
+
+        // Pays précisé : seules ses villes sont proposées
+        List<CityGazetteer.City> american = gazetteer.corrections("Pariss, US", 5);
+        assertEquals(1, american.size());
+        assertEquals("US", american.get(0).getCountry());
+    }
+
+    @Test
+    public void corrections_areCountedOnlyWhenUsed() {
+        long before = gazetteer.getAvoidedNotFoundCount();
+        assertEquals(1, gazetteer.corrections("Marsielle", 5).size());
+        assertEquals(1, gazetteer.corrections("Marsielle", 1).size());
+        assertEquals(before, gazetteer.getAvoidedNotFoundCount());
+
+        gazetteer.recordCorrection();
+        assertEquals(before + 1, gazetteer.getAvoidedNotFoundCount());
+    }
+
+    @Test
+    public void corrections_onGeneratedNames() {
+        Corrections corrections = correctTranspositions(GENERATED_CITIES, GENERATED_QUERIES);
+        assertTrue(corrections.corrected + "/" + GENERATED_QUERIES + " corrigées",
+                corrections.corrected > GENERATED_QUERIES * 9 / 10);
+    }
+
+    @Test
+    public void corrections_on200kNames_withinBudget() {
+        assumeTrue("Mesure de temps : lancer avec -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+        Corrections corrections = correctTranspositions(BENCHMARK_CITIES, BENCHMARK_QUERIES);
+        long[] durations = corrections.durations;
+        Arrays.sort(durations);
+        long p50 = durations[BENCHMARK_QUERIES / 2] / 1_000_000;
+        long p95 = durations[BENCHMARK_QUERIES * 95 / 100] / 1_000_000;
+
+        assertTrue(corrections.corrected + "/" + BENCHMARK_QUERIES + " corrigées",
+                corrections.corrected > BENCHMARK_QUERIES * 9 / 10);
+        assertTrue("p50 " + p50 + " ms (budget " + P50_BUDGET_MILLIS + ")", p50 <= P50_BUDGET_MILLIS);
+        assertTrue("p95 " + p95 + " ms (budget " + P95_BUDGET_MILLIS + ")", p95 <= P95_BUDGET_MILLIS);
+    }
+
+    /**
+     * Charge un répertoire de noms générés, puis corrige des noms de ce répertoire
+     * dont deux lettres voisines sont inversées
+     */
+    private Corrections correctTranspositions(int cityCount, int queryCount) {
+        Random random = new Random(42);
+        List<CityGazetteer.City> cities = new ArrayList<>(cityCount);
+        for (int i = 0; i < cityCount; i++) {
+            cities.add(city(randomName(random), "FR", 1 + random.nextInt(1_000_000)));
+        }
+        gazetteer.load(cities);
+
+        Corrections corrections = new Corrections(queryCount);
+        for (int i = 0; i < queryCount; i++) {
+            String name = cities.get(random.nextInt(cityCount)).getName();
+            String typo = transpose(name, random);
+            long start = System.nanoTime();
+            if (!gazetteer.corrections(typo, CityGazetteer.MAX_SUGGESTIONS).isEmpty()) {
+                corrections.corrected++;
+            }
+            corrections.durations[i] = System.nanoTime() - start;
+        }
+        return corrections;
+    }
+
+    private String first(String typed) {
+        List<CityGazetteer.City> corrections = gazetteer.corrections(typed, 5);
+        assertTrue("Aucune correction pour " + typed, !corrections.isEmpty());
+        assertNotNull(corrections.get(0));
+        return corrections.get(0).getName();
+    }
+
+    private static CityGazetteer.City city(String name, String country, long population) {
+        return new CityGazetteer.City(0, name, country, 0, 0, population);
+    }
+
+    /**
+     * @return Nom de ville plausible, de 2 à 4 syllabes
+     */
+    private static String randomName(Random random) {
+        String[] syllables = {"ba", "ché", "lo", "ri", "mon", "tan", "vil", "ser", "gue", "da", "ne", "pou",
+                "lle", "bré", "sur", "mer", "ro", "cha", "teau", "fon", "bel", "gar", "nac", "zac"};
+        StringBuilder name = new StringBuilder();
+        int count = 2 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            name.append(syllables[random.nextInt(syllables.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    /**
+     * @return Nom avec deux lettres voisines inversées
+     */
+    private static String transpose(String name, Random random) {
+        char[] letters = name.toLowerCase(Locale.ROOT).toCharArray();
+        int i = 1 + random.nextInt(letters.length - 2);
+        char swapped = letters[i];
+        letters[i] = letters[i + 1];
+        letters[i + 1] = swapped;
+        return new String(letters);
+    }
+
+    /**
+     * Nombre de noms corrigés et durée de chaque correction
+     */
+    private static class Corrections {
+        final long[] durations;
+        int corrected = 0;
+
+        Corrections(int queryCount) {
+            durations = new long[queryCount];
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.meteoandroidmvp.repository;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Ville la plus proche par l'arbre k-d, comparée à un parcours complet
+ * avec la distance sur le globe (formule de haversine)
+ */
+public class CityKdTreeTest {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    // Villes et positions recherchées
+    private static final int CITIES = 10_000;
+    private static final int QUERIES = 250;
+
+    @Test
+    public void nearest_matchesBruteForceHaversine() {
+        Random random = new Random(7);
+        double[] latitudes = new double[CITIES];
+        double[] longitudes = new double[CITIES];
+        for (int i = 0; i < CITIES; i++) {
+            latitudes[i] = randomLatitude(random);
+            longitudes[i] = random.nextDouble() * 360 - 180;
+        }
+        CityKdTree tree = new CityKdTree(latitudes, longitudes);
+
+        for (double maxKm : new double[]{15, 50, 500, 20_000}) {
+            for (int q = 0; q < QUERIES; q++) {
+                double latitude;
+                double longitude;
+                if (q % 2 == 0) {
+                    // Près d'une ville
+                    int near = random.nextInt(CITIES);
+                    latitude = Math.max(-90, Math.min(90, latitudes[near] + random.nextGaussian() * 0.1));
+                    longitude = longitudes[near] + random.nextGaussian() * 0.1;
+                } else {
+                    latitude = randomLatitude(random);
+                    longitude = random.nextDouble() * 360 - 180;
+                }
+                int expected = bruteForce(latitudes, longitudes, latitude, longitude, maxKm);
+                int actual = tree.nearest(latitude, longitude, maxKm);
+                assertEquals(String.format("(%f, %f) à %s km", latitude, longitude, maxKm),
+                        describe(expected, latitudes, longitudes, latitude, longitude),
+                        describe(actual, latitudes, longitudes, latitude, longitude));
+            }
+        }
+    }
+
+    @Test
+    public void nearest_acrossAntimeridianAndNearPoles() {
+        double[] latitudes = {-16.5, -17.7, 89.9, 78.2, -89.5};
+        double[] longitudes = {179.95, 178.4, 10, 15.6, -120};
+        CityKdTree tree = new CityKdTree(latitudes, longitudes);
+
+        // Juste de l'autre côté de l'antiméridien
+        assertEquals(0, tree.nearest(-16.5, -179.95, 15));
+        // Près du pôle, de l'autre côté : 0,13° de latitude en passant par le pôle
+        assertEquals(2, tree.nearest(89.97, -170, 15));
+        // Pôle sud : 0,9° par le pôle, soit environ 100 km
+        assertEquals(4, tree.nearest(-89.6, 60, 120));
+        assertEquals(-1, tree.nearest(-89.6, 60, 90));
+        // Rien à moins de 15 km
+        assertEquals(-1, tree.nearest(0, 0, 15));
+        assertEquals(-1, new CityKdTree(new double[0], new double[0]).nearest(48.85, 2.35, 15));
+    }
+
+    @Test
+    public void nearest_tieGoesToMostPopulated() {
+        // Deux villes au même endroit : la première (la plus peuplée) l'emporte
+        double[] latitudes = {45.75, 45.75, 45.76};
+        double[] longitudes = {4.85, 4.85, 4.84};
+        CityKdTree tree = new CityKdTree(latitudes, longitudes);
+        assertEquals(0, tree.nearest(45.75, 4.85, 15));
+    }
+
+    /**
+     * Latitude répartie uniformément sur la sphère (sinon les pôles seraient surreprésentés)
+     */
+    private static double randomLatitude(Random random) {
+        return Math.toDegrees(Math.asin(random.nextDouble() * 2 - 1));
+    }
+
+    private static int bruteForce(double[] latitudes, double[] longitudes, double latitude, double longitude,
+                                  double maxKm) {
+        int best = -1;
+        double bestKm = maxKm;
+        for (int i = 0; i < latitudes.length; i++) {
+            double km = haversineKm(latitudes[i], longitudes[i], latitude, longitude);
+            if (km < bestKm) {
+                bestKm = km;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Index trouvé et sa distance ; deux villes à la même distance (à 1 m près) sont équivalentes
+     */
+    private static String describe(int index, double[] latitudes, double[] longitudes,
+                                   double latitude, double longitude) {
+        if (index < 0) {
+            return "aucune";
+        }
+        return String.format("%.3f km", haversineKm(latitudes[index], longitudes[index], latitude, longitude));
+    }
+
+    private static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
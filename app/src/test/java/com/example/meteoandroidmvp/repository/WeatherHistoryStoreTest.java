@@ -0,0 +1,187 @@
+package com.example.meteoandroidmvp.repository;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.net.URLEncoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Historique des observations en colonnes : ajouts, requêtes par période,
+ * reprise après une écriture interrompue, export CSV et débit (mesure lancée seulement
+ * avec -Pbenchmarks)
+ */
+public class WeatherHistoryStoreTest {
+
+    private static final String CITY = "lyon";
+
+    // Heure de départ des observations (18/10/2025 00:00 UTC)
+    private static final long START = 1_760_745_600L;
+    private static final long HOUR = 3600;
+
+    // Mesure de débit : lignes ajoutées, puis lectures complètes de l'historique
+    private static final int BENCHMARK_ROWS = 2000;
+    private static final int BENCHMARK_SCANS = 500;
+
+    // Débits minimaux, en lignes par seconde (très en deçà des mesures, pour rester stable)
+    private static final long APPEND_BUDGET_ROWS_PER_SECOND = 200;
+    private static final long SCAN_BUDGET_ROWS_PER_SECOND = 1_000_000;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final WeatherHistoryStore store = WeatherHistoryStore.getInstance();
+
+    @Before
+    public void setUp() throws IOException {
+        store.init(folder.newFolder("weather_history"));
+    }
+
+    @Test
+    public void append_thenQueryPeriod() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            append(START + i * HOUR, 12.3f + i, 70 + i, 1015 + i, 4.6f, 800 + i);
+        }
+
+        WeatherHistoryStore.HistoryRange all = store.query("Lyon", 0, Long.MAX_VALUE);
+        assertEquals(5, all.size());
+        assertEquals(START, all.getTime(0));
+        assertEquals(12.3f, all.getTemperature(0), 0.001f);
+        assertEquals(70, all.getHumidity(0));
+        assertEquals(1015, all.getPressure(0));
+        assertEquals(4.6f, all.getWindSpeed(0), 0.001f);
+        assertEquals(800, all.getConditionId(0));
+
+        // Début inclus, fin exclue
+        WeatherHistoryStore.HistoryRange middle = store.query("Lyon", START + HOUR, START + 3 * HOUR);
+        assertEquals(2, middle.size());
+        assertEquals(START + HOUR, middle.getTime(0));
+        assertEquals(START + 2 * HOUR, middle.getTime(1));
+        assertEquals(14.3f, middle.getTemperature(1), 0.001f);
+
+        assertEquals(0, store.query("Lyon", START + 10 * HOUR, START + 20 * HOUR).size());
+        assertEquals(0, store.query("Paris", 0, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void lastDays_keepsRecentObservations() throws Exception {
+        long now = System.currentTimeMillis() / 1000;
+        append(now - 10 * 86_400, 8f, 80, 1010, 2f, 500);
+        append(now - 3 * 86_400, 10f, 75, 1012, 3f, 801);
+        append(now - HOUR, 15f, 60, 1020, 1f, 800);
+
+        WeatherHistoryStore.HistoryRange week = store.lastDays("Lyon", 7);
+        assertEquals(2, week.size());
+        assertEquals(now - 3 * 86_400, week.getTime(0));
+        assertEquals(12.5f, week.getAverageTemperature(), 0.001f);
+    }
+
+    @Test
+    public void append_skipsSameOrOlderObservation() throws Exception {
+        append(START + HOUR, 12f, 70, 1015, 4f, 800);
+        append(START + HOUR, 20f, 50, 1000, 9f, 500);
+        append(START, 20f, 50, 1000, 9f, 500);
+        append(START + 2 * HOUR, 13f, 71, 1016, 5f, 801);
+
+        WeatherHistoryStore.HistoryRange all = store.query(CITY, 0, Long.MAX_VALUE);
+        assertEquals(2, all.size());
+        assertEquals(12f, all.getTemperature(0), 0.001f);
+        assertEquals(START + 2 * HOUR, all.getTime(1));
+    }
+
+    @Test
+    public void tornAppend_isIgnoredThenOverwritten() throws Exception {
+        append(START, 12f, 70, 1015, 4f, 800);
+        append(START + HOUR, 13f, 71, 1016, 5f, 801);
+
+        // Arrêt brutal : valeurs de la troisième ligne écrites, heure à moitié écrite
+        File directory = new File(new File(folder.getRoot(), "weather_history"), URLEncoder.encode(CITY, "UTF-8"));
+        extend(new File(directory, "temperature.col"), 2);
+        extend(new File(directory, "humidity.col"), 1);
+        extend(new File(directory, "pressure.col"), 2);
+        extend(new File(directory, "wind.col"), 2);
+        extend(new File(directory, "condition.col"), 2);
+        extend(new File(directory, "time.col"), 2);
+
+        WeatherHistoryStore.HistoryRange afterCrash = store.query(CITY, 0, Long.MAX_VALUE);
+        assertEquals(2, afterCrash.size());
+        assertEquals(START + HOUR, afterCrash.getTime(1));
+
+        // L'ajout suivant écrase la ligne incomplète
+        append(START + 2 * HOUR, 14f, 72, 1017, 6f, 802);
+        WeatherHistoryStore.HistoryRange repaired = store.query(CITY, 0, Long.MAX_VALUE);
+        assertEquals(3, repaired.size());
+        assertEquals(START + 2 * HOUR, repaired.getTime(2));
+        assertEquals(14f, repaired.getTemperature(2), 0.001f);
+        assertEquals(72, repaired.getHumidity(2));
+        assertEquals(1017, repaired.getPressure(2));
+        assertEquals(6f, repaired.getWindSpeed(2), 0.001f);
+        assertEquals(802, repaired.getConditionId(2));
+        assertEquals(3 * 4, new File(directory, "time.col").length());
+    }
+
+    @Test
+    public void exportCsv_writesOneLinePerObservation() throws Exception {
+        append(START, -2.5f, 90, 1030, 0.4f, 600);
+        append(START + HOUR, 3f, 85, 1028, 12.3f, 701);
+
+        StringWriter csv = new StringWriter();
+        assertEquals(2, store.exportCsv("Lyon", csv));
+        assertEquals("time,temperature,humidity,pressure,wind_speed,condition_id\n"
+                        + START + ",-2.5,90,1030,0.4,600\n"
+                        + (START + HOUR) + ",3.0,85,1028,12.3,701\n",
+                csv.toString());
+
+        StringWriter empty = new StringWriter();
+        assertEquals(0, store.exportCsv("Paris", empty));
+        assertEquals("time,temperature,humidity,pressure,wind_speed,condition_id\n", empty.toString());
+    }
+
+    @Test
+    public void appendAndScanThroughput() throws Exception {
+        assumeTrue("Mesure de temps : lancer avec -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ROWS; i++) {
+            append(START + i * HOUR, 10f + (i % 100) / 10f, 60 + i % 40, 1000 + i % 30, (i % 80) / 10f, 800);
+        }
+        long appendNanos = System.nanoTime() - start;
+
+        long rows = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_SCANS; i++) {
+            rows += store.query(CITY, 0, Long.MAX_VALUE).size();
+        }
+        long scanNanos = System.nanoTime() - start;
+        assertEquals((long) BENCHMARK_ROWS * BENCHMARK_SCANS, rows);
+
+        long appendRate = BENCHMARK_ROWS * 1_000_000_000L / Math.max(1, appendNanos);
+        long scanRate = rows * 1_000_000_000L / Math.max(1, scanNanos);
+        assertTrue("Ajouts trop lents : " + appendRate + " lignes/s", appendRate >= APPEND_BUDGET_ROWS_PER_SECOND);
+        assertTrue("Lectures trop lentes : " + scanRate + " lignes/s", scanRate >= SCAN_BUDGET_ROWS_PER_SECOND);
+    }
+
+    private void append(long time, float temperature, int humidity, int pressure, float wind, int condition)
+            throws IOException {
+        store.append(CITY, time, (short) Math.round(temperature * 10), (byte) humidity, (short) pressure,
+                (short) Math.round(wind * 10), (short) condition);
+    }
+
+    /**
+     * Ajoute des octets en fin de fichier, comme une écriture interrompue
+     */
+    private static void extend(File file, int bytes) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length());
+            raf.write(new byte[bytes]);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.meteoandroidmvp.utils;
+
+import com.example.meteoandroidmvp.api.OwmStandInServer;
+import com.example.meteoandroidmvp.model.ForecastDay;
+import com.example.meteoandroidmvp.model.ForecastResponse;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Regroupement des prévisions par jour local de la ville : limites des jours selon le
+ * décalage horaire, titres, résumé de chaque jour et temps de calcul (mesure lancée
+ * seulement avec -Pbenchmarks)
+ */
+public class ForecastAggregatorTest {
+
+    private static final long HOUR = 3600;
+
+    // 18/10/2025 00:00 UTC
+    private static final long OCTOBER_18 = 1_760_745_600L;
+
+    // Regroupements mesurés, et budget moyen en microsecondes (40 créneaux)
+    private static final int BENCHMARK_ITERATIONS = 20_000;
+    private static final long AVERAGE_BUDGET_MICROS = 200;
+
+    private static final Gson gson = new Gson();
+
+    @Test
+    public void fixture_groupsFortySlotsIntoDays() throws Exception {
+        ForecastResponse forecast = gson.fromJson(OwmStandInServer.readFixture("fixtures/forecast.json"),
+                ForecastResponse.class);
+        // Premier créneau : 18/10/2025 11:00 UTC, soit 13:00 à Paris (UTC+2)
+        long now = forecast.getForecastItems().get(0).getDateTime() * 1000;
+
+        List<ForecastDay> days = ForecastAggregator.byDay(forecast, now);
+
+        assertEquals(6, days.size());
+        int[] slots = {4, 8, 8, 8, 8, 4};
+        String[] titles = {"Aujourd'hui", "Demain", "Lundi 20 octobre", "Mardi 21 octobre",
+                "Mercredi 22 octobre", "Jeudi 23 octobre"};
+        // À égalité, le temps rencontré en premier dans la journée l'emporte
+        int[] dominant = {800, 803, 800, 500, 803, 800};
+        float[] max = {17.4f, 17.4f, 17.4f, 17.4f, 17.4f, 12.4f};
+        for (int i = 0; i < days.size(); i++) {
+            ForecastDay day = days.get(i);
+            assertEquals(titles[i], day.getDayTitle());
+            assertEquals(slots[i], day.getHourlyForecasts().size());
+            assertEquals(20_379 + i, day.getEpochDay());
+            assertEquals(7200, day.getTimezoneOffset());
+            assertEquals(dominant[i], day.getDominantCondition().getId());
+            assertEquals(max[i], day.getMaxTemperature(), 0.001f);
+            assertEquals(0.6f, day.getPrecipitationProbability(), 0.001f);
+        }
+        assertEquals(11.4f, days.get(0).getMinTemperature(), 0.001f);
+        assertEquals(6.4f, days.get(1).getMinTemperature(), 0.001f);
+        // Les jours reprennent les créneaux d'origine, dans l'ordre
+        assertEquals(forecast.getForecastItems().get(4), days.get(1).getHourlyForecasts().get(0));
+    }
+
+    @Test
+    public void positiveOffset_dayStartsAtLocalMidnight() {
+        // UTC+2 : 21:30 UTC est encore le 18, 22:30 UTC déjà le 19
+        ForecastResponse forecast = forecast(7200,
+                item(OCTOBER_18 + 21 * HOUR + 1800, 15f, 0.1f, 800),
+                item(OCTOBER_18 + 22 * HOUR + 1800, 12f, 0.4f, 500));
+
+        List<ForecastDay> days = ForecastAggregator.byDay(forecast, (OCTOBER_18 + 12 * HOUR) * 1000);
+
+        assertEquals(2, days.size());
+        assertEquals("Aujourd'hui", days.get(0).getDayTitle());
+        assertEquals("Demain", days.get(1).getDayTitle());
+        assertEquals(1, days.get(0).getHourlyForecasts().size());
+        assertEquals(12f, days.get(1).getMinTemperature(), 0.001f);
+        assertEquals(0.4f, days.get(1).getPrecipitationProbability(), 0.001f);
+    }
+
+    @Test
+    public void negativeOffset_dayStartsAtLocalMidnight() {
+        // UTC-5 : 04:00 UTC le 18 est encore le 17 (23:00), 05:00 UTC est minuit le 18
+        ForecastResponse forecast = forecast(-18000,
+                item(OCTOBER_18 + 4 * HOUR, 9f, 0f, 801),
+                item(OCTOBER_18 + 5 * HOUR, 8f, 0f, 802),
+                item(OCTOBER_18 + 28 * HOUR, 7f, 0f, 803),
+                item(OCTOBER_18 + 29 * HOUR, 6f, 0f, 804));
+
+        // 03:00 UTC le 18 : 22:00 le 17 dans la ville, alors que c'est déjà le 18 en UTC
+        List<ForecastDay> days = ForecastAggregator.byDay(forecast, (OCTOBER_18 + 3 * HOUR) * 1000);
+
+        assertEquals(3, days.size());
+        assertEquals("Aujourd'hui", days.get(0).getDayTitle());
+        assertEquals("Demain", days.get(1).getDayTitle());
+        assertEquals("Dimanche 19 octobre", days.get(2).getDayTitle());
+        assertEquals(1, days.get(0).getHourlyForecasts().size());
+        assertEquals(2, days.get(1).getHourlyForecasts().size());
+        assertEquals(1, days.get(2).getHourlyForecasts().size());
+        assertEquals(Math.floorDiv(OCTOBER_18 - 5 * HOUR, 86_400), days.get(0).getEpochDay());
+    }
+
+    @Test
+    public void titles_followCityDayNotUtcDay() {
+        // UTC+14 : à 11:00 UTC le 18, il est déjà 01:00 le 19 dans la ville
+        ForecastResponse forecast = forecast(14 * 3600,
+                item(OCTOBER_18 + 12 * HOUR, 20f, 0f, 800),
+                item(OCTOBER_18 + 36 * HOUR, 21f, 0f, 800),
+                item(OCTOBER_18 + 60 * HOUR, 22f, 0f, 800));
+
+        List<ForecastDay> days = ForecastAggregator.byDay(forecast, (OCTOBER_18 + 11 * HOUR) * 1000);
+
+        assertEquals("Aujourd'hui", days.get(0).getDayTitle());
+        assertEquals("Demain", days.get(1).getDayTitle());
+        assertEquals("Mardi 21 octobre", days.get(2).getDayTitle());
+    }
+
+    @Test
+    public void dayWithoutMain_hasZeroTemperatures() {
+        ForecastResponse forecast = forecast(0,
+                item(OCTOBER_18 + 9 * HOUR, null, 0.3f, 500),
+                item(OCTOBER_18 + 12 * HOUR, null, 0.7f, 500),
+                item(OCTOBER_18 + 33 * HOUR, -3.5f, 0f, 600));
+
+        List<ForecastDay> days = ForecastAggregator.byDay(forecast, OCTOBER_18 * 1000);
+
+        assertEquals(2, days.size());
+        assertEquals(0f, days.get(0).getMinTemperature(), 0f);
+        assertEquals(0f, days.get(0).getMaxTemperature(), 0f);
+        assertEquals(0.7f, days.get(0).getPrecipitationProbability(), 0.001f);
+        assertEquals(500, days.get(0).getDominantCondition().getId());
+        // Le jour suivant repart de zéro
+        assertEquals(-3.5f, days.get(1).getMinTemperature(), 0.001f);
+        assertEquals(-3.5f, days.get(1).getMaxTemperature(), 0.001f);
+        assertEquals(600, days.get(1).getDominantCondition().getId());
+    }
+
+    @Test
+    public void dayWithoutWeather_hasNoDominantCondition() {
+        ForecastResponse forecast = gson.fromJson("{\"city\":{\"timezone\":0},\"list\":["
+                + "{\"dt\":" + OCTOBER_18 + ",\"main\":{\"temp\":10,\"temp_min\":10,\"temp_max\":10}}]}",
+                ForecastResponse.class);
+
+        List<ForecastDay> days = ForecastAggregator.byDay(forecast, OCTOBER_18 * 1000);
+
+        assertEquals(1, days.size());
+        assertNull(days.get(0).getDominantCondition());
+    }
+
+    @Test
+    public void emptyForecast_hasNoDays() {
+        assertTrue(ForecastAggregator.byDay(null, 0).isEmpty());
+        assertTrue(ForecastAggregator.byDay(forecast(0), 0).isEmpty());
+    }
+
+    @Test
+    public void byDay_throughput() throws Exception {
+        assumeTrue("Mesure de temps : lancer avec -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+        ForecastResponse forecast = gson.fromJson(OwmStandInServer.readFixture("fixtures/forecast.json"),
+                ForecastResponse.class);
+        long now = forecast.getForecastItems().get(0).getDateTime() * 1000;
+        long days = 0;
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            days += ForecastAggregator.byDay(forecast, now).size();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            days += ForecastAggregator.byDay(forecast, now).size();
+        }
+        long averageNanos = (System.nanoTime() - start) / BENCHMARK_ITERATIONS;
+
+        assertEquals(6L * BENCHMARK_ITERATIONS * 2, days);
+        assertTrue("Regroupement de 40 créneaux : " + averageNanos / 1000 + " µs (budget " + AVERAGE_BUDGET_MICROS + ")",
+                averageNanos / 1000 <= AVERAGE_BUDGET_MICROS);
+    }
+
+    private static ForecastResponse forecast(int timezone, String... items) {
+        return gson.fromJson("{\"city\":{\"name\":\"Test\",\"timezone\":" + timezone + "},\"list\":["
+                + String.join(",", items) + "]}", ForecastResponse.class);
+    }
+
+    /**
+     * @param temperature Température du créneau, ou null pour un créneau sans "main"
+     */
+    private static String item(long dateTime, Float temperature, float pop, int conditionId) {
+        String main = temperature != null
+                ? String.format(Locale.ROOT, "\"main\":{\"temp\":%s,\"temp_min\":%s,\"temp_max\":%s},",
+                temperature, temperature, temperature)
+                : "";
+        return String.format(Locale.ROOT, "{\"dt\":%d,%s\"weather\":[{\"id\":%d,\"main\":\"\",\"description\":\"\","
+                + "\"icon\":\"01d\"}],\"pop\":%s}", dateTime, main, conditionId, pop);
+    }
+}